@@ -0,0 +1,50 @@
+package Codify.similarity.benchmark;
+
+import Codify.similarity.core.ASTVectorizer;
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeNodeBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 깊은 AST 순회 벤치마크 (재귀 구현이면 StackOverflowError가 나는 깊이 포함)
+// ./gradlew jmh (SimilarityCoreBenchmark와 함께 실행)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeepTreeBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int depth;
+
+    private JsonNode json;
+    private TreeNode tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = new SyntheticAstGenerator(42L).deepExpression(depth);
+        tree = TreeNodeBuilder.fromJson(json);
+    }
+
+    @Benchmark
+    public TreeNode treeNodeFromJson() {
+        return TreeNodeBuilder.fromJson(json);
+    }
+
+    @Benchmark
+    public int computeSpan() {
+        tree.computeSpan();
+        return tree.maxLine;
+    }
+
+    @Benchmark
+    public Map<String, Integer> buildTypeVector() {
+        return ASTVectorizer.buildTypeVector(json);
+    }
+}
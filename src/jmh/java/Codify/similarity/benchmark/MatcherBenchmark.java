@@ -0,0 +1,52 @@
+package Codify.similarity.benchmark;
+
+import Codify.similarity.core.PairMatcher;
+import Codify.similarity.core.TreeAlignment;
+import Codify.similarity.core.TreeMatcher;
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.model.TreeNodeBuilder;
+import Codify.similarity.model.TreeSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 매칭 구현별 세그먼트 추출 벤치마크 (TED 표는 setUp에서 한 번 채움, 매칭 + 세그먼트 변환만 측정)
+// TED 매칭과의 일치도는 MatcherAgreementTest에서 확인 (같은 합성 AST)
+// ./gradlew jmh (다른 벤치마크와 함께 실행)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatcherBenchmark {
+
+    @Param({"2000", "10000"})
+    public int size;
+
+    @Param({"0.05", "0.2"})
+    public double mutationRate;
+
+    @Param({"TED", "GREEDY", "WINNOWING"})
+    public PairMatcher.Engine engine;
+
+    private TreeAlignment alignment;
+    private PairMatcher matcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var generator = new SyntheticAstGenerator(42L);
+        JsonNode jsonA = generator.generate(new SyntheticAstGenerator.Spec(size, 12, 4, mutationRate));
+        JsonNode jsonB = generator.mutate(jsonA, mutationRate);
+        alignment = TreeAlignment.of(TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonA)),
+                TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonB)));
+        matcher = PairMatcher.of(engine);
+    }
+
+    @Benchmark
+    public List<TreeMatcher.Seg> segments() {
+        return matcher.segments(alignment, 2);
+    }
+}
@@ -0,0 +1,59 @@
+package Codify.similarity.benchmark;
+
+import Codify.similarity.core.TreeAlignment;
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.model.TreeNodeBuilder;
+import Codify.similarity.model.TreeSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// 큰 페어 한 쌍의 TED 표 병렬 계산 벤치마크
+// parallelism = 0은 순차 계산 (기준값), 코어당 속도 향상 = 기준 시간 / (시간 * parallelism)
+// methodDistance: 메서드 분해 TED (similarity.ted.mode = METHOD) 같은 페어 비교용
+// ./gradlew jmh (다른 벤치마크와 함께 실행)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelTedBenchmark {
+
+    @Param({"5000", "20000"})
+    public int size;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int parallelism;
+
+    private TreeSnapshot snapshotA;
+    private TreeSnapshot snapshotB;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var generator = new SyntheticAstGenerator(42L);
+        JsonNode jsonA = generator.generate(new SyntheticAstGenerator.Spec(size, 12, 4, 0.05));
+        JsonNode jsonB = generator.mutate(jsonA, 0.05);
+        snapshotA = TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonA));
+        snapshotB = TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonB));
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public int tedDistance() {
+        return TreeAlignment.of(snapshotA, snapshotB, pool).distance();
+    }
+
+    @Benchmark
+    public int methodDistance() {
+        return TreeAlignment.byMethods(snapshotA, snapshotB, pool).distance();
+    }
+}
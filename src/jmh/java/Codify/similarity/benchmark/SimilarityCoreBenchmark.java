@@ -0,0 +1,124 @@
+package Codify.similarity.benchmark;
+
+import Codify.similarity.core.ASTVectorizer;
+import Codify.similarity.core.CosineSimilarity;
+import Codify.similarity.core.RangeUtil;
+import Codify.similarity.core.TreeAlignment;
+import Codify.similarity.core.TreeEditDistance;
+import Codify.similarity.core.TreeMatcher;
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeNodeBuilder;
+import Codify.similarity.model.TreeSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 핵심 유사도 알고리즘 벤치마크
+// ./gradlew jmh  (gc 프로파일러로 bytes/op 함께 측정)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimilarityCoreBenchmark {
+
+    @Param({"200", "2000"})
+    public int size;
+
+    @Param({"12"})
+    public int depth;
+
+    @Param({"4"})
+    public int branching;
+
+    @Param({"0.05", "0.2"})
+    public double mutationRate;
+
+    private JsonNode jsonA;
+    private JsonNode jsonB;
+    private TreeNode treeA;
+    private TreeNode treeB;
+    private TreeSnapshot snapshotA;
+    private TreeSnapshot snapshotB;
+    private Map<String, Integer> vecA;
+    private Map<String, Integer> vecB;
+    private List<TreeMatcher.Match> matches;
+    private List<RangeUtil.Interval> intervals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var generator = new SyntheticAstGenerator(42L);
+        var spec = new SyntheticAstGenerator.Spec(size, depth, branching, mutationRate);
+        jsonA = generator.generate(spec);
+        jsonB = generator.mutate(jsonA, mutationRate);
+
+        treeA = TreeNodeBuilder.fromJson(jsonA);
+        treeB = TreeNodeBuilder.fromJson(jsonB);
+        snapshotA = TreeSnapshot.of(treeA);
+        snapshotB = TreeSnapshot.of(treeB);
+        vecA = ASTVectorizer.buildTypeVector(jsonA);
+        vecB = ASTVectorizer.buildTypeVector(jsonB);
+        matches = TreeMatcher.match(snapshotA, snapshotB);
+
+        var random = new Random(7L);
+        intervals = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int start = 1 + random.nextInt(size);
+            intervals.add(new RangeUtil.Interval(start, start + random.nextInt(10)));
+        }
+    }
+
+    @Benchmark
+    public int treeEditDistance() {
+        return TreeEditDistance.compute(treeA, treeB);
+    }
+
+    // 서비스 경로: TED 표 한 번으로 점수 + 세그먼트
+    @Benchmark
+    public List<TreeMatcher.Seg> alignmentScoreAndSegments() {
+        TreeAlignment alignment = TreeAlignment.of(snapshotA, snapshotB);
+        return alignment.similarity() >= 0 ? alignment.segments(2) : List.of();
+    }
+
+    @Benchmark
+    public List<TreeMatcher.Seg> treeMatcherMatchAndSegments() {
+        return TreeMatcher.toSegments(TreeMatcher.match(snapshotA, snapshotB), 2);
+    }
+
+    @Benchmark
+    public List<TreeMatcher.Seg> treeMatcherSegmentsOnly() {
+        return TreeMatcher.toSegments(matches, 2);
+    }
+
+    @Benchmark
+    public Map<String, Integer> buildTypeVector() {
+        return ASTVectorizer.buildTypeVector(jsonA);
+    }
+
+    @Benchmark
+    public double cosineSimilarity() {
+        return CosineSimilarity.calculate(vecA, vecB);
+    }
+
+    @Benchmark
+    public TreeNode treeNodeFromJson() {
+        return TreeNodeBuilder.fromJson(jsonA);
+    }
+
+    @Benchmark
+    public TreeSnapshot treeSnapshotFromJson() {
+        return TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonA));
+    }
+
+    @Benchmark
+    public List<RangeUtil.Interval> mergeRanges() {
+        return RangeUtil.mergeRanges(intervals);
+    }
+}
@@ -0,0 +1,90 @@
+package Codify.similarity.loadtest;
+
+import Codify.similarity.mongo.ResultDoc;
+import Codify.similarity.mongo.ResultDocReader;
+import Codify.similarity.mongo.SubmissionAstCount;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// loadtest 프로필 전용 result 컬렉션 (Cosmos Mongo 대체)
+// 서비스가 주입받는 ResultDocReader 쿼리를 submissionId 순 Map 조회로 구현 (Mongo 저장소 자동 구성은 제외됨)
+@Repository
+@Profile("loadtest")
+public class InMemoryResultDocRepository implements ResultDocReader {
+
+    private final Map<String, ResultDoc> docs = new ConcurrentHashMap<>();
+
+    private List<ResultDoc> filter(Predicate<ResultDoc> predicate) {
+        return docs.values().stream()
+                .filter(predicate)
+                .sorted(Comparator.comparing(ResultDoc::getSubmissionId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<ResultDoc> findBySubmissionId(Integer submissionId) {
+        return filter(d -> Objects.equals(d.getSubmissionId(), submissionId)).stream().findFirst();
+    }
+
+    @Override
+    public boolean existsByAssignmentId(Integer assignmentId) {
+        return docs.values().stream().anyMatch(d -> Objects.equals(d.getAssignmentId(), assignmentId));
+    }
+
+    @Override
+    public List<ResultDoc> findAllByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNotNullOrderBySubmissionIdAsc(
+            Integer assignmentId, Integer submissionId) {
+        return filter(d -> Objects.equals(d.getAssignmentId(), assignmentId)
+                && d.getSubmissionId() > submissionId && d.getAst() != null);
+    }
+
+    @Override
+    public List<ResultDoc> findAllByAssignmentIdAndSubmissionIdGreaterThanEqualAndAstIsNotNullOrderBySubmissionIdAsc(
+            Integer assignmentId, Integer submissionId) {
+        return filter(d -> Objects.equals(d.getAssignmentId(), assignmentId)
+                && d.getSubmissionId() >= submissionId && d.getAst() != null);
+    }
+
+    @Override
+    public int countByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNotNull(Integer assignmentId, Integer submissionId) {
+        return findAllByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNotNullOrderBySubmissionIdAsc(
+                assignmentId, submissionId).size();
+    }
+
+    @Override
+    public int countByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNull(Integer assignmentId, Integer submissionId) {
+        return filter(d -> Objects.equals(d.getAssignmentId(), assignmentId)
+                && d.getSubmissionId() > submissionId && d.getAst() == null).size();
+    }
+
+    @Override
+    public List<ResultDoc> findAllByAssignmentIdAndSubmissionIdInAndAstIsNotNull(Long assignmentId, List<Integer> submissionIds) {
+        var ids = new HashSet<>(submissionIds);
+        return filter(d -> d.getAssignmentId() != null && d.getAssignmentId().longValue() == assignmentId
+                && ids.contains(d.getSubmissionId()) && d.getAst() != null);
+    }
+
+    @Override
+    public List<SubmissionAstCount> aggregateAstCountsByAssignmentId(Integer assignmentId) {
+        return filter(d -> Objects.equals(d.getAssignmentId(), assignmentId)).stream()
+                .collect(Collectors.groupingBy(ResultDoc::getSubmissionId, TreeMap::new, Collectors.toList()))
+                .values().stream()
+                .map(group -> new SubmissionAstCount(
+                        group.get(0).getSubmissionId(),
+                        group.get(0).getStudentId(),
+                        (int) group.stream().filter(d -> d.getAst() != null).count(),
+                        (int) group.stream().filter(d -> d.getAst() == null).count()))
+                .toList();
+    }
+
+    // 시드용 (LoadTestDriver)
+    public ResultDoc save(ResultDoc doc) {
+        docs.put(doc.getId(), doc);
+        return doc;
+    }
+}
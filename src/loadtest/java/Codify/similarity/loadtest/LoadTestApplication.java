@@ -0,0 +1,19 @@
+package Codify.similarity.loadtest;
+
+import Codify.similarity.SimilarityApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+// 종단간 처리량 측정 진입점 (./gradlew loadTest)
+// loadtest 프로필: Mongo -> 인메모리 ResultDocReader, MySQL -> H2(MySQL 모드), RabbitMQ -> 직접 호출
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        var context = new SpringApplicationBuilder(SimilarityApplication.class)
+                .profiles("loadtest")
+                .web(WebApplicationType.NONE)
+                .run(args);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,18 @@
+package Codify.similarity.loadtest;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+
+    //RabbitConfig의 rabbitTemplate 대신 주입
+    @Bean
+    @Primary
+    public RecordingRabbitTemplate recordingRabbitTemplate() {
+        return new RecordingRabbitTemplate();
+    }
+}
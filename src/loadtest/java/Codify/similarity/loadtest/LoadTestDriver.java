@@ -0,0 +1,157 @@
+package Codify.similarity.loadtest;
+
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.mongo.ResultDoc;
+import Codify.similarity.service.listener.PairBlockListener;
+import Codify.similarity.service.listener.SimilarityMessageListener;
+import Codify.similarity.web.dto.MessageDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 합성 그룹을 시드하고 SimilarityMessageListener를 직접 호출해 종단간 처리량 측정
+// 결과: pairs/sec, 그룹 지연 p50/p99, 최대 힙 사용량 (전체 힙 사용량을 HEAP_SAMPLE_MS마다 샘플링한 최댓값)
+@Slf4j
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+public class LoadTestDriver implements ApplicationRunner {
+
+    private static final long HEAP_SAMPLE_MS = 20;
+
+    private final InMemoryResultDocRepository resultDocRepository;
+    private final SimilarityMessageListener similarityMessageListener;
+    private final PairBlockListener pairBlockListener;
+    private final RecordingRabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${loadtest.groups}")
+    private int groups;
+    @Value("${loadtest.group-size}")
+    private int groupSize;
+    @Value("${loadtest.concurrency}")
+    private int concurrency;
+    @Value("${loadtest.ast-size}")
+    private int astSize;
+    @Value("${loadtest.templates-per-group}")
+    private int templatesPerGroup;
+    @Value("${loadtest.mutation-rate}")
+    private double mutationRate;
+    @Value("${loadtest.seed}")
+    private long seed;
+    @Value("${loadtest.timeout-minutes:60}")
+    private long timeoutMinutes;
+    @Value("${similarity.sharding.consumers:2}")
+    private int blockConsumers;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<MessageDto> messages = seed();
+        rabbitTemplate.deliverBlocksTo(task -> pairBlockListener.handleBlock(task, null), blockConsumers);
+        log.info("loadtest 시작: groups={}, groupSize={}, concurrency={}, astSize={}",
+                groups, groupSize, concurrency, astSize);
+
+        // 풀별 최대치 합은 서로 다른 시점의 최대치를 더하므로 과대 -> 전체 사용량을 주기적으로 샘플링
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleAtFixedRate(
+                () -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, HEAP_SAMPLE_MS, TimeUnit.MILLISECONDS);
+
+        ExecutorService drivers = Executors.newFixedThreadPool(concurrency);
+        long startedAt = System.nanoTime();
+        List<Future<Long>> latencies = new ArrayList<>();
+        for (MessageDto message : messages) {
+            latencies.add(drivers.submit(() -> {
+                long t0 = System.nanoTime();
+                // 브로커 수신 이후 경로와 동일 (in-flight 상한 -> 분석 -> 저장 완료 시 future 완료)
+                similarityMessageListener.dispatch(message).get(timeoutMinutes, TimeUnit.MINUTES);
+                // 블록 분할 경로는 마지막 블록이 완료 이벤트를 발행할 때까지 대기
+                rabbitTemplate.awaitCompleted(message.getGroupId()).get(timeoutMinutes, TimeUnit.MINUTES);
+                return System.nanoTime() - t0;
+            }));
+        }
+
+        List<Long> groupNanos = new ArrayList<>();
+        for (Future<Long> latency : latencies) groupNanos.add(latency.get());
+        long elapsedNanos = System.nanoTime() - startedAt;
+        drivers.shutdown();
+        rabbitTemplate.shutdown();
+        heapSampler.shutdownNow();
+
+        long pairs = (long) groups * groupSize * (groupSize - 1) / 2;
+        groupNanos.sort(Long::compare);
+
+        log.info("=== loadtest 결과 ===");
+        log.info("groups={}, pairs={}, elapsed={} ms", groups, pairs, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("throughput={} pairs/sec", String.format("%.1f", pairs / (elapsedNanos / 1e9)));
+        log.info("group latency p50={} ms, p99={} ms, max={} ms",
+                TimeUnit.NANOSECONDS.toMillis(percentile(groupNanos, 50)),
+                TimeUnit.NANOSECONDS.toMillis(percentile(groupNanos, 99)),
+                TimeUnit.NANOSECONDS.toMillis(groupNanos.get(groupNanos.size() - 1)));
+        log.info("peak heap={} MB", peakHeap.get() / (1024 * 1024));
+        log.info("completed messages recorded={}", rabbitTemplate.completedCount());
+    }
+
+    // 그룹마다 templatesPerGroup개의 원본을 만들고 변형본으로 제출물을 채움 (유사 페어가 코사인 게이트를 통과하도록)
+    private List<MessageDto> seed() {
+        var generator = new SyntheticAstGenerator(seed);
+        var spec = new SyntheticAstGenerator.Spec(astSize, 12, 4, mutationRate);
+        List<MessageDto> messages = new ArrayList<>();
+
+        for (int g = 0; g < groups; g++) {
+            int assignmentId = g + 1;
+            List<JsonNode> templates = new ArrayList<>();
+            for (int t = 0; t < Math.max(1, templatesPerGroup); t++) templates.add(generator.generate(spec));
+
+            List<Long> submissionIds = new ArrayList<>();
+            for (int i = 0; i < groupSize; i++) {
+                int submissionId = assignmentId * 100_000 + i + 1;
+                JsonNode ast = generator.mutate(templates.get(i % templates.size()), mutationRate);
+                resultDocRepository.save(toResultDoc(submissionId, submissionId, assignmentId, ast));
+                submissionIds.add((long) submissionId);
+            }
+            messages.add(new MessageDto("PARSING_COMPLETED", "loadtest-" + assignmentId, (long) assignmentId,
+                    submissionIds, groupSize, LocalDateTime.now()));
+        }
+        return messages;
+    }
+
+    // parsing service가 저장하는 문서 형태 그대로 (ast는 Map)
+    private ResultDoc toResultDoc(int submissionId, int studentId, int assignmentId, JsonNode ast) {
+        Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("id", "loadtest-" + submissionId);
+        doc.put("submissionId", submissionId);
+        doc.put("studentId", studentId);
+        doc.put("assignmentId", assignmentId);
+        doc.put("ast", objectMapper.convertValue(ast, Map.class));
+        return objectMapper.convertValue(doc, ResultDoc.class);
+    }
+
+    private static long percentile(List<Long> sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+}
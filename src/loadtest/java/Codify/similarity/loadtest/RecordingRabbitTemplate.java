@@ -0,0 +1,64 @@
+package Codify.similarity.loadtest;
+
+import Codify.similarity.web.dto.MessageDto;
+import Codify.similarity.web.dto.PairBlockTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// 브로커 대신 발행 메시지를 기록만 하는 RabbitTemplate
+// 페어 블록(similarity.block)은 JVM 내부 컨슈머 스레드로 전달 -> 블록 분할 경로를 로컬에서 검증
+@Slf4j
+public class RecordingRabbitTemplate extends RabbitTemplate {
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final Map<String, CompletableFuture<Void>> completions = new ConcurrentHashMap<>();
+    private volatile Consumer<PairBlockTask> blockConsumer;
+    private volatile ExecutorService blockWorkers;
+
+    public int completedCount() {
+        return completed.get();
+    }
+
+    // groupId의 SIMILARITY_COMPLETED가 발행되면 완료되는 future
+    public CompletableFuture<Void> awaitCompleted(String groupId) {
+        return completions.computeIfAbsent(groupId, id -> new CompletableFuture<>());
+    }
+
+    // 블록 태스크를 consumers개 스레드에서 consumer로 처리 (인스턴스 여러 개를 흉내)
+    public void deliverBlocksTo(Consumer<PairBlockTask> consumer, int consumers) {
+        this.blockConsumer = consumer;
+        this.blockWorkers = Executors.newFixedThreadPool(Math.max(1, consumers));
+    }
+
+    public void shutdown() {
+        if (blockWorkers != null) blockWorkers.shutdown();
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object message) {
+        if (message instanceof MessageDto dto && "SIMILARITY_COMPLETED".equals(dto.getMessageType())) {
+            completed.incrementAndGet();
+            awaitCompleted(dto.getGroupId()).complete(null);
+        }
+        if (message instanceof PairBlockTask task && blockWorkers != null) {
+            blockWorkers.submit(() -> {
+                try {
+                    blockConsumer.accept(task);
+                } catch (Exception e) {
+                    log.error("loadtest: 블록 처리 실패 block={}", task.blockIndex(), e);
+                    awaitCompleted(task.source().getGroupId()).completeExceptionally(e);
+                }
+            });
+            return;
+        }
+        log.debug("loadtest: 기록만 하고 전송하지 않음 exchange={}, routingKey={}", exchange, routingKey);
+    }
+}
@@ -1,11 +1,13 @@
 package Codify.similarity.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
@@ -36,4 +38,50 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    //페어 비교 작업 풀 (AnalysisScheduler 레인별로 분리)
+    //작은 그룹 전용 풀을 따로 두어 큰 그룹이 CPU를 독점해도 작은 그룹 지연이 일정하게 유지됨
+    @Bean("smallLaneExecutor")
+    public ThreadPoolTaskExecutor smallLaneExecutor(
+            @Value("${similarity.scheduler.small.pair-threads:2}") int threads) {
+        return laneExecutor(threads, "lane-small-");
+    }
+
+    @Bean("largeLaneExecutor")
+    public ThreadPoolTaskExecutor largeLaneExecutor(
+            @Value("${similarity.scheduler.large.pair-threads:4}") int threads) {
+        return laneExecutor(threads, "lane-large-");
+    }
+
+    //큰 페어 한 쌍의 TED 표를 나눠 채우는 fork/join 풀 (0이면 코어 수)
+    //레인 풀과 분리해 큰 페어가 와도 페어 작업 스레드 수는 그대로 유지
+    @Bean(name = "tedForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool tedForkJoinPool(
+            @Value("${similarity.ted.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    //lazy 세그먼트 미리 계산용 저우선순위 풀 (상위 페어 몇 개만, 가득 차면 버림)
+    @Bean("segmentExecutor")
+    public ThreadPoolTaskExecutor segmentExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(16);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setThreadNamePrefix("segment-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    //행 단위 페어 작업이 그룹 크기만큼 쌓이므로 대기열은 무제한
+    private static ThreadPoolTaskExecutor laneExecutor(int threads, String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setThreadNamePrefix(prefix);
+        executor.initialize();
+        return executor;
+    }
 }
@@ -6,6 +6,7 @@ import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFacto
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,6 +14,32 @@ import org.springframework.context.annotation.Configuration;
 @EnableRabbit
 public class RabbitConfig {
 
+    //리스너 자동 시작 여부 (loadtest 프로필에서는 브로커 없이 직접 호출)
+    @Value("${similarity.rabbit.listener.auto-startup:true}")
+    private boolean listenerAutoStartup;
+
+    //similarity.queue 컨슈머 수
+    @Value("${similarity.rabbit.listener.concurrency:1}")
+    private int listenerConcurrency;
+
+    @Value("${similarity.rabbit.listener.max-concurrency:2}")
+    private int listenerMaxConcurrency;
+
+    //미ack 그룹 메시지 상한 (실행 순서/동시 실행 수는 AnalysisScheduler가 결정)
+    @Value("${similarity.analysis.max-in-flight:8}")
+    private int maxInFlight;
+
+    //similarity.block.queue 컨슈머 수 (인스턴스당, 한 JVM에서 여러 컨슈머로 로컬 검증 가능)
+    @Value("${similarity.sharding.consumers:2}")
+    private int blockConsumers;
+
+    //레인 크레딧이 없어 미룬 그룹 메시지를 다시 받기 전 대기 시간
+    @Value("${similarity.scheduler.defer-ms:10000}")
+    private long deferMs;
+
+    //실패한 블록을 다시 전달하기 전 대기 시간
+    @Value("${similarity.sharding.retry-delay-ms:30000}")
+    private long blockRetryDelayMs;
 
     //exchange로 topic 사용 -> parsingQueue, similarityQueue, clientQueue Topic으로 구분
     @Bean
@@ -35,6 +62,62 @@ public class RabbitConfig {
                 .with("parsing.complete");
     }
 
+    //레인 크레딧 대기 큐 (컨슈머 없음): TTL이 지나면 parsing.complete로 dead-letter -> similarity.queue 뒤로 복귀
+    @Bean
+    public Queue similarityDeferQueue() {
+        return QueueBuilder.durable("similarity.defer.queue")
+                .ttl((int) deferMs)
+                .deadLetterExchange("codifyExchange")
+                .deadLetterRoutingKey("parsing.complete")
+                .build();
+    }
+
+    @Bean
+    public Binding similarityDeferBinding() {
+        return BindingBuilder
+                .bind(similarityDeferQueue())
+                .to(codifyExchange())
+                .with("similarity.defer");
+    }
+
+    //페어 블록 작업 큐 (모든 similarity 인스턴스가 공유)
+    //reject된 블록은 similarity.block.retry로 dead-letter
+    @Bean
+    public Queue pairBlockQueue() {
+        return QueueBuilder.durable("similarity.block.queue")
+                .deadLetterExchange("codifyExchange")
+                .deadLetterRoutingKey("similarity.block.retry")
+                .build();
+    }
+
+    //블록 재시도 대기 큐 (컨슈머 없음): TTL이 지나면 similarity.block으로 dead-letter -> 작업 큐로 복귀
+    //시도 횟수는 x-death 헤더로 PairBlockListener가 판단
+    @Bean
+    public Queue pairBlockRetryQueue() {
+        return QueueBuilder.durable("similarity.block.retry.queue")
+                .ttl((int) blockRetryDelayMs)
+                .deadLetterExchange("codifyExchange")
+                .deadLetterRoutingKey("similarity.block")
+                .build();
+    }
+
+    @Bean
+    public Binding pairBlockRetryBinding() {
+        return BindingBuilder
+                .bind(pairBlockRetryQueue())
+                .to(codifyExchange())
+                .with("similarity.block.retry");
+    }
+
+    //similarity service(코디네이터) -> similarity service(블록 워커)
+    @Bean
+    public Binding pairBlockBinding() {
+        return BindingBuilder
+                .bind(pairBlockQueue())
+                .to(codifyExchange())
+                .with("similarity.block");
+    }
+
     //similarity service - client간의 메시지 큐
     @Bean
     public Queue clientQueue() {
@@ -67,7 +150,48 @@ public class RabbitConfig {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(new Jackson2JsonMessageConverter());
+        factory.setAutoStartup(listenerAutoStartup);
+        return factory;
+    }
+
+    //parsing service -> similarity service 전용 리스너
+    //결과 저장 후 수동 ack, 컨슈머당 prefetch = 동시 분석 상한 / 최대 컨슈머 수
+    //레인별 몫은 AnalysisScheduler 크레딧이 나눔 (LARGE는 small.reserved-in-flight개를 남김)
+    //-> 처리 중인 그룹은 브로커에 unacked로 남아 있어 장애 시 재전달되고, 나머지는 큐에서 대기(backpressure)
+    @Bean
+    public SimpleRabbitListenerContainerFactory similarityListenerContainerFactory(
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(new Jackson2JsonMessageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(listenerConcurrency);
+        factory.setMaxConcurrentConsumers(Math.max(listenerConcurrency, listenerMaxConcurrency));
+        factory.setPrefetchCount(analysisPrefetch());
+        factory.setAutoStartup(listenerAutoStartup);
+        return factory;
+    }
+
+    //페어 블록 전용 리스너
+    //블록은 리스너 스레드에서 동기 처리 -> 정상 반환 시 ack, 실패 시 재큐잉 없이 reject (재시도 큐로 dead-letter)
+    //prefetch 1: 블록이 큰 작업이라 먼저 비는 컨슈머(인스턴스)가 다음 블록을 가져가도록
+    @Bean
+    public SimpleRabbitListenerContainerFactory pairBlockListenerContainerFactory(
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(new Jackson2JsonMessageConverter());
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        factory.setDefaultRequeueRejected(false);
+        factory.setConcurrentConsumers(Math.max(1, blockConsumers));
+        factory.setPrefetchCount(1);
+        factory.setAutoStartup(listenerAutoStartup);
         return factory;
     }
 
+    private int analysisPrefetch() {
+        int consumers = Math.max(1, Math.max(listenerConcurrency, listenerMaxConcurrency));
+        return Math.max(1, (maxInFlight + consumers - 1) / consumers);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package Codify.similarity.config;
+
+import Codify.similarity.service.AssignmentRouter;
+import org.springframework.amqp.core.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//과제 affinity 라우팅용 인스턴스 전용 큐
+//인스턴스가 사라지면 큐에 남은 메시지는 TTL 후 parsing.complete로 dead-letter
+//-> 공용 similarity.queue로 돌아가 다른 인스턴스가 처리 (재라우팅 방지 헤더 유지)
+@Configuration
+@ConditionalOnProperty(name = "similarity.routing.enabled", havingValue = "true")
+public class RoutingConfig {
+
+    //전달된 메시지가 인스턴스 큐에서 기다릴 수 있는 최대 시간
+    @Value("${similarity.routing.message-ttl-ms:600000}")
+    private long messageTtlMs;
+
+    //컨슈머가 없는 인스턴스 큐 자동 삭제 시간
+    @Value("${similarity.routing.queue-expires-ms:1800000}")
+    private long queueExpiresMs;
+
+    @Bean
+    public Declarables instanceRoutingDeclarables(AssignmentRouter router, TopicExchange codifyExchange) {
+        Queue queue = QueueBuilder.durable(router.queueName())
+                .ttl((int) messageTtlMs)
+                .expires((int) queueExpiresMs)
+                .deadLetterExchange(codifyExchange.getName())
+                .deadLetterRoutingKey("parsing.complete")
+                .build();
+        Binding binding = BindingBuilder
+                .bind(queue)
+                .to(codifyExchange)
+                .with(AssignmentRouter.routingKey(router.selfId()));
+        return new Declarables(queue, binding);
+    }
+}
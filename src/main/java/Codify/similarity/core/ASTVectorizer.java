@@ -1,6 +1,7 @@
 package Codify.similarity.core;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -11,16 +12,22 @@ public class ASTVectorizer {
         return vector;
     }
 
-    private static void traverse(JsonNode node, Map<String, Integer> vector) {
-        if (node.has("type")) {
-            String type = node.get("type").asText();
-            vector.put(type, vector.getOrDefault(type, 0) + 1);
-        }
+    // 명시적 스택 순회 (개수만 세므로 방문 순서는 무관)
+    private static void traverse(JsonNode root, Map<String, Integer> vector) {
+        ArrayDeque<JsonNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            JsonNode node = stack.pop();
+            if (node.has("type")) {
+                String type = node.get("type").asText();
+                vector.merge(type, 1, Integer::sum);
+            }
 
-        if (node.has("children")) {
-            for (JsonNode child : node.get("children")) {
-                traverse(child, vector);
+            if (node.has("children")) {
+                for (JsonNode child : node.get("children")) {
+                    stack.push(child);
+                }
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -12,6 +12,10 @@ public class EditCost {
     }
 
     public static int renameCost(TreeNode a, TreeNode b) {
-        return a.label.equals(b.label) ? 0 : 1;
+        return renameCost(a.label, b.label);
+    }
+
+    public static int renameCost(String labelA, String labelB) {
+        return labelA.equals(labelB) ? 0 : 1;
     }
 }
@@ -0,0 +1,296 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// GumTree 방식 탐욕 매칭 (TreeMatcher 대신 쓰는 빠른 매칭, 결과 형식은 같음)
+// 1. top-down: 높이가 큰 서브트리부터 구조 해시(라벨 + 자식 순서, 라인/value 제외)가 같은 쌍을 통째로 매핑
+//    해시가 같은 후보가 여럿이면 부모끼리의 dice가 큰 쌍부터, 짝을 못 찾은 노드는 자식을 열어 계속 내려감
+// 2. bottom-up: 매핑 안 된 내부 노드는 자손 매핑을 가장 많이 공유하는(dice) 같은 라벨 노드와 매핑
+//    매핑한 쌍의 남은 자식은 같은 라벨끼리 순서대로 매핑
+// 편집 DP 없이 노드당 상수 번(+ dice 계산) 훑으므로 보통 트리 크기 x 깊이 정도
+// 결과는 루트를 뺀, span이 있는 내부 노드 쌍만 (리프는 한 줄이라 세그먼트가 되지 않음)
+public final class GreedyMatcher implements PairMatcher.NodeMatcher {
+
+    static final GreedyMatcher INSTANCE = new GreedyMatcher();
+
+    // top-down에서 통째로 매핑할 최소 서브트리 높이 (리프 하나짜리 일치는 제외)
+    private static final int MIN_HEIGHT = 2;
+    // bottom-up 매핑 최소 dice
+    private static final double MIN_DICE = 0.5;
+    // 해시가 같은 후보 쌍이 이보다 많으면 dice 없이 전위 순서대로 짝지음
+    private static final int AMBIGUOUS_PAIRS_LIMIT = 256;
+
+    private GreedyMatcher() {
+    }
+
+    @Override
+    public List<TreeMatcher.Match> match(TreeAlignment alignment) {
+        return match(alignment.from(), alignment.to());
+    }
+
+    public static List<TreeMatcher.Match> match(TreeSnapshot a, TreeSnapshot b) {
+        return new Run(a, b).match();
+    }
+
+    // 한 번의 매칭 상태 (전위 인덱스 기반)
+    private static final class Run {
+        private final Shape a;
+        private final Shape b;
+        private final int[] partnerA;
+        private final int[] partnerB;
+
+        Run(TreeSnapshot a, TreeSnapshot b) {
+            this.a = new Shape(a);
+            this.b = new Shape(b);
+            this.partnerA = new int[a.nodeCount()];
+            this.partnerB = new int[b.nodeCount()];
+            Arrays.fill(partnerA, -1);
+            Arrays.fill(partnerB, -1);
+        }
+
+        List<TreeMatcher.Match> match() {
+            topDown();
+            bottomUp();
+
+            // 루트(파일 전체)는 TreeMatcher와 같이 결과에서 제외
+            List<TreeMatcher.Match> matches = new ArrayList<>();
+            for (int x = 1; x < partnerA.length; x++) {
+                int y = partnerA[x];
+                if (y <= 0) continue;
+                if (a.tree.childCount(x) > 0 && a.tree.minLine(x) >= 1 && b.tree.minLine(y) >= 1) {
+                    matches.add(new TreeMatcher.Match(a.tree.node(x), b.tree.node(y)));
+                }
+            }
+            return matches;
+        }
+
+        private void topDown() {
+            Buckets queueA = new Buckets(a);
+            Buckets queueB = new Buckets(b);
+
+            while (true) {
+                int hA = queueA.maxHeight();
+                int hB = queueB.maxHeight();
+                if (Math.min(hA, hB) < MIN_HEIGHT) break;
+                if (hA != hB) {
+                    if (hA > hB) queueA.openAll(hA);
+                    else queueB.openAll(hB);
+                    continue;
+                }
+
+                int[] levelA = queueA.take(hA);
+                int[] levelB = queueB.take(hB);
+                Map<Long, List<Integer>> byHashB = new HashMap<>();
+                for (int y : levelB) byHashB.computeIfAbsent(b.hash[y], k -> new ArrayList<>()).add(y);
+                Map<Long, List<Integer>> byHashA = new HashMap<>();
+                for (int x : levelA) byHashA.computeIfAbsent(a.hash[x], k -> new ArrayList<>()).add(x);
+
+                List<int[]> ambiguous = new ArrayList<>();
+                for (var entry : byHashA.entrySet()) {
+                    List<Integer> xs = entry.getValue();
+                    List<Integer> ys = byHashB.get(entry.getKey());
+                    if (ys == null) continue;
+                    if (xs.size() == 1 && ys.size() == 1) {
+                        mapSubtree(xs.get(0), ys.get(0));
+                    } else if ((long) xs.size() * ys.size() > AMBIGUOUS_PAIRS_LIMIT) {
+                        for (int k = 0; k < Math.min(xs.size(), ys.size()); k++) mapSubtree(xs.get(k), ys.get(k));
+                    } else {
+                        for (int x : xs) for (int y : ys) ambiguous.add(new int[]{x, y});
+                    }
+                }
+                mapAmbiguous(ambiguous);
+
+                // 짝을 못 찾은 노드는 자식을 다시 큐에 (해시가 없는 쪽, 같은 서브트리가 한쪽에 더 많아 남은 쪽, 해시 충돌)
+                // 남은 복사본의 자식이 상대 트리의 다른 곳과 같을 수 있음
+                for (int x : levelA) if (partnerA[x] < 0) queueA.open(x);
+                for (int y : levelB) if (partnerB[y] < 0) queueB.open(y);
+            }
+        }
+
+        // 같은 높이에서 후보가 여럿인 쌍: 부모 dice가 큰 쌍부터 (같으면 전위 순서)
+        private void mapAmbiguous(List<int[]> ambiguous) {
+            if (ambiguous.isEmpty()) return;
+            double[] parentDice = new double[ambiguous.size()];
+            Integer[] order = new Integer[ambiguous.size()];
+            for (int k = 0; k < order.length; k++) {
+                int[] pair = ambiguous.get(k);
+                int px = a.parent[pair[0]];
+                int py = b.parent[pair[1]];
+                parentDice[k] = (px < 0 || py < 0) ? 0 : dice(px, py);
+                order[k] = k;
+            }
+            Arrays.sort(order, Comparator.comparingDouble((Integer k) -> -parentDice[k]));
+            for (int k : order) {
+                int[] pair = ambiguous.get(k);
+                if (partnerA[pair[0]] < 0 && partnerB[pair[1]] < 0) mapSubtree(pair[0], pair[1]);
+            }
+        }
+
+        // 전위 인덱스 역순 = 자손을 먼저 처리 (후위 순서와 같은 효과)
+        private void bottomUp() {
+            int[] stamp = new int[b.tree.nodeCount()];
+            for (int x = a.tree.nodeCount() - 1; x >= 0; x--) {
+                if (partnerA[x] >= 0 || a.tree.subtreeSize(x) == 1) continue;
+
+                // 후보: 자손 x'의 짝 y'의 조상 중 매핑 안 된 같은 라벨 노드
+                int best = -1;
+                double bestDice = 0;
+                int end = x + a.tree.subtreeSize(x);
+                for (int t = x + 1; t < end; t++) {
+                    if (partnerA[t] < 0) continue;
+                    for (int y = b.parent[partnerA[t]]; y >= 0 && stamp[y] != x + 1; y = b.parent[y]) {
+                        stamp[y] = x + 1;
+                        if (partnerB[y] >= 0 || !Objects.equals(a.tree.label(x), b.tree.label(y))) continue;
+                        double d = dice(x, y);
+                        if (d > bestDice) {
+                            bestDice = d;
+                            best = y;
+                        }
+                    }
+                }
+                if (x == 0 && partnerB[0] < 0 && Objects.equals(a.tree.label(0), b.tree.label(0))) {
+                    best = 0;   // 루트끼리는 항상 매핑
+                } else if (best < 0 || bestDice < MIN_DICE) {
+                    continue;
+                }
+                map(x, best);
+                recoverChildren(x, best);
+            }
+        }
+
+        // 매핑한 쌍의 매핑 안 된 자식끼리 같은 라벨을 순서대로 (서로 교차하지 않게)
+        private void recoverChildren(int x, int y) {
+            int[] childrenA = a.children(x);
+            int[] childrenB = b.children(y);
+            int from = 0;
+            for (int cx : childrenA) {
+                if (partnerA[cx] >= 0) continue;
+                for (int k = from; k < childrenB.length; k++) {
+                    int cy = childrenB[k];
+                    if (partnerB[cy] < 0 && Objects.equals(a.tree.label(cx), b.tree.label(cy))) {
+                        map(cx, cy);
+                        from = k + 1;
+                        break;
+                    }
+                }
+            }
+        }
+
+        // 구조가 같은 두 서브트리: 전위 순서가 그대로 대응
+        private void mapSubtree(int x, int y) {
+            int size = a.tree.subtreeSize(x);
+            if (size != b.tree.subtreeSize(y)) return;   // 해시 충돌
+            for (int k = 0; k < size; k++) {
+                if (!Objects.equals(a.tree.label(x + k), b.tree.label(y + k))) return;
+            }
+            for (int k = 0; k < size; k++) map(x + k, y + k);
+        }
+
+        private void map(int x, int y) {
+            partnerA[x] = y;
+            partnerB[y] = x;
+        }
+
+        // 2 * (y 자손과 짝인 x 자손 수) / (x 자손 수 + y 자손 수)
+        private double dice(int x, int y) {
+            int descA = a.tree.subtreeSize(x) - 1;
+            int descB = b.tree.subtreeSize(y) - 1;
+            if (descA + descB == 0) return 0;
+            int endA = x + descA + 1;
+            int endB = y + descB + 1;
+            int common = 0;
+            for (int t = x + 1; t < endA; t++) {
+                int p = partnerA[t];
+                if (p > y && p < endB) common++;
+            }
+            return 2.0 * common / (descA + descB);
+        }
+    }
+
+    // 스냅샷별 부모/높이/구조 해시 (라벨 + 자식 순서만, TreeSnapshot.hash와 달리 라인 제외)
+    private static final class Shape {
+        final TreeSnapshot tree;
+        final int[] parent;
+        final int[] height;
+        final long[] hash;
+
+        Shape(TreeSnapshot tree) {
+            this.tree = tree;
+            int n = tree.nodeCount();
+            parent = new int[n];
+            height = new int[n];
+            hash = new long[n];
+            Arrays.fill(parent, -1);
+            for (int i = n - 1; i >= 0; i--) {
+                int h = 1;
+                long value = Objects.hashCode(tree.label(i));
+                for (int c : children(i)) {
+                    parent[c] = i;
+                    h = Math.max(h, height[c] + 1);
+                    value = value * 31 + hash[c];
+                }
+                height[i] = h;
+                hash[i] = mix(value * 31 + tree.subtreeSize(i));
+            }
+        }
+
+        int[] children(int i) {
+            int[] children = new int[tree.childCount(i)];
+            for (int k = 0, c = i + 1; k < children.length; k++, c += tree.subtreeSize(c)) children[k] = c;
+            return children;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    // 높이별 대기 노드 (top-down 우선순위 큐, 높이는 열 때마다 줄어드므로 위에서부터 훑음)
+    private static final class Buckets {
+        private final Shape shape;
+        private final List<List<Integer>> byHeight = new ArrayList<>();
+        private int top;
+
+        Buckets(Shape shape) {
+            this.shape = shape;
+            push(0);
+        }
+
+        int maxHeight() {
+            while (top > 0 && byHeight.get(top).isEmpty()) top--;
+            return top;
+        }
+
+        int[] take(int h) {
+            List<Integer> level = byHeight.get(h);
+            int[] nodes = level.stream().mapToInt(Integer::intValue).toArray();
+            level.clear();
+            return nodes;
+        }
+
+        void openAll(int h) {
+            for (int i : take(h)) open(i);
+        }
+
+        void open(int i) {
+            for (int c : shape.children(i)) push(c);
+        }
+
+        private void push(int i) {
+            int h = shape.height[i];
+            while (byHeight.size() <= h) byHeight.add(new ArrayList<>());
+            byHeight.get(h).add(i);
+            top = Math.max(top, h);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package Codify.similarity.core;
+
+import java.util.Arrays;
+
+// 정사각 비용 행렬의 최소 비용 완전 배정 (헝가리안, 포텐셜 + 최단 증가 경로, O(n^3))
+final class Hungarian {
+
+    private Hungarian() {
+    }
+
+    // 행 i에 배정된 열 (cost[i][assign[i]]의 합이 최소)
+    static int[] assign(long[][] cost) {
+        int n = cost.length;
+        // 1부터 시작하는 인덱스 (0은 가상 행/열)
+        long[] u = new long[n + 1];
+        long[] v = new long[n + 1];
+        int[] rowOfCol = new int[n + 1];
+        int[] way = new int[n + 1];
+        long[] minTo = new long[n + 1];
+        boolean[] used = new boolean[n + 1];
+
+        for (int row = 1; row <= n; row++) {
+            rowOfCol[0] = row;
+            int col = 0;
+            Arrays.fill(minTo, Long.MAX_VALUE);
+            Arrays.fill(used, false);
+            do {
+                used[col] = true;
+                int i = rowOfCol[col];
+                long delta = Long.MAX_VALUE;
+                int next = 0;
+                for (int j = 1; j <= n; j++) {
+                    if (used[j]) continue;
+                    long reduced = cost[i - 1][j - 1] - u[i] - v[j];
+                    if (reduced < minTo[j]) {
+                        minTo[j] = reduced;
+                        way[j] = col;
+                    }
+                    if (minTo[j] < delta) {
+                        delta = minTo[j];
+                        next = j;
+                    }
+                }
+                for (int j = 0; j <= n; j++) {
+                    if (used[j]) {
+                        u[rowOfCol[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minTo[j] -= delta;
+                    }
+                }
+                col = next;
+            } while (rowOfCol[col] != 0);
+            // 증가 경로를 따라 배정 갱신
+            do {
+                int prev = way[col];
+                rowOfCol[col] = rowOfCol[prev];
+                col = prev;
+            } while (col != 0);
+        }
+
+        int[] assign = new int[n];
+        for (int j = 1; j <= n; j++) assign[rowOfCol[j] - 1] = j - 1;
+        return assign;
+    }
+}
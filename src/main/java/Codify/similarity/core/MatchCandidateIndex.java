@@ -0,0 +1,221 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// TreeMatcher 추가 매칭(메서드/반복문/조건문/변수 선언)용 후보 색인
+// 스냅샷의 전위 순서 노드를 한 번 훑어 분류별 후보를 모으고, 메서드는 구조 시그니처로 묶어 해시 조인
+// 후보는 모두 span이 있는 노드(minLine >= 1)만, 순서는 전위 순회 순서 (기존 중첩 루프 결과 순서와 동일)
+final class MatchCandidateIndex {
+
+    // 메서드 후보: 시그니처가 같으면 isSameMethodContent가 참
+    // similarity가 같으면 isMethodContentSimilar가 참 (Type 자식이 있으면 -1, 자기 자신 외에는 비슷한 메서드 없음)
+    // 리턴 타입/연산자는 노드 toString(객체 식별자)으로 비교하므로 같은 노드일 때만 같음
+    //  -> 파라미터 개수 + 연산자 노드 목록(없음, 또는 이 트리 전위 순서상 구간)이 같으면 비슷함
+    record MethodCandidate(TreeNode node, int order, int signature, int similarity) {}
+
+    final List<TreeNode> loops = new ArrayList<>();
+    final List<TreeNode> conditions = new ArrayList<>();
+    final List<TreeNode> variables = new ArrayList<>();
+    final List<MethodCandidate> methods = new ArrayList<>();
+    // 라벨별 반복문/조건문/변수 선언 후보 (조인 대상 쪽에서 조회)
+    final Map<String, List<TreeNode>> byLabel = new HashMap<>();
+    final Map<Integer, List<MethodCandidate>> methodsBySignature = new HashMap<>();
+    final Map<Integer, List<MethodCandidate>> methodsBySimilarity = new HashMap<>();
+
+    private final Interner interner;
+    private final TreeSnapshot tree;
+    // 연산자 구간을 다른 트리의 구간과 구분하기 위한 색인 id
+    private final int serial;
+    private int[] content;
+    // operatorsBefore[i]: 전위 순서 i 앞에 있는 Operator 노드 수 (서브트리 i의 연산자는 연속 구간)
+    private int[] operatorsBefore;
+
+    // 두 트리의 시그니처를 비교하려면 같은 Interner로 만들어야 함
+    static MatchCandidateIndex build(TreeSnapshot tree, Interner interner) {
+        var index = new MatchCandidateIndex(tree, interner);
+        index.summarize();
+        index.classify();
+        return index;
+    }
+
+    private MatchCandidateIndex(TreeSnapshot tree, Interner interner) {
+        this.tree = tree;
+        this.interner = interner;
+        this.serial = interner.unique();
+    }
+
+    // 역순으로 내용 id(isSameContent 동치류) 계산
+    private void summarize() {
+        int n = tree.nodeCount();
+        content = new int[n];
+        operatorsBefore = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            operatorsBefore[i + 1] = operatorsBefore[i] + ("Operator".equals(tree.label(i)) ? 1 : 0);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int[] children = childIndexes(i);
+            int[] tokens = new int[children.length];
+            for (int k = 0; k < children.length; k++) {
+                int c = children[k];
+                String label = tree.label(c);
+                // 이름 독립 노드끼리는 라벨이 달라도 같은 것으로 봄
+                tokens[k] = label != null && TreeMatcher.NAME_INDEPENDENT_TYPES.contains(label)
+                        ? Interner.WILDCARD
+                        : interner.pair(label, content[c]);
+            }
+            content[i] = interner.sequence(Interner.CONTENT, tokens);
+        }
+    }
+
+    // 자식 인덱스: 전위 순서에서 첫 자식은 i+1, 다음 자식은 앞 자식 서브트리 크기만큼 뒤
+    private int[] childIndexes(int i) {
+        int[] children = new int[tree.childCount(i)];
+        int c = i + 1;
+        for (int k = 0; k < children.length; k++) {
+            children[k] = c;
+            c += tree.subtreeSize(c);
+        }
+        return children;
+    }
+
+    private void classify() {
+        for (int i = 0; i < tree.nodeCount(); i++) {
+            if (tree.minLine(i) < 1 || tree.label(i) == null) continue;
+            TreeNode node = tree.node(i);
+            switch (tree.label(i)) {
+                case "ForStmt", "WhileStmt" -> addByLabel(loops, node);
+                case "IfStmt" -> addByLabel(conditions, node);
+                case "VariableDeclaration" -> addByLabel(variables, node);
+                case "MethodDeclaration" -> addMethod(i);
+                default -> { }
+            }
+        }
+    }
+
+    private void addByLabel(List<TreeNode> category, TreeNode node) {
+        category.add(node);
+        byLabel.computeIfAbsent(node.label, k -> new ArrayList<>()).add(node);
+    }
+
+    // isSameMethodContent와 같은 규칙: 함수명 무시, ParameterList는 파라미터 단위 비교, 나머지는 라벨+내용
+    private void addMethod(int i) {
+        int[] children = childIndexes(i);
+        int[] tokens = new int[children.length];
+        int paramCount = -1;
+        boolean hasType = false;
+        for (int k = 0; k < children.length; k++) {
+            int c = children[k];
+            String label = tree.label(c);
+            if ("FunctionName".equals(label)) {
+                tokens[k] = Interner.FUNCTION_NAME;
+            } else if ("ParameterList".equals(label)) {
+                tokens[k] = parameterListToken(c);
+                if (paramCount < 0) paramCount = tree.childCount(c);
+            } else {
+                tokens[k] = interner.pair(label, content[c]);
+            }
+            hasType |= "Type".equals(label);
+        }
+
+        int similarity = hasType ? -1 : interner.sequence(Interner.SIMILARITY,
+                new int[]{Math.max(paramCount, 0), operatorsToken(i)});
+        var method = new MethodCandidate(tree.node(i), methods.size(), interner.sequence(Interner.METHOD, tokens),
+                similarity);
+        methods.add(method);
+        methodsBySignature.computeIfAbsent(method.signature(), k -> new ArrayList<>()).add(method);
+        if (similarity >= 0) {
+            methodsBySimilarity.computeIfAbsent(similarity, k -> new ArrayList<>()).add(method);
+        }
+    }
+
+    // extractOperators 목록 비교 대용: 연산자가 없으면 공통 토큰, 있으면 이 트리에서의 연산자 구간
+    // (같은 트리끼리 비교할 때만 중첩된 메서드가 같은 연산자 노드를 가질 수 있음)
+    private int operatorsToken(int i) {
+        int first = operatorsBefore[i];
+        int count = operatorsBefore[i + tree.subtreeSize(i)] - first;
+        return count == 0 ? Interner.WILDCARD : interner.sequence(Interner.OPERATORS, new int[]{serial, first, count});
+    }
+
+    // isSameParameterList: Parameter가 아닌 자식이 있으면 어떤 목록과도 같지 않음 -> 고유 id
+    private int parameterListToken(int list) {
+        int[] params = childIndexes(list);
+        int[] tokens = new int[params.length];
+        for (int k = 0; k < params.length; k++) {
+            int p = params[k];
+            if (!"Parameter".equals(tree.label(p))) return interner.unique();
+
+            // isSameParameter: 변수명 무시, 나머지는 라벨+내용
+            int[] parts = childIndexes(p);
+            int[] partTokens = new int[parts.length];
+            for (int q = 0; q < parts.length; q++) {
+                String label = tree.label(parts[q]);
+                partTokens[q] = "VariableName".equals(label)
+                        ? Interner.VARIABLE_NAME
+                        : interner.pair(label, content[parts[q]]);
+            }
+            tokens[k] = interner.sequence(Interner.PARAMETER, partTokens);
+        }
+        return interner.sequence(Interner.PARAMETER_LIST, tokens);
+    }
+
+    // 구조를 정수 id로 치환 (같은 구조 -> 같은 id), 매칭 한 번 동안만 사용
+    static final class Interner {
+        static final int WILDCARD = 0;
+        static final int FUNCTION_NAME = 1;
+        static final int VARIABLE_NAME = 2;
+
+        static final int CONTENT = 0;
+        static final int PAIR = 1;
+        static final int METHOD = 2;
+        static final int PARAMETER = 3;
+        static final int PARAMETER_LIST = 4;
+        static final int OPERATORS = 5;
+        static final int SIMILARITY = 6;
+
+        private final Map<String, Integer> labels = new HashMap<>();
+        private final Map<Key, Integer> ids = new HashMap<>();
+        private int next = 3;
+
+        int pair(String label, int contentId) {
+            Integer labelId = labels.get(label);
+            if (labelId == null) {
+                labelId = labels.size();
+                labels.put(label, labelId);
+            }
+            return sequence(PAIR, new int[]{labelId, contentId});
+        }
+
+        int sequence(int kind, int[] tokens) {
+            Key key = new Key(kind, tokens);
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = next++;
+                ids.put(key, id);
+            }
+            return id;
+        }
+
+        int unique() {
+            return next++;
+        }
+
+        private record Key(int kind, int[] tokens) {
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Key other && kind == other.kind && Arrays.equals(tokens, other.tokens);
+            }
+
+            @Override
+            public int hashCode() {
+                return 31 * kind + Arrays.hashCode(tokens);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package Codify.similarity.core;
+
+import java.util.List;
+
+// 페어 매칭 라인 구현 공통 인터페이스 (similarity.matcher.engine으로 선택)
+// 결과는 어느 구현이든 TreeMatcher.Seg 목록 -> RangeUtil.mergeRanges / Codeline 저장 경로는 같음
+public interface PairMatcher {
+
+    enum Engine {
+        TED,       // TreeMatcher: TED 표 최적 경로 + 메서드/반복문/조건문/변수 추가 매칭
+        GREEDY,    // GreedyMatcher: 서브트리 해시 top-down + dice bottom-up (TED 표를 쓰지 않음)
+        WINNOWING  // WinnowingMatcher: 전위 라벨 k-gram 지문 조인 (노드 매칭 없이 라인 구간만)
+    }
+
+    static PairMatcher of(Engine engine) {
+        return switch (engine) {
+            case GREEDY -> GreedyMatcher.INSTANCE;
+            case WINNOWING -> WinnowingMatcher.INSTANCE;
+            case TED -> (NodeMatcher) TreeAlignment::matches;
+        };
+    }
+
+    // alignment: 점수 계산에 쓴 정렬 (TED 매칭은 그 표를 재사용, 나머지는 양쪽 스냅샷만 사용)
+    // minLen: 양쪽 중 짧은 쪽 라인 수가 이보다 작은 세그먼트는 제외
+    List<TreeMatcher.Seg> segments(TreeAlignment alignment, int minLen);
+
+    // 노드 매칭 후 세그먼트로 바꾸는 구현 (TED, GREEDY) -> 두 단계를 따로 계측할 수 있음
+    // WINNOWING은 노드 매칭 없이 바로 라인 구간을 만듦
+    interface NodeMatcher extends PairMatcher {
+
+        List<TreeMatcher.Match> match(TreeAlignment alignment);
+
+        @Override
+        default List<TreeMatcher.Seg> segments(TreeAlignment alignment, int minLen) {
+            return TreeMatcher.toSegments(match(alignment), minLen);
+        }
+    }
+}
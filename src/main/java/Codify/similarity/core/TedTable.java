@@ -0,0 +1,310 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeSnapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+// 두 스냅샷의 노드 쌍별 TED 표 (TreeEditDistance.compute와 같은 값)
+// compute(x, y)는 자식 쌍 전부에 재귀하므로 계산되는 쌍은 (루트, 루트)에서 같은 깊이 자식 쌍으로 내려간 쌍뿐
+// 둘 다 자식이 있는 쌍만 표에 저장 (한쪽이 리프면 rename + 양쪽 하위 노드 수로 바로 계산)
+// 위에서 아래로 쌍을 나열한 뒤 역순으로 채움 -> 재귀 없음, 쌍마다 한 번만 계산
+// 쌍은 깊이 순(BFS)으로 나열되고 같은 깊이의 쌍끼리는 서로 독립 -> 큰 페어는 깊이별로 fork/join 병렬 채우기
+// 삽입/삭제 비용은 EditCost 기준 노드당 1 (서브트리 삭제 비용 = 서브트리 크기)
+// 메모리: 쌍 수 = 깊이별 (A 내부 노드 수 x B 내부 노드 수)의 합 -> 미리 세어 배열을 정확한 크기로 할당
+//  - 채우는 동안 쌍당 16바이트 (xs, ys, firstChild, distances), 채운 뒤에는 8바이트만 남김
+//  - 예: 합성 AST 2만 노드 페어 약 650만 쌍 -> 채우는 동안 약 105MB
+//  - LARGE_PAIRS 이상인 표는 withTable 안에서만 존재하고, 동시에 존재하는 큰 표의 쌍 수 합은 MAX_RESIDENT_PAIRS 이하
+//    -> 큰 표 전체 약 256MB 이하 (한도보다 큰 표 하나는 다른 큰 표 없이 혼자 계산)
+final class TedTable {
+
+    // 병렬 채우기 시 작업 하나가 맡는 최소 쌍 수
+    private static final int PARALLEL_GRAIN = 256;
+
+    // 이 쌍 수 이상이면 큰 표 (약 16MB): 보유하지 않고 동시 개수를 제한
+    static final long LARGE_PAIRS = 1L << 20;
+    // 동시에 존재하는 큰 표 쌍 수 합의 한도 (약 256MB)
+    static final int MAX_RESIDENT_PAIRS = 1 << 24;
+    private static final Semaphore RESIDENT = new Semaphore(MAX_RESIDENT_PAIRS);
+
+    final TreeSnapshot a;
+    final TreeSnapshot b;
+    // 표의 루트 쌍 (전체 트리면 0, 0 / 메서드 분해 시 두 메서드 노드)
+    final int rootA;
+    final int rootB;
+
+    // 쌍 p = (xs[p], ys[p]) 전위 인덱스, 자식 쌍은 firstChild[p]부터 행 우선으로 연속 배치
+    // xs, ys는 채우기에만 쓰고 버림
+    private int[] xs;
+    private int[] ys;
+    private final int[] firstChild;
+    private final int[] distances;
+    private int count;
+    // 깊이 d 쌍의 시작 인덱스 (levelStarts[levels] = count)
+    private int[] levelStarts = new int[16];
+    private int levels;
+
+    static TedTable build(TreeSnapshot a, TreeSnapshot b) {
+        return build(a, b, null);
+    }
+
+    // pool이 있으면 같은 깊이의 쌍을 pool에서 나눠 채움 (결과는 순차 계산과 동일)
+    static TedTable build(TreeSnapshot a, TreeSnapshot b, ForkJoinPool pool) {
+        return build(a, 0, b, 0, pool);
+    }
+
+    // 서브트리 x(a 전위 인덱스)와 y(b 전위 인덱스)끼리의 표 (큰 표가 될 수 있으면 withTable)
+    static TedTable build(TreeSnapshot a, int x, TreeSnapshot b, int y, ForkJoinPool pool) {
+        return build(a, x, b, y, pool, pairCount(a, x, b, y));
+    }
+
+    // 표를 만들어 work에만 넘김 (표를 밖으로 내보내지 말 것)
+    // 큰 표는 쌍 수만큼 RESIDENT 허가를 받은 뒤 만들고 work가 끝나면 반납
+    static <T> T withTable(TreeSnapshot a, int x, TreeSnapshot b, int y, ForkJoinPool pool,
+                           Function<TedTable, T> work) {
+        long pairs = pairCount(a, x, b, y);
+        if (!large(pairs)) return work.apply(build(a, x, b, y, pool, pairs));
+        int permits = (int) Math.min(pairs, MAX_RESIDENT_PAIRS);
+        RESIDENT.acquireUninterruptibly(permits);
+        try {
+            return work.apply(build(a, x, b, y, pool, pairs));
+        } finally {
+            RESIDENT.release(permits);
+        }
+    }
+
+    static boolean large(long pairs) {
+        return pairs >= LARGE_PAIRS;
+    }
+
+    // 서브트리 x, y 표의 쌍 수: 상대 깊이 d마다 (x 아래 깊이 d 내부 노드 수) x (y 아래 깊이 d 내부 노드 수)
+    static long pairCount(TreeSnapshot a, int x, TreeSnapshot b, int y) {
+        long[] internalA = internalPerDepth(a, x);
+        long[] internalB = internalPerDepth(b, y);
+        long pairs = 0;
+        for (int d = 0; d < Math.min(internalA.length, internalB.length); d++) pairs += internalA[d] * internalB[d];
+        return pairs;
+    }
+
+    private static TedTable build(TreeSnapshot a, int x, TreeSnapshot b, int y, ForkJoinPool pool, long pairs) {
+        var table = new TedTable(a, x, b, y, Math.toIntExact(pairs));
+        table.enumerate();
+        if (pool == null) {
+            table.fill(0, table.count);
+        } else {
+            table.fillByLevel(pool);
+        }
+        table.xs = null;
+        table.ys = null;
+        return table;
+    }
+
+    private TedTable(TreeSnapshot a, int rootA, TreeSnapshot b, int rootB, int pairs) {
+        this.a = a;
+        this.b = b;
+        this.rootA = rootA;
+        this.rootB = rootB;
+        this.xs = new int[pairs];
+        this.ys = new int[pairs];
+        this.firstChild = new int[pairs];
+        this.distances = new int[pairs];
+    }
+
+    // 루트 쌍 표 인덱스 (한쪽이 리프면 -1)
+    int rootPair() {
+        return count > 0 ? 0 : -1;
+    }
+
+    // 표에 저장된 쌍 수 (pairCount와 같음)
+    int pairs() {
+        return count;
+    }
+
+    int rootDistance() {
+        return count > 0 ? distances[0] : leafDistance(rootA, rootB);
+    }
+
+    // 쌍 (x, y)의 자식 격자 (pair는 (x, y)의 표 인덱스, 한쪽이 리프면 -1)
+    Grid grid(int x, int y, int pair) {
+        return new Grid(children(a, x), children(b, y), pair < 0 ? 0 : firstChild[pair]);
+    }
+
+    private void enumerate() {
+        if (internal(a, rootA) && internal(b, rootB)) add(rootA, rootB);
+        int levelEnd = 0;
+        for (int p = 0; p < count; p++) {
+            if (p == levelEnd) {
+                // 직전 깊이까지 나열한 쌍이 모두 처리됨 -> 여기부터 다음 깊이
+                if (levels + 1 >= levelStarts.length) levelStarts = Arrays.copyOf(levelStarts, levelStarts.length * 2);
+                levelStarts[levels++] = p;
+                levelEnd = count;
+            }
+            firstChild[p] = count;
+            int[] childrenA = children(a, xs[p]);
+            int[] childrenB = children(b, ys[p]);
+            for (int x : childrenA) {
+                if (!internal(a, x)) continue;
+                for (int y : childrenB) {
+                    if (internal(b, y)) add(x, y);
+                }
+            }
+        }
+        levelStarts[levels] = count;
+    }
+
+    // 가장 깊은 쌍부터 깊이 단위로, 한 깊이 안에서는 병렬
+    private void fillByLevel(ForkJoinPool pool) {
+        for (int level = levels - 1; level >= 0; level--) {
+            int from = levelStarts[level];
+            int to = levelStarts[level + 1];
+            if (to - from <= PARALLEL_GRAIN) {
+                fill(from, to);
+            } else {
+                pool.invoke(new FillRange(from, to));
+            }
+        }
+    }
+
+    private final class FillRange extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        private FillRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_GRAIN) {
+                fill(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FillRange(from, mid), new FillRange(mid, to));
+        }
+    }
+
+    // [from, to) 쌍을 역순으로 채움 (자식 쌍은 항상 뒤에 있으므로 필요한 값이 준비되어 있음)
+    private void fill(int from, int to) {
+        int[] prev = new int[16];
+        int[] cur = new int[16];
+        for (int p = to - 1; p >= from; p--) {
+            Grid grid = grid(xs[p], ys[p], p);
+            int m = grid.childrenA.length;
+            int n = grid.childrenB.length;
+            if (prev.length <= n) {
+                prev = new int[n + 1];
+                cur = new int[n + 1];
+            }
+
+            prev[0] = 0;
+            for (int j = 1; j <= n; j++) prev[j] = prev[j - 1] + b.subtreeSize(grid.childrenB[j - 1]);
+            for (int i = 1; i <= m; i++) {
+                int delete = a.subtreeSize(grid.childrenA[i - 1]);
+                cur[0] = prev[0] + delete;
+                for (int j = 1; j <= n; j++) {
+                    int del = prev[j] + delete;
+                    int ins = cur[j - 1] + b.subtreeSize(grid.childrenB[j - 1]);
+                    int ren = prev[j - 1] + grid.distance(i - 1, j - 1);
+                    cur[j] = Math.min(del, Math.min(ins, ren));
+                }
+                int[] swap = prev;
+                prev = cur;
+                cur = swap;
+            }
+            distances[p] = EditCost.renameCost(a.label(xs[p]), b.label(ys[p])) + prev[n];
+        }
+    }
+
+    // 배열은 pairCount 크기로 미리 할당됨
+    private void add(int x, int y) {
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+    }
+
+    // 한쪽이 리프인 쌍: 이름 변경 + 상대 쪽 하위 노드 전부 삽입/삭제
+    private int leafDistance(int x, int y) {
+        return EditCost.renameCost(a.label(x), b.label(y)) + (a.subtreeSize(x) - 1) + (b.subtreeSize(y) - 1);
+    }
+
+    // 서브트리 root 아래 상대 깊이별 내부 노드(자식이 있는 노드) 수
+    private static long[] internalPerDepth(TreeSnapshot tree, int root) {
+        long[] counts = new long[16];
+        int maxDepth = -1;
+        int end = root + tree.subtreeSize(root);
+        // 전위 순서로 훑으며 열린 조상의 끝 인덱스를 스택에 보관 (스택 크기 = 현재 깊이)
+        int[] ends = new int[16];
+        int depth = 0;
+        for (int i = root; i < end; i++) {
+            while (depth > 0 && ends[depth - 1] <= i) depth--;
+            if (internal(tree, i)) {
+                if (depth >= counts.length) counts = Arrays.copyOf(counts, counts.length * 2);
+                counts[depth]++;
+                maxDepth = Math.max(maxDepth, depth);
+                if (depth >= ends.length) ends = Arrays.copyOf(ends, ends.length * 2);
+                ends[depth++] = i + tree.subtreeSize(i);
+            }
+        }
+        return Arrays.copyOf(counts, maxDepth + 1);
+    }
+
+    private static boolean internal(TreeSnapshot tree, int i) {
+        return tree.childCount(i) > 0;
+    }
+
+    private static int[] children(TreeSnapshot tree, int i) {
+        int[] children = new int[tree.childCount(i)];
+        int c = i + 1;
+        for (int k = 0; k < children.length; k++) {
+            children[k] = c;
+            c += tree.subtreeSize(c);
+        }
+        return children;
+    }
+
+    // 한 쌍의 자식 격자: 자식 (i, j)의 전위 인덱스, 표 인덱스, TED
+    final class Grid {
+        final int[] childrenA;
+        final int[] childrenB;
+        private final int[] rankA;
+        private final int[] rankB;
+        private final int internalB;
+        private final int base;
+
+        private Grid(int[] childrenA, int[] childrenB, int base) {
+            this.childrenA = childrenA;
+            this.childrenB = childrenB;
+            this.rankA = ranks(a, childrenA);
+            this.rankB = ranks(b, childrenB);
+            int internal = 0;
+            for (int rank : rankB) if (rank >= 0) internal++;
+            this.internalB = internal;
+            this.base = base;
+        }
+
+        // 자식 쌍 (i, j)의 표 인덱스 (한쪽이 리프면 -1)
+        int pair(int i, int j) {
+            return (rankA[i] < 0 || rankB[j] < 0) ? -1 : base + rankA[i] * internalB + rankB[j];
+        }
+
+        int distance(int i, int j) {
+            int pair = pair(i, j);
+            return pair >= 0 ? distances[pair] : leafDistance(childrenA[i], childrenB[j]);
+        }
+
+        // 자식이 있는 자식끼리의 순번 (리프는 -1)
+        private static int[] ranks(TreeSnapshot tree, int[] children) {
+            int[] ranks = new int[children.length];
+            int next = 0;
+            for (int k = 0; k < children.length; k++) {
+                ranks[k] = internal(tree, children[k]) ? next++ : -1;
+            }
+            return ranks;
+        }
+    }
+}
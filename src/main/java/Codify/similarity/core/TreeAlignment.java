@@ -0,0 +1,247 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntUnaryOperator;
+
+// 한 페어의 정렬 결과: TED, 정규화 유사도, 매칭/세그먼트를 같은 DP 표에서 도출
+// of()에서 노드 쌍별 TED 표를 한 번 채우고, matches()는 그 표로 TreeMatcher DP의 자식 비용을 읽음
+// (기존: TreeEditDistance.compute 한 번 + 매칭 경로의 각 단계마다 자식 쌍 TED 재계산)
+// byMethods()는 큰 제출물용 메서드 분해 근사 (전체 표 대신 메서드 쌍별 작은 표)
+// 큰 표(TedTable.LARGE_PAIRS 이상)는 보유하지 않음: 거리만 남기고 matches()에서 다시 만듦 (메모리 한도는 TedTable)
+public final class TreeAlignment {
+
+    // 메서드 분해: 메서드마다 라벨 하한이 작은 상대 몇 개와만 TED 표를 만듦
+    private static final int METHOD_CANDIDATES = 6;
+
+    private final TreeSnapshot from;
+    private final TreeSnapshot to;
+    // 전체 TED 표 (메서드 분해거나 큰 표면 null)
+    private final TedTable table;
+    // 표를 다시 만들 (from, to) 전위 인덱스 쌍: 메서드 분해면 짝지은 메서드 쌍, 큰 전체 표면 루트 쌍 하나
+    private final List<int[]> methodPairs;
+    private final int distance;
+    private final int maxSize;
+    // 표를 다시 만들 때 쓸 풀 (null이면 순차)
+    private final ForkJoinPool pool;
+
+    private TreeAlignment(TreeSnapshot from, TreeSnapshot to, TedTable table, List<int[]> methodPairs, int distance,
+                          ForkJoinPool pool) {
+        this.from = from;
+        this.to = to;
+        this.table = table;
+        this.methodPairs = methodPairs;
+        this.distance = distance;
+        this.maxSize = Math.max(from.nodeCount(), to.nodeCount());
+        this.pool = pool;
+    }
+
+    public static TreeAlignment of(TreeSnapshot from, TreeSnapshot to) {
+        return of(from, to, null);
+    }
+
+    // 큰 페어용: TED 표를 pool에서 깊이별로 나눠 채움 (pool이 null이면 순차, 결과는 같음)
+    public static TreeAlignment of(TreeSnapshot from, TreeSnapshot to, ForkJoinPool pool) {
+        if (!TedTable.large(TedTable.pairCount(from, 0, to, 0))) {
+            TedTable table = TedTable.build(from, to, pool);
+            return new TreeAlignment(from, to, table, List.of(), table.rootDistance(), pool);
+        }
+        int distance = TedTable.withTable(from, 0, to, 0, pool, TedTable::rootDistance);
+        return new TreeAlignment(from, to, null, List.<int[]>of(new int[]{0, 0}), distance, pool);
+    }
+
+    // 메서드 분해 TED: 각 트리를 (가장 바깥) MethodDeclaration 서브트리들 + 나머지 트리로 나눔
+    // 거리 = 나머지 트리 TED + 메서드 간 최소 비용 배정 (헝가리안, 짝 없는 메서드는 서브트리 전체 삭제/삽입)
+    // 근사: 메서드는 메서드에만 대응하고, 위치(깊이/순서)와 무관하게 짝지어짐 -> 전체 TED와 다를 수 있음
+    // (메서드가 없으면 전체 TED와 같음)
+    // 메서드 쌍 TED는 라벨 개수 하한(L1 / 2)이 행/열에서 METHOD_CANDIDATES 안에 드는 쌍만 계산,
+    // 나머지 쌍은 전체 삭제 + 삽입 비용 (= 짝짓지 않음)
+    // 표는 메서드 쌍마다 만들고 바로 버림 -> 메모리는 가장 큰 메서드 쌍 표 크기, pool이 있으면 메서드 행 단위 병렬
+    public static TreeAlignment byMethods(TreeSnapshot from, TreeSnapshot to, ForkJoinPool pool) {
+        int[] methodsA = outermostMethods(from);
+        int[] methodsB = outermostMethods(to);
+        int residual = TedTable.withTable(residual(from), 0, residual(to), 0, pool, TedTable::rootDistance);
+
+        // 짧은 쪽을 가상 메서드로 채운 정사각 비용 (가상 메서드와의 짝 = 삭제/삽입)
+        // TED(x, y) <= size(x) + size(y)이므로 실제 메서드끼리 둘 다 짝 없이 남는 경우는 최적이 아님
+        int n = Math.max(methodsA.length, methodsB.length);
+        boolean[][] exact = candidatePairs(from, methodsA, to, methodsB);
+        long[][] cost = new long[n][n];
+        List<ForkJoinTask<?>> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final int row = i;
+            rows.add(ForkJoinTask.adapt(() -> fillCostRow(from, to, methodsA, methodsB, exact, row, cost[row])));
+        }
+        if (pool == null || n < 2) {
+            rows.forEach(ForkJoinTask::invoke);
+        } else {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(rows)));
+        }
+
+        int[] assign = Hungarian.assign(cost);
+        long total = residual;
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            total += cost[i][assign[i]];
+            if (i < methodsA.length && assign[i] < methodsB.length && exact[i][assign[i]]) {
+                pairs.add(new int[]{methodsA[i], methodsB[assign[i]]});
+            }
+        }
+        return new TreeAlignment(from, to, null, pairs, Math.toIntExact(total), pool);
+    }
+
+    private static void fillCostRow(TreeSnapshot from, TreeSnapshot to, int[] methodsA, int[] methodsB,
+                                    boolean[][] exact, int i, long[] row) {
+        for (int j = 0; j < row.length; j++) {
+            if (i < methodsA.length && j < methodsB.length) {
+                row[j] = exact[i][j]
+                        ? TedTable.withTable(from, methodsA[i], to, methodsB[j], null, TedTable::rootDistance)
+                        : from.subtreeSize(methodsA[i]) + to.subtreeSize(methodsB[j]);
+            } else if (i < methodsA.length) {
+                row[j] = from.subtreeSize(methodsA[i]);
+            } else if (j < methodsB.length) {
+                row[j] = to.subtreeSize(methodsB[j]);
+            }
+        }
+    }
+
+    // TED를 계산할 메서드 쌍: 행(from 메서드)마다, 열(to 메서드)마다 하한이 가장 작은 METHOD_CANDIDATES개
+    // 하한: 이름 변경은 라벨 개수 두 칸을 1씩, 삽입/삭제는 한 칸을 1 바꾸므로 TED >= (라벨 개수 차이 합) / 2
+    private static boolean[][] candidatePairs(TreeSnapshot from, int[] methodsA, TreeSnapshot to, int[] methodsB) {
+        Map<String, Integer> labels = new HashMap<>();
+        int[][] countsA = labelCounts(from, methodsA, labels);
+        int[][] countsB = labelCounts(to, methodsB, labels);
+        int[][] bound = new int[methodsA.length][methodsB.length];
+        for (int i = 0; i < methodsA.length; i++) {
+            for (int j = 0; j < methodsB.length; j++) {
+                int[] x = countsA[i];
+                int[] y = countsB[j];
+                int diff = 0;
+                for (int k = 0; k < labels.size(); k++) {
+                    diff += Math.abs((k < x.length ? x[k] : 0) - (k < y.length ? y[k] : 0));
+                }
+                bound[i][j] = (diff + 1) / 2;
+            }
+        }
+
+        boolean[][] exact = new boolean[methodsA.length][methodsB.length];
+        for (int i = 0; i < methodsA.length; i++) {
+            final int row = i;
+            for (int j : nearest(methodsB.length, j -> bound[row][j])) exact[i][j] = true;
+        }
+        for (int j = 0; j < methodsB.length; j++) {
+            final int col = j;
+            for (int i : nearest(methodsA.length, i -> bound[i][col])) exact[i][j] = true;
+        }
+        return exact;
+    }
+
+    // 0..n-1 중 key가 작은 METHOD_CANDIDATES개 (같으면 앞 인덱스)
+    private static int[] nearest(int n, IntUnaryOperator key) {
+        Integer[] order = new Integer[n];
+        for (int k = 0; k < n; k++) order[k] = k;
+        Arrays.sort(order, (p, q) -> Integer.compare(key.applyAsInt(p), key.applyAsInt(q)));
+        int[] picked = new int[Math.min(n, METHOD_CANDIDATES)];
+        for (int k = 0; k < picked.length; k++) picked[k] = order[k];
+        return picked;
+    }
+
+    // 메서드 서브트리별 라벨 개수 (labels: 두 트리 공용 라벨 번호, 앞 트리에서 만든 배열은 뒤 라벨 칸이 없을 수 있음)
+    private static int[][] labelCounts(TreeSnapshot tree, int[] methods, Map<String, Integer> labels) {
+        int[][] counts = new int[methods.length][];
+        for (int m = 0; m < methods.length; m++) {
+            int[] count = new int[Math.max(16, labels.size())];
+            int end = methods[m] + tree.subtreeSize(methods[m]);
+            for (int i = methods[m]; i < end; i++) {
+                int label = labels.computeIfAbsent(tree.label(i), k -> labels.size());
+                if (label >= count.length) count = Arrays.copyOf(count, Math.max(label + 1, count.length * 2));
+                count[label]++;
+            }
+            counts[m] = count;
+        }
+        return counts;
+    }
+
+    // 루트가 아닌 MethodDeclaration 중 다른 MethodDeclaration 안에 있지 않은 것 (전위 인덱스)
+    private static int[] outermostMethods(TreeSnapshot tree) {
+        List<Integer> methods = new ArrayList<>();
+        for (int i = 1; i < tree.nodeCount(); ) {
+            if ("MethodDeclaration".equals(tree.label(i))) {
+                methods.add(i);
+                i += tree.subtreeSize(i);
+            } else {
+                i++;
+            }
+        }
+        return methods.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // 바깥 메서드 서브트리를 뺀 나머지 트리 (노드는 복사, 원본 스냅샷은 그대로)
+    private static TreeSnapshot residual(TreeSnapshot tree) {
+        record Open(TreeNode copy, int end) {}
+        ArrayDeque<Open> open = new ArrayDeque<>();
+        TreeNode root = null;
+        for (int i = 0; i < tree.nodeCount(); ) {
+            while (!open.isEmpty() && open.peek().end() <= i) open.pop();
+            if (i > 0 && "MethodDeclaration".equals(tree.label(i))) {
+                i += tree.subtreeSize(i);
+                continue;
+            }
+            TreeNode copy = new TreeNode(tree.label(i));
+            copy.line = tree.line(i);
+            copy.value = tree.value(i);
+            if (open.isEmpty()) root = copy;
+            else open.peek().copy().addChild(copy);
+            open.push(new Open(copy, i + tree.subtreeSize(i)));
+            i++;
+        }
+        return TreeSnapshot.of(root);
+    }
+
+    public TreeSnapshot from() {
+        return from;
+    }
+
+    public TreeSnapshot to() {
+        return to;
+    }
+
+    // 전체 TED면 TreeEditDistance.compute(원본 from 루트, 원본 to 루트)와 같은 값
+    public int distance() {
+        return distance;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    // 1 - TED / max(노드 수)
+    public double similarity() {
+        return 1.0 - ((double) distance / maxSize);
+    }
+
+    // 전체 TED면 TreeMatcher.match(from, to)와 같은 결과
+    // 메서드 분해(또는 큰 전체 표)면 쌍마다 표를 다시 만들어 최적 경로 매칭 + 트리 전체 추가 매칭
+    // 표는 한 번에 하나씩 만들고 버림
+    public List<TreeMatcher.Match> matches() {
+        if (table != null) return TreeMatcher.match(table);
+        List<TreeMatcher.Match> optimal = new ArrayList<>();
+        for (int[] pair : methodPairs) {
+            optimal.addAll(TedTable.withTable(from, pair[0], to, pair[1], pool, TreeMatcher::optimalMatches));
+        }
+        return TreeMatcher.withCandidateMatches(from, to, optimal);
+    }
+
+    public List<TreeMatcher.Seg> segments(int minLen) {
+        return TreeMatcher.toSegments(matches(), minLen);
+    }
+}
@@ -1,6 +1,7 @@
 package Codify.similarity.core;
 
 import Codify.similarity.model.TreeNode;
+import java.util.ArrayDeque;
 import java.util.List;
 
 public class TreeEditDistance {
@@ -69,18 +70,26 @@ public class TreeEditDistance {
         return EditCost.insertCost(node) + costInsertAll(node);
     }
 
+    // 모든 하위 노드 삭제 비용 합 (명시적 스택, 깊은 트리에서도 스택 오버플로 없음)
     private static int costDeleteAll(TreeNode node) {
         int cost = 0;
-        for (TreeNode child : node.children) {
-            cost += costDelete(child);
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>(node.children);
+        while (!stack.isEmpty()) {
+            TreeNode descendant = stack.pop();
+            cost += EditCost.deleteCost(descendant);
+            for (TreeNode child : descendant.children) stack.push(child);
         }
         return cost;
     }
 
+    // 모든 하위 노드 삽입 비용 합
     private static int costInsertAll(TreeNode node) {
         int cost = 0;
-        for (TreeNode child : node.children) {
-            cost += costInsert(child);
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>(node.children);
+        while (!stack.isEmpty()) {
+            TreeNode descendant = stack.pop();
+            cost += EditCost.insertCost(descendant);
+            for (TreeNode child : descendant.children) stack.push(child);
         }
         return cost;
     }
@@ -1,26 +1,27 @@
 package Codify.similarity.core;
 
 import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 public final class TreeMatcher {
     public record Match(TreeNode a, TreeNode b) {}
     public record Seg(int fs, int fe, int ts, int te) {}
 
-    enum Op { DEL, INS, REN }
-    static class Cell {
-        int cost; Op op; int iPrev, jPrev; List<Match> matches;
-        Cell(int cost, Op op, int iPrev, int jPrev, List<Match> matches) {
-            this.cost = cost; this.op = op; this.iPrev=iPrev; this.jPrev=jPrev; this.matches = matches;
-        }
-    }
+    // DP 칸의 연산 (byte 배열에 기록)
+    private static final byte DEL = 0, INS = 1, REN = 2;
+
+    // 스레드별 DP 작업 공간 (분석 스레드마다 재사용, 칸마다 객체를 만들지 않음)
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
     // 구조적으로 유사한 노드 타입들 (이름이 달라도 매칭 가능)
     private static final Set<String> STRUCTURAL_TYPES = Set.of(
@@ -35,51 +36,135 @@ public final class TreeMatcher {
     );
 
     // 이름이 달라도 타입이 같으면 매칭 가능한 노드들
-    private static final Set<String> NAME_INDEPENDENT_TYPES = Set.of(
+    static final Set<String> NAME_INDEPENDENT_TYPES = Set.of(
             "FunctionName",      // 함수명
             "VariableName",      // 변수명
             "Parameter"          // 파라미터
     );
 
+    // 스냅샷으로 고정해 매칭 (span 계산 포함, 트리를 공유한다면 TreeSnapshot으로 비교할 것)
     public static List<Match> match(TreeNode A, TreeNode B) {
-        // span 보장
-        A.computeSpan();
-        B.computeSpan();
-        // return matchNode(A, B, 0);
+        TreeSnapshot snapshotA = TreeSnapshot.of(A);
+        return match(snapshotA, (A == B) ? snapshotA : TreeSnapshot.of(B));
+    }
+
+    // span이 이미 계산된 스냅샷끼리 매칭 (트리를 읽기만 하므로 여러 스레드에서 같은 스냅샷 사용 가능)
+    public static List<Match> match(TreeSnapshot snapshotA, TreeSnapshot snapshotB) {
+        return TedTable.withTable(snapshotA, 0, snapshotB, 0, null, TreeMatcher::match);
+    }
+
+    // 자식 쌍 TED는 표에서 읽음 (TreeAlignment가 점수 계산에 쓴 표를 그대로 재사용)
+    static List<Match> match(TedTable table) {
+        return withCandidateMatches(table.a, table.b, optimalMatches(table));
+    }
 
-        // 함수 매칭 수집
-        // 1. 기존 DP 최적 경로 매칭
-        List<Match> optimalMatches = matchNode(A, B, 0);
+    // 1. 표의 루트 쌍에서 시작한 DP 최적 경로 매칭 (메서드 분해면 짝지은 메서드 쌍 표마다 호출)
+    static List<Match> optimalMatches(TedTable table) {
+        List<Match> optimalMatches = new ArrayList<>();
+        matchNode(table, table.rootA, table.rootB, table.rootPair(), 0, SCRATCH.get(), optimalMatches);
+        return optimalMatches;
+    }
+
+    // 최적 경로 매칭 + 트리 전체에서 모은 추가 매칭
+    static List<Match> withCandidateMatches(TreeSnapshot snapshotA, TreeSnapshot snapshotB,
+                                            List<Match> optimalMatches) {
+        // 2~5. 추가 매칭 후보 색인 (같은 트리끼리 비교하면 색인 공유)
+        var interner = new MatchCandidateIndex.Interner();
+        MatchCandidateIndex indexA = MatchCandidateIndex.build(snapshotA, interner);
+        MatchCandidateIndex indexB = (snapshotA == snapshotB) ? indexA : MatchCandidateIndex.build(snapshotB, interner);
 
         // 2. MethodDeclaration 모든 매칭 추가 수집
-        List<Match> methodMatches = collectAllMethodMatches(A, B);
+        List<Match> methodMatches = collectAllMethodMatches(indexA, indexB);
 
         // 3. Loop 모든 매칭 추가 수집
-        List<Match> loopMatches = collectAllLoopMatches(A, B);
+        List<Match> loopMatches = collectAllLoopMatches(indexA, indexB);
 
         // 4. Condition 모든 매칭 추가 수집
-        List<Match> conditionMatches = collectAllConditionMatches(A, B);
+        List<Match> conditionMatches = collectAllConditionMatches(indexA, indexB);
 
         // 5. Variable 모든 매칭 추가 수집
-        List<Match> variableMatches = collectAllVariableMatches(A, B);
+        List<Match> variableMatches = collectAllVariableMatches(indexA, indexB);
 
         // 6. 합치기 (중복 제거)
         return mergeAllMatches(optimalMatches, methodMatches, loopMatches, conditionMatches, variableMatches);
     }
 
-    private static List<Match> matchNode(TreeNode a, TreeNode b, int depth) {
-        // 구조적 유사성 기반 rename 비용 계산
-        int rc = calculateStructuralCost(a, b);
+    // 자식 매칭을 역추적 순서로 추가한 뒤 현재 노드 매칭 추가 (후위 순서)
+    // 비용은 자식 매칭 결과와 무관하므로 DP는 비용/연산만 채우고, 최적 경로 위(REN) 자식 쌍만 내려감
+    // 깊은 트리(긴 수식 등)에서 스택 넘침이 없도록 재귀 대신 명시적 프레임 스택
+    // ai, bi: 스냅샷 전위 인덱스, pair: TedTable 쌍 인덱스 (한쪽이 리프면 -1)
+    private static void matchNode(TedTable table, int ai, int bi, int pair, int depth, Scratch scratch, List<Match> out) {
+        ArrayDeque<Frame> frames = new ArrayDeque<>();
+        frames.push(open(table, ai, bi, pair, depth, scratch));
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            if (frame.next < frame.end) {
+                // 다음 REN 자식 쌍으로 내려감 (자식의 DP가 작업 공간을 덮어쓰지만 이 프레임의 경로는 path에 남아 있음)
+                int i = scratch.path[frame.next], j = scratch.path[frame.next + 1];
+                frame.next += 2;
+                frames.push(open(table, frame.grid.childrenA[i], frame.grid.childrenB[j], frame.grid.pair(i, j),
+                        frame.depth + 1, scratch));
+                continue;
+            }
+            frames.pop();
+            scratch.top = frame.base;
+            emit(table.a.node(frame.ai), table.b.node(frame.bi), frame.depth, out);
+        }
+    }
+
+    // 노드 쌍 하나의 자식 DP + 역추적: REN 칸의 자식 쌍을 path[base, end)에 보관
+    private static Frame open(TedTable table, int ai, int bi, int pair, int depth, Scratch scratch) {
+        TreeNode a = table.a.node(ai);
+        TreeNode b = table.b.node(bi);
+        TedTable.Grid grid = table.grid(ai, bi, pair);
 
         // 1. DP 테이블 구축
-        Cell[][] dp = buildDpTable(a, b, depth);
+        int n = b.children.size();
+        byte[] ops = buildDpTable(a, b, grid, scratch);
+
+        // 2. 역추적
+        int base = scratch.top;
+        int row = a.children.size(), col = n;
+        while (row > 0 || col > 0) {
+            byte op = ops[row * (n + 1) + col];
+            if (op == REN) {
+                scratch.push(row - 1, col - 1);
+                row--;
+                col--;
+            } else if (op == DEL) {
+                row--;
+            } else { // INS
+                col--;
+            }
+        }
+        return new Frame(ai, bi, depth, grid, base, scratch.top);
+    }
 
-        // 2. 역추적으로 매칭 수집
-        List<Match> childMatches = backtrackMatches(dp, a, b);
+    // matchNode 작업 스택 항목: path[next, end)가 아직 내려가지 않은 자식 쌍
+    private static final class Frame {
+        final int ai, bi, depth;
+        final TedTable.Grid grid;
+        final int base, end;
+        int next;
+
+        Frame(int ai, int bi, int depth, TedTable.Grid grid, int base, int end) {
+            this.ai = ai;
+            this.bi = bi;
+            this.depth = depth;
+            this.grid = grid;
+            this.base = base;
+            this.end = end;
+            this.next = base;
+        }
+    }
 
+    // 자식 쌍을 모두 처리한 노드 쌍의 매칭 여부
+    private static void emit(TreeNode a, TreeNode b, int depth, List<Match> out) {
         // 3. 현재 노드 매칭 여부 판단
+        // 구조적 유사성 기반 rename 비용 계산
+        int rc = calculateStructuralCost(a, b);
         if (shouldMatchNodes(a, b, rc, depth)) {
-            childMatches.add(new Match(a, b));
+            out.add(new Match(a, b));
 
             // 매칭 누락 오류 해결: MethodDeclaration 매칭 추적
             if ("MethodDeclaration".equals(a.label)) {
@@ -96,79 +181,87 @@ public final class TreeMatcher {
             }
             logMatchResult(a, b, false);
         }
-        return childMatches;
     }
 
-    // DP 테이블 구축
-    private static Cell[][] buildDpTable(TreeNode a, TreeNode b, int depth) {
-        var m = a.children.size();
-        var n = b.children.size();
-        Cell[][] dp = new Cell[m+1][n+1];
+    // DP 테이블 구축: 비용은 두 행만 유지, 연산은 (m+1)x(n+1) 배열에 기록
+    // 같은 비용이면 REN > DEL > INS 순으로 선택
+    private static byte[] buildDpTable(TreeNode a, TreeNode b, TedTable.Grid grid, Scratch scratch) {
+        int m = a.children.size();
+        int n = b.children.size();
+        int width = n + 1;
+        byte[] ops = scratch.ops((m + 1) * width);
+        int[] prev = scratch.row(0, width);
+        int[] cur = scratch.row(1, width);
 
         // 초기화
-        dp[0][0] = new Cell(0, null, -1, -1, new ArrayList<>());
-
-        for (int i=1; i<=m; i++) {
-            dp[i][0] = new Cell(dp[i-1][0].cost + EditCost.deleteCost(a.children.get(i-1)),
-                    Op.DEL, i-1, 0, List.of());
-        }
-        for (int j=1; j<=n; j++) {
-            dp[0][j] = new Cell(dp[0][j-1].cost + EditCost.insertCost(b.children.get(j-1)),
-                    Op.INS, 0, j-1, List.of());
+        prev[0] = 0;
+        for (int j = 1; j <= n; j++) {
+            prev[j] = prev[j - 1] + EditCost.insertCost(b.children.get(j - 1));
+            ops[j] = INS;
         }
 
         // DP 테이블 채우기
-        for (int i=1; i<=m; i++) {
-            for (int j=1; j<=n; j++) {
-                fillDpCell(dp, i, j, a, b, depth);
+        for (int i = 1; i <= m; i++) {
+            TreeNode childA = a.children.get(i - 1);
+            cur[0] = prev[0] + EditCost.deleteCost(childA);
+            ops[i * width] = DEL;
+
+            for (int j = 1; j <= n; j++) {
+                TreeNode childB = b.children.get(j - 1);
+                int del = prev[j] + EditCost.deleteCost(childA);
+                int ins = cur[j - 1] + EditCost.insertCost(childB);
+                int ren = prev[j - 1] + calculateTreeEditCost(childA, childB, grid, i - 1, j - 1);
+
+                // 최소 비용 선택
+                if (ren <= del && ren <= ins) {
+                    cur[j] = ren;
+                    ops[i * width + j] = REN;
+                } else if (del <= ins) {
+                    cur[j] = del;
+                    ops[i * width + j] = DEL;
+                } else {
+                    cur[j] = ins;
+                    ops[i * width + j] = INS;
+                }
             }
+
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
         }
 
-        return dp;
+        return ops;
     }
 
-    // DP 셀 채우기
-    private static void fillDpCell(Cell[][] dp, int i, int j, TreeNode a, TreeNode b, int depth) {
-        int del = dp[i-1][j].cost + EditCost.deleteCost(a.children.get(i-1));
-        int ins = dp[i][j-1].cost + EditCost.insertCost(b.children.get(j-1));
+    // 재사용 작업 공간: 연산 배열, 비용 두 행, 역추적 경로 스택
+    // 너무 큰 배열은 스레드에 붙잡아 두지 않고 한 번만 사용
+    private static final class Scratch {
+        private static final int RETAIN_LIMIT = 1 << 20;
 
-        // 재귀적으로 자식 매칭
-        List<Match> sub = matchNode(a.children.get(i-1), b.children.get(j-1), depth+1);
-        int renCost = calculateTreeEditCost(a.children.get(i-1), b.children.get(j-1));
+        private byte[] ops = new byte[256];
+        private final int[][] rows = {new int[64], new int[64]};
+        private int[] path = new int[64];
+        private int top;
 
-        // 최소 비용 선택
-        if (renCost + dp[i-1][j-1].cost <= del && renCost + dp[i-1][j-1].cost <= ins) {
-            dp[i][j] = new Cell(renCost + dp[i-1][j-1].cost, Op.REN, i-1, j-1, sub);
-        } else if (del <= ins) {
-            dp[i][j] = new Cell(del, Op.DEL, i-1, j, List.of());
-        } else {
-            dp[i][j] = new Cell(ins, Op.INS, i, j-1, List.of());
+        byte[] ops(int size) {
+            if (size <= ops.length) return ops;
+            byte[] grown = new byte[size];
+            if (size <= RETAIN_LIMIT) ops = grown;
+            return grown;
         }
-    }
 
-    // 역추적
-    private static List<Match> backtrackMatches(Cell[][] dp, TreeNode a, TreeNode b) {
-        List<Match> matches = new ArrayList<>();
-        int m = a.children.size();
-        int n = b.children.size();
-        int i = m, j = n;
-
-        while (i > 0 || j > 0) {
-            Cell c = dp[i][j];
-            if (c.op == Op.REN) {
-                matches.addAll(c.matches);
-                i = c.iPrev;
-                j = c.jPrev;
-            } else if (c.op == Op.DEL) {
-                i = c.iPrev;
-                j = c.jPrev;
-            } else { // INS
-                i = c.iPrev;
-                j = c.jPrev;
-            }
+        int[] row(int index, int size) {
+            if (size <= rows[index].length) return rows[index];
+            int[] grown = new int[size];
+            if (size <= RETAIN_LIMIT) rows[index] = grown;
+            return grown;
         }
 
-        return matches;
+        void push(int i, int j) {
+            if (top + 2 > path.length) path = Arrays.copyOf(path, path.length * 2);
+            path[top++] = i;
+            path[top++] = j;
+        }
     }
 
     // 매칭 조건 판단
@@ -253,21 +346,22 @@ public final class TreeMatcher {
         return "void";
     }
 
-    private static List<String> extractOperators(TreeNode node) {
+    // 전위 순서로 연산자 수집 (명시적 스택)
+    private static List<String> extractOperators(TreeNode root) {
         List<String> operators = new ArrayList<>();
-        extractOperatorsRecursive(node, operators);
-        return operators;
-    }
-
-    private static void extractOperatorsRecursive(TreeNode node, List<String> operators) {
-        if ("Operator".equals(node.label)) {
-            // 연산자 텍스트 추출 (node.value 또는 적절한 방법으로)
-            operators.add(node.toString()); // 실제 연산자 값으로 변경 필요
-        }
-
-        for (TreeNode child : node.children) {
-            extractOperatorsRecursive(child, operators);
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.pop();
+            if ("Operator".equals(node.label)) {
+                // 연산자 텍스트 추출 (node.value 또는 적절한 방법으로)
+                operators.add(node.toString()); // 실제 연산자 값으로 변경 필요
+            }
+            for (int i = node.children.size() - 1; i >= 0; i--) {
+                stack.push(node.children.get(i));
+            }
         }
+        return operators;
     }
 
     // 로깅
@@ -323,30 +417,37 @@ public final class TreeMatcher {
         return EditCost.renameCost(a, b);
     }
 
+    // 비교할 노드 쌍을 명시적 스택에 쌓아 서브트리 전체 비교
     private static boolean isSameContent(TreeNode a, TreeNode b) {
-        // 자식 노드 수 비교
-        if (a.children.size() != b.children.size()) {
-            return false;
-        }
-
-        // 각 자식 노드의 라벨 비교 (순서 고려)
-        for (int i = 0; i < a.children.size(); i++) {
-            TreeNode childA = a.children.get(i);
-            TreeNode childB = b.children.get(i);
+        ArrayDeque<TreeNode[]> stack = new ArrayDeque<>();
+        stack.push(new TreeNode[]{a, b});
 
-            // 이름 독립적인 타입은 스킵
-            if (NAME_INDEPENDENT_TYPES.contains(childA.label) && NAME_INDEPENDENT_TYPES.contains(childB.label)) {
-                continue;
-            }
+        while (!stack.isEmpty()) {
+            TreeNode[] pair = stack.pop();
+            TreeNode nodeA = pair[0], nodeB = pair[1];
 
-            // 라벨이 다르면 내용이 다름
-            if (!childA.label.equals(childB.label)) {
+            // 자식 노드 수 비교
+            if (nodeA.children.size() != nodeB.children.size()) {
                 return false;
             }
 
-            // 재귀적으로 비교
-            if (!isSameContent(childA, childB)) {
-                return false;
+            // 각 자식 노드의 라벨 비교 (순서 고려)
+            for (int i = 0; i < nodeA.children.size(); i++) {
+                TreeNode childA = nodeA.children.get(i);
+                TreeNode childB = nodeB.children.get(i);
+
+                // 이름 독립적인 타입은 스킵
+                if (NAME_INDEPENDENT_TYPES.contains(childA.label) && NAME_INDEPENDENT_TYPES.contains(childB.label)) {
+                    continue;
+                }
+
+                // 라벨이 다르면 내용이 다름
+                if (!childA.label.equals(childB.label)) {
+                    return false;
+                }
+
+                // 하위 비교는 스택으로
+                stack.push(new TreeNode[]{childA, childB});
             }
         }
         return true;
@@ -438,8 +539,8 @@ public final class TreeMatcher {
         return true;
     }
 
-    // Tree Edit Cost 계산
-    private static int calculateTreeEditCost(TreeNode a, TreeNode b) {
+    // Tree Edit Cost 계산 (a, b는 grid의 i, j번째 자식)
+    private static int calculateTreeEditCost(TreeNode a, TreeNode b, TedTable.Grid grid, int i, int j) {
         // 구조적으로 유사한 타입들은 더 낮은 비용으로 계산
         if (STRUCTURAL_TYPES.contains(a.label) && a.label.equals(b.label)) {
             // 자식 수가 비슷하면 더 낮은 비용
@@ -447,8 +548,8 @@ public final class TreeMatcher {
             return childDiff;  // 자식 수 차이만큼의 비용
         }
 
-        // 기본 Tree Edit Distance 사용
-        return TreeEditDistance.compute(a, b);
+        // 기본 Tree Edit Distance 사용 (표에 미리 계산된 값)
+        return grid.distance(i, j);
     }
 
     public static List<Seg> toSegments(List<Match> matches, int minLen) {
@@ -491,217 +592,139 @@ public final class TreeMatcher {
         return resolvedSegs;
     }
 
+    // from 구간이 다른 세그먼트에 완전히 포함(같은 구간 제외)되는 세그먼트 제거
+    // 시작 라인 순으로 정렬 후 한 번 훑음: 남은 세그먼트끼리는 포함 관계가 없으므로
+    //  - current가 포함되는 경우: 지금까지 남은 것 중 끝 라인 최댓값(maxFe)이 더 크거나, 같으면서 시작이 더 앞
+    //  - current에 포함되는 경우: 시작 라인이 같고 끝 라인이 더 작은 것 -> 결과 끝부분에 모여 있음
     private static List<Seg> resolveOverlappingSegmentsSimple(List<Seg> segments) {
         log.debug("=== RESOLVING OVERLAPPING SEGMENTS START ===");
         log.debug("Input segments count: {}", segments.size());
 
-        // 시작 라인 순으로 정렬
-        List<Seg> sorted = segments.stream()
-            .sorted(Comparator.comparingInt(Seg::fs))
-            .collect(Collectors.toList());
+        // 시작 라인 순으로 정렬 (안정 정렬)
+        List<Seg> sorted = new ArrayList<>(segments);
+        sorted.sort(Comparator.comparingInt(Seg::fs));
 
         List<Seg> result = new ArrayList<>();
-        
+        int maxFe = Integer.MIN_VALUE;
+        int minFsAtMaxFe = Integer.MAX_VALUE;
+
         for (Seg current : sorted) {
-            boolean shouldAdd = true;
-            
-            // 이미 result에 있는 세그먼트들과 비교
-            List<Seg> toRemove = new ArrayList<>();
-            for (Seg existing : result) {
-                if (isCompletelyContained(current, existing)) {
-                    // current가 existing에 완전히 포함되면 추가하지 않음
-                    log.info("Skipping segment [{}-{}] - contained in [{}-{}]",
-                        current.fs(), current.fe(), existing.fs(), existing.fe());
-                    shouldAdd = false;
-                    break;
-                } else if (isCompletelyContained(existing, current)) {
-                    // existing이 current에 완전히 포함되면 existing 제거 예정
-                    toRemove.add(existing);
-                    log.info("Removing segment [{}-{}] - contained in [{}-{}]",
-                        existing.fs(), existing.fe(), current.fs(), current.fe());
-                }
+            if (maxFe > current.fe() || (maxFe == current.fe() && minFsAtMaxFe < current.fs())) {
+                // current가 기존 세그먼트에 완전히 포함되면 추가하지 않음
+                log.debug("Skipping segment [{}-{}] - contained in an earlier segment", current.fs(), current.fe());
+                continue;
+            }
+
+            // 시작이 같고 더 짧은 세그먼트 제거 (같은 시작 라인의 세그먼트는 끝 라인도 모두 같음)
+            while (!result.isEmpty()) {
+                Seg last = result.get(result.size() - 1);
+                if (last.fs() != current.fs() || last.fe() >= current.fe()) break;
+                result.remove(result.size() - 1);
+                log.debug("Removing segment [{}-{}] - contained in [{}-{}]",
+                        last.fs(), last.fe(), current.fs(), current.fe());
             }
-            
-            // 포함된 세그먼트들 제거
-            result.removeAll(toRemove);
-            
-            if (shouldAdd) {
-                result.add(current);
-                log.debug("*** SEGMENT KEPT: [{}-{}] <-> [{}-{}] ***",
-                        current.fs(), current.fe(), current.ts(), current.te());
+
+            result.add(current);
+            if (current.fe() > maxFe) {
+                maxFe = current.fe();
+                minFsAtMaxFe = current.fs();
             }
+            log.debug("*** SEGMENT KEPT: [{}-{}] <-> [{}-{}] ***",
+                    current.fs(), current.fe(), current.ts(), current.te());
         }
 
         log.debug("Resolved to {} total segments", result.size());
         return result;
     }
 
-    // 세그먼트 포함 관계 확인
-    private static boolean isCompletelyContained(Seg inner, Seg outer) {
-        return inner.fs >= outer.fs && inner.fe <= outer.fe &&
-               !(inner.fs == outer.fs && inner.fe == outer.fe);
-    }
-
     // 여기서부터 함수 매칭 추가를 위한 메서드 추가
-    private static List<TreeNode> findAllMethods(TreeNode node) {
-        List<TreeNode> methods = new ArrayList<>();
-
-        if ("MethodDeclaration".equals(node.label)) {
-            methods.add(node);
-        }
-
-        for (TreeNode child : node.children) {
-            methods.addAll(findAllMethods(child));
-        }
-
-        return methods;
-    }
-
-    private static List<Match> collectAllMethodMatches(TreeNode a, TreeNode b) {
+    // 메서드 매칭 = shouldMatchNodes(a, b, calculateStructuralCost(a, b), 0)
+    //  - 시그니처가 같은 메서드 (isSameMethodContent)
+    //  - similarity(파라미터 개수, 리턴 타입, 연산자)가 같은 메서드 (isMethodContentSimilar)
+    // 두 후보 목록을 B 전위 순서로 합쳐 중복 없이 추가
+    private static List<Match> collectAllMethodMatches(MatchCandidateIndex a, MatchCandidateIndex b) {
         List<Match> methodMatches = new ArrayList<>();
-        List<TreeNode> methodsA = findAllMethods(a);
-        List<TreeNode> methodsB = findAllMethods(b);
-
-        for (TreeNode methodA : methodsA) {
-            for (TreeNode methodB : methodsB) {
-                if (shouldMatchNodes(methodA, methodB, calculateStructuralCost(methodA, methodB), 0)) {
-                    methodMatches.add(new Match(methodA, methodB));
-                    log.warn("*** COLLECTED METHOD MATCH: [{}-{}] <-> [{}-{}] ***",
-                            methodA.minLine, methodA.maxLine, methodB.minLine, methodB.maxLine);
+        List<MatchCandidateIndex.MethodCandidate> none = List.of();
+
+        for (MatchCandidateIndex.MethodCandidate methodA : a.methods) {
+            List<MatchCandidateIndex.MethodCandidate> same =
+                    b.methodsBySignature.getOrDefault(methodA.signature(), none);
+            List<MatchCandidateIndex.MethodCandidate> similar =
+                    b.methodsBySimilarity.getOrDefault(methodA.similarity(), none);
+
+            int i = 0, j = 0;
+            while (i < same.size() || j < similar.size()) {
+                MatchCandidateIndex.MethodCandidate methodB;
+                if (j == similar.size() || (i < same.size() && same.get(i).order() <= similar.get(j).order())) {
+                    methodB = same.get(i++);
+                    if (j < similar.size() && similar.get(j) == methodB) j++;
+                } else {
+                    methodB = similar.get(j++);
                 }
+                methodMatches.add(new Match(methodA.node(), methodB.node()));
+                log.debug("*** COLLECTED METHOD MATCH: [{}-{}] <-> [{}-{}] ***",
+                        methodA.node().minLine, methodA.node().maxLine, methodB.node().minLine, methodB.node().maxLine);
             }
         }
 
         return methodMatches;
     }
 
-    // 반복문 매칭
-    private static List<TreeNode> findAllLoops(TreeNode node) {
-        List<TreeNode> loops = new ArrayList<>();
-
-        if ("ForStmt".equals(node.label) || "WhileStmt".equals(node.label)) {
-            loops.add(node);
-        }
-
-        for (TreeNode child : node.children) {
-            loops.addAll(findAllLoops(child));
-        }
-
-        return loops;
+    // 반복문 매칭 (for는 for끼리, while은 while끼리)
+    private static List<Match> collectAllLoopMatches(MatchCandidateIndex a, MatchCandidateIndex b) {
+        return joinByLabel(a.loops, b, "LOOP");
     }
 
-    private static List<Match> collectAllLoopMatches(TreeNode a, TreeNode b) {
-        List<Match> loopMatches = new ArrayList<>();
-        List<TreeNode> loopsA = findAllLoops(a);
-        List<TreeNode> loopsB = findAllLoops(b);
-
-        for (TreeNode loopA : loopsA) {
-            for (TreeNode loopB : loopsB) {
-                if (shouldMatchNodes(loopA, loopB, calculateStructuralCost(loopA, loopB), 0)) {
-                    loopMatches.add(new Match(loopA, loopB));
-                    log.warn("*** COLLECTED LOOP MATCH: [{}-{}] <-> [{}-{}] ***",
-                            loopA.minLine, loopA.maxLine, loopB.minLine, loopB.maxLine);
-                }
-            }
-        }
-
-        return loopMatches;
+    private static List<Match> collectAllConditionMatches(MatchCandidateIndex a, MatchCandidateIndex b) {
+        return joinByLabel(a.conditions, b, "CONDITION");
     }
 
-    private static List<TreeNode> findAllConditions(TreeNode node) {
-        List<TreeNode> conditions = new ArrayList<>();
-
-        if ("IfStmt".equals(node.label)) {
-            conditions.add(node);
-        }
-
-        for (TreeNode child : node.children) {
-            conditions.addAll(findAllConditions(child));
-        }
-
-        return conditions;
+    private static List<Match> collectAllVariableMatches(MatchCandidateIndex a, MatchCandidateIndex b) {
+        return joinByLabel(a.variables, b, "VARIABLE");
     }
 
-    private static List<Match> collectAllConditionMatches(TreeNode a, TreeNode b) {
-        List<Match> conditionMatches = new ArrayList<>();
-        List<TreeNode> conditionsA = findAllConditions(a);
-        List<TreeNode> conditionsB = findAllConditions(b);
+    // 메서드 외 구조 타입은 라벨만 같으면 매칭 (shouldMatchNodes의 STRUCTURAL_TYPES 규칙)
+    private static List<Match> joinByLabel(List<TreeNode> candidatesA, MatchCandidateIndex b, String kind) {
+        List<Match> matches = new ArrayList<>();
 
-        for (TreeNode conditionA : conditionsA) {
-            for (TreeNode conditionB : conditionsB) {
-                if (shouldMatchNodes(conditionA, conditionB, calculateStructuralCost(conditionA, conditionB), 0)) {
-                    conditionMatches.add(new Match(conditionA, conditionB));
-                    log.warn("*** COLLECTED CONDITION MATCH: [{}-{}] <-> [{}-{}] ***",
-                            conditionA.minLine, conditionA.maxLine, conditionB.minLine, conditionB.maxLine);
-                }
+        for (TreeNode nodeA : candidatesA) {
+            for (TreeNode nodeB : b.byLabel.getOrDefault(nodeA.label, List.of())) {
+                matches.add(new Match(nodeA, nodeB));
+                log.debug("*** COLLECTED {} MATCH: [{}-{}] <-> [{}-{}] ***",
+                        kind, nodeA.minLine, nodeA.maxLine, nodeB.minLine, nodeB.maxLine);
             }
         }
 
-        return conditionMatches;
+        return matches;
     }
 
-    private static List<TreeNode> findAllVariableDeclarations(TreeNode node) {
-        List<TreeNode> variables = new ArrayList<>();
-
-        if ("VariableDeclaration".equals(node.label)) {
-            variables.add(node);
-        }
-
-        for (TreeNode child : node.children) {
-            variables.addAll(findAllVariableDeclarations(child));
-        }
-
-        return variables;
-    }
+    // 앞 목록에 이미 있는 span(양쪽 min/max 라인)과 같은 매칭은 제외
+    // 같은 목록 안의 중복은 그대로 유지 (첫 목록은 전부 유지)
+    @SafeVarargs
+    private static List<Match> mergeAllMatches(List<Match>... matchLists) {
+        int total = 0;
+        for (List<Match> matches : matchLists) total += matches.size();
 
-    private static List<Match> collectAllVariableMatches(TreeNode a, TreeNode b) {
-        List<Match> variableMatches = new ArrayList<>();
-        List<TreeNode> variablesA = findAllVariableDeclarations(a);
-        List<TreeNode> variablesB = findAllVariableDeclarations(b);
+        List<Match> result = new ArrayList<>(total);
+        Set<Seg> seen = new HashSet<>();
 
-        for (TreeNode variableA : variablesA) {
-            for (TreeNode variableB : variablesB) {
-                if (shouldMatchNodes(variableA, variableB, calculateStructuralCost(variableA, variableB), 0)) {
-                    variableMatches.add(new Match(variableA, variableB));
-                    log.warn("*** COLLECTED VARIABLE MATCH: [{}-{}] <-> [{}-{}] ***",
-                            variableA.minLine, variableA.maxLine, variableB.minLine, variableB.maxLine);
+        for (List<Match> matches : matchLists) {
+            int before = result.size();
+            for (Match match : matches) {
+                if (!seen.contains(spanOf(match))) {
+                    result.add(match);
+                    log.debug("*** ADDED MATCH: [{}-{}] <-> [{}-{}] ***",
+                            match.a.minLine, match.a.maxLine, match.b.minLine, match.b.maxLine);
                 }
             }
-        }
-
-        return variableMatches;
-    }
-
-    private static List<Match> mergeMatches(List<Match> optimal, List<Match> additional) {
-        List<Match> result = new ArrayList<>(optimal);
-
-        for (Match additionalMatch : additional) {
-            boolean isDuplicate = optimal.stream().anyMatch(optimalMatch ->
-                    optimalMatch.a.minLine == additionalMatch.a.minLine &&
-                            optimalMatch.a.maxLine == additionalMatch.a.maxLine &&
-                            optimalMatch.b.minLine == additionalMatch.b.minLine &&
-                            optimalMatch.b.maxLine == additionalMatch.b.maxLine
-            );
-
-            if (!isDuplicate) {
-                result.add(additionalMatch);
-                log.warn("*** ADDED EXTRA METHOD MATCH: [{}-{}] <-> [{}-{}] ***",
-                        additionalMatch.a.minLine, additionalMatch.a.maxLine,
-                        additionalMatch.b.minLine, additionalMatch.b.maxLine);
-            }
+            for (int i = before; i < result.size(); i++) seen.add(spanOf(result.get(i)));
         }
 
         return result;
     }
 
-    private static List<Match> mergeAllMatches(List<Match>... matchLists) {
-        List<Match> result = new ArrayList<>();
-
-        for (List<Match> matches : matchLists) {
-            result = mergeMatches(result, matches);
-        }
-
-        return result;
+    private static Seg spanOf(Match match) {
+        return new Seg(match.a.minLine, match.a.maxLine, match.b.minLine, match.b.maxLine);
     }
 
 }
\ No newline at end of file
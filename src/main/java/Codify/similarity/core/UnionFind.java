@@ -0,0 +1,56 @@
+package Codify.similarity.core;
+
+import java.util.Arrays;
+
+// 0..n-1 정수 원소 union-find (union by size + 경로 압축)
+// 원소 수는 add()로 늘어남
+public final class UnionFind {
+    private int[] parent;
+    private int[] size;
+    private int count;
+
+    public UnionFind(int initialCapacity) {
+        parent = new int[Math.max(1, initialCapacity)];
+        size = new int[parent.length];
+    }
+
+    // 새 원소 추가 후 인덱스 반환
+    public int add() {
+        if (count == parent.length) {
+            parent = Arrays.copyOf(parent, count * 2);
+            size = Arrays.copyOf(size, count * 2);
+        }
+        parent[count] = count;
+        size[count] = 1;
+        return count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int find(int x) {
+        int root = x;
+        while (parent[root] != root) root = parent[root];
+        while (parent[x] != root) {
+            int next = parent[x];
+            parent[x] = root;
+            x = next;
+        }
+        return root;
+    }
+
+    // 서로 다른 집합이었으면 true
+    public boolean union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra == rb) return false;
+        if (size[ra] < size[rb]) { int t = ra; ra = rb; rb = t; }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        return true;
+    }
+
+    public int componentSize(int x) {
+        return size[find(x)];
+    }
+}
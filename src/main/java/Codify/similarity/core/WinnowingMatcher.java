@@ -0,0 +1,205 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// winnowing 지문 매칭 (노드 매칭 없이 매칭 라인 구간만 추출)
+// 1. 각 트리를 전위 순서 라벨 토큰열로 직렬화 (value 제외 -> 이름만 바꾼 코드도 같은 토큰열), 토큰마다 라인
+// 2. 연속 K개 토큰의 롤링 해시 -> 연속 W개 해시 창마다 최솟값만 지문으로 남김 (winnowing)
+//    같은 토큰이 W + K - 1개 이상 이어지는 구간은 반드시 공통 지문을 가짐
+// 3. 두 지문 집합을 해시로 조인 -> 지문 위치의 라벨 토큰이 실제로 같은지 확인하고 같은 토큰이 이어지는 만큼 넓힘
+//    같은 대각선(to 위치 - from 위치)에서 가까운 구간끼리 묶어 라인 구간으로 변환
+// 트리 크기에 거의 선형 (양쪽 어디서든 MAX_POSITIONS번 넘게 나오는 지문은 버림, 지문 쌍은 해시당 최대 MAX_POSITIONS^2)
+public final class WinnowingMatcher implements PairMatcher {
+
+    static final WinnowingMatcher INSTANCE = new WinnowingMatcher();
+
+    // k-gram 토큰 수 (AST 한 줄이 보통 노드 3~8개)
+    private static final int K = 10;
+    // winnowing 창 크기 (해시 수)
+    private static final int W = 8;
+    // 한 해시가 어느 한쪽 트리에서라도 이보다 많이 나오면(상용구) 조인하지 않음
+    private static final int MAX_POSITIONS = 8;
+    private static final int[] FREQUENT = new int[0];
+    private static final long BASE = 1_000_003L;
+
+    private WinnowingMatcher() {
+    }
+
+    @Override
+    public List<TreeMatcher.Seg> segments(TreeAlignment alignment, int minLen) {
+        return segments(alignment.from(), alignment.to(), minLen);
+    }
+
+    public static List<TreeMatcher.Seg> segments(TreeSnapshot a, TreeSnapshot b, int minLen) {
+        Tokens tokensA = Tokens.of(a);
+        Tokens tokensB = Tokens.of(b);
+        if (tokensA.size() < K || tokensB.size() < K) return List.of();
+
+        // 공통 지문 쌍 (from 위치, to 위치), 어느 쪽이든 상용구 해시는 제외 (양쪽 같은 규칙 -> 순서/방향과 무관)
+        Map<Long, int[]> positionsA = positions(tokensA.fingerprints());
+        Map<Long, int[]> positionsB = positions(tokensB.fingerprints());
+        List<int[]> hits = new ArrayList<>();
+        for (Map.Entry<Long, int[]> entry : positionsA.entrySet()) {
+            int[] positions = positionsB.get(entry.getKey());
+            if (positions == null) continue;
+            for (int from : entry.getValue()) {
+                for (int to : positions) hits.add(new int[]{from, to});
+            }
+        }
+        if (hits.isEmpty()) return List.of();
+
+        // 같은 대각선(to 위치 - from 위치)끼리 from 순으로: 지문 위치에서 토큰이 같은 동안 앞뒤로 넓힌 구간을 만들고
+        // 다음 구간이 W 토큰 안에서 시작하면 같은 세그먼트 (몇 토큰 다른 편집은 한 구간으로)
+        // 라벨이 다른 지문(해시 충돌)은 버리고, 이미 넓힌 구간 안의 지문은 건너뜀 (빠진 상용구 지문도 확장으로 덮음)
+        hits.sort(Comparator.<int[]>comparingInt(h -> h[1] - h[0]).thenComparingInt(h -> h[0]));
+        List<TreeMatcher.Seg> segments = new ArrayList<>();
+        int start = -1, end = -1, diagonal = 0;
+        for (int[] hit : hits) {
+            int d = hit[1] - hit[0];
+            boolean sameDiagonal = start >= 0 && d == diagonal;
+            if (sameDiagonal && hit[0] < end) continue;
+            if (!tokensA.sameLabels(hit[0], tokensB, hit[1], K)) continue;
+
+            int runEnd = hit[0] + K;
+            while (runEnd < tokensA.size() && runEnd + d < tokensB.size()
+                    && tokensA.sameLabels(runEnd, tokensB, runEnd + d, 1)) {
+                runEnd++;
+            }
+            if (sameDiagonal && hit[0] <= end + W) {
+                end = runEnd;
+                continue;
+            }
+            if (start >= 0) addSegment(segments, tokensA, tokensB, start, end, diagonal, minLen);
+
+            int runStart = hit[0];
+            int floor = Math.max(sameDiagonal ? end : 0, -d);
+            while (runStart > floor && tokensA.sameLabels(runStart - 1, tokensB, runStart - 1 + d, 1)) runStart--;
+            start = runStart;
+            end = runEnd;
+            diagonal = d;
+        }
+        if (start >= 0) addSegment(segments, tokensA, tokensB, start, end, diagonal, minLen);
+        segments.sort(Comparator.comparingInt(TreeMatcher.Seg::fs).thenComparingInt(TreeMatcher.Seg::ts));
+        return segments;
+    }
+
+    // 지문 해시 -> 위치 목록 (MAX_POSITIONS번 넘게 나오는 해시는 빈 배열 = 조인하지 않음)
+    // 지문 수(배열 길이 / 2)의 두 배 용량 -> 재해시 없음
+    private static Map<Long, int[]> positions(long[] fingerprints) {
+        Map<Long, int[]> positions = new HashMap<>(fingerprints.length);
+        for (int k = 0; k < fingerprints.length; k += 2) {
+            int position = (int) fingerprints[k + 1];
+            int[] old = positions.putIfAbsent(fingerprints[k], new int[]{position});
+            if (old == null || old == FREQUENT) continue;
+            int[] grown = FREQUENT;
+            if (old.length < MAX_POSITIONS) {
+                grown = Arrays.copyOf(old, old.length + 1);
+                grown[old.length] = position;
+            }
+            positions.put(fingerprints[k], grown);
+        }
+        return positions;
+    }
+
+    // 토큰 구간 [start, end) <-> [start + diagonal, end + diagonal)를 라인 구간으로 (라인 수가 minLen 미만이면 제외)
+    private static void addSegment(List<TreeMatcher.Seg> out, Tokens a, Tokens b, int start, int end, int diagonal,
+                                   int minLen) {
+        int[] linesA = a.lineRange(start, end);
+        int[] linesB = b.lineRange(start + diagonal, end + diagonal);
+        int len = Math.min(linesA[1] - linesA[0] + 1, linesB[1] - linesB[0] + 1);
+        if (len >= minLen) out.add(new TreeMatcher.Seg(linesA[0], linesA[1], linesB[0], linesB[1]));
+    }
+
+    // 전위 순서 라벨 토큰열 (라인이 없는 노드는 서브트리 시작 라인, 서브트리 전체에 라인이 없으면 제외)
+    // codes: 롤링 해시 입력 (라벨 hashCode), labels: 해시가 같을 때 확인용 원래 라벨
+    private static final class Tokens {
+        private final String[] labels;
+        private final int[] codes;
+        private final int[] lines;
+
+        private Tokens(String[] labels, int[] codes, int[] lines) {
+            this.labels = labels;
+            this.codes = codes;
+            this.lines = lines;
+        }
+
+        static Tokens of(TreeSnapshot tree) {
+            String[] labels = new String[tree.nodeCount()];
+            int[] codes = new int[tree.nodeCount()];
+            int[] lines = new int[tree.nodeCount()];
+            int size = 0;
+            for (int i = 0; i < tree.nodeCount(); i++) {
+                int line = tree.line(i) >= 1 ? tree.line(i) : tree.minLine(i);
+                if (line < 1) continue;
+                labels[size] = tree.label(i);
+                codes[size] = Objects.hashCode(tree.label(i));
+                lines[size] = line;
+                size++;
+            }
+            return new Tokens(Arrays.copyOf(labels, size), Arrays.copyOf(codes, size), Arrays.copyOf(lines, size));
+        }
+
+        int size() {
+            return labels.length;
+        }
+
+        // 토큰 [from, from + length)와 other의 [to, to + length) 라벨이 같은지
+        boolean sameLabels(int from, Tokens other, int to, int length) {
+            for (int i = 0; i < length; i++) {
+                if (!Objects.equals(labels[from + i], other.labels[to + i])) return false;
+            }
+            return true;
+        }
+
+        // [해시, 시작 위치] 쌍을 이어 붙인 배열 (robust winnowing: 창 최솟값이 같으면 가장 오른쪽, 바뀔 때만 기록)
+        long[] fingerprints() {
+            int grams = labels.length - K + 1;
+            long[] hashes = new long[grams];
+            long power = 1;
+            for (int k = 1; k < K; k++) power *= BASE;
+            long hash = 0;
+            for (int i = 0; i < labels.length; i++) {
+                if (i >= K) hash -= power * codes[i - K];
+                hash = hash * BASE + codes[i];
+                if (i >= K - 1) hashes[i - K + 1] = hash;
+            }
+
+            long[] out = new long[2 * grams];
+            int size = 0;
+            int window = Math.min(W, grams);
+            // 단조 덱: 창 안 후보 위치 (해시 오름차순)
+            int[] deque = new int[grams];
+            int head = 0, tail = 0;
+            int last = -1;
+            for (int i = 0; i < grams; i++) {
+                while (tail > head && hashes[deque[tail - 1]] >= hashes[i]) tail--;
+                deque[tail++] = i;
+                if (deque[head] <= i - window) head++;
+                if (i >= window - 1 && deque[head] != last) {
+                    last = deque[head];
+                    out[size++] = hashes[last];
+                    out[size++] = last;
+                }
+            }
+            return Arrays.copyOf(out, size);
+        }
+
+        // 토큰 [start, end)의 [최소 라인, 최대 라인]
+        int[] lineRange(int start, int end) {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int i = start; i < Math.min(end, lines.length); i++) {
+                min = Math.min(min, lines[i]);
+                max = Math.max(max, lines[i]);
+            }
+            return new int[]{min, max};
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package Codify.similarity.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+//그룹 분석 체크포인트 (실행 = 과제 + 제출물 집합 + 분석 설정)
+//completedPairs: submissionId 순 정렬 기준 상삼각 페어 인덱스 비트맵, 결과와 같은 트랜잭션으로 갱신
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Table(
+        name = "AnalysisCheckpoint",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_analysis_checkpoint_run",
+                columnNames = {"runKey"}
+        ),
+        indexes = {
+                @Index(name = "idx_analysis_checkpoint_assignment", columnList = "assignmentId, updatedAt"),
+                // 보관 기간이 지난 체크포인트 삭제용 (DDL: db/migration/V7)
+                @Index(name = "idx_analysis_checkpoint_updated", columnList = "updatedAt")
+        }
+)
+public class AnalysisCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long checkpointId;
+
+    @Column(length = 100)
+    private String runKey;
+    private Long assignmentId;
+    private String groupId;
+    private Integer submissionCount;
+    private Long pairTotal;
+    private Long pairDone;
+    //마지막으로 재시작했을 때 이미 완료돼 있던 페어 수 (처음 실행이면 0)
+    private Long resumedFromPairs;
+
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] completedPairs;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+
+    public BitSet completedPairBits() {
+        return completedPairs == null ? new BitSet() : BitSet.valueOf(completedPairs);
+    }
+
+    //새로 완료된 페어 반영
+    public void markPairs(BitSet newlyDone) {
+        BitSet bits = completedPairBits();
+        bits.or(newlyDone);
+        this.completedPairs = bits.toByteArray();
+        this.pairDone = (long) bits.cardinality();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void resume(String groupId) {
+        this.groupId = groupId;
+        this.resumedFromPairs = pairDone;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    //완료된 실행을 다시 요청 -> 처음부터 (재분석 결과는 Result 업서트로 갱신)
+    public void restart(String groupId) {
+        this.groupId = groupId;
+        this.completedPairs = null;
+        this.pairDone = 0L;
+        this.resumedFromPairs = 0L;
+        this.completedAt = null;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.completedAt = LocalDateTime.now();
+        this.updatedAt = completedAt;
+    }
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+}
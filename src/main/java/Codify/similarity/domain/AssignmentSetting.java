@@ -0,0 +1,32 @@
+package Codify.similarity.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//과제별 분석 설정 (행이 없으면 similarity.* 기본값)
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Table(name = "AssignmentSetting")
+public class AssignmentSetting {
+    @Id
+    private Long assignmentId;
+
+    //TED 엔진 (FULL: 전체 트리, METHOD: 큰 제출물은 메서드 분해)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private TedMode tedMode;
+
+    private LocalDateTime updatedAt;
+
+    public enum TedMode { FULL, METHOD }
+
+    public void changeTedMode(TedMode tedMode) {
+        this.tedMode = tedMode;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,30 @@
+package Codify.similarity.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//완료된 페어 블록 기록 (블록 결과와 같은 트랜잭션으로 저장 -> 재전달 시 중복 처리 방지)
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Table(
+        name = "PairBlock",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_pair_block_run_index",
+                columnNames = {"shardRunId", "blockIndex"}
+        )
+)
+public class PairBlock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long pairBlockId;
+    private Long shardRunId;
+    private String groupId;
+    private Integer blockIndex;
+    private Integer pairCount;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,61 @@
+package Codify.similarity.domain;
+
+import Codify.similarity.core.PairMatcher;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//AST 내용 해시 쌍 -> 페어 결과 (재제출/재분석 시 같은 두 AST면 TED/매칭 생략)
+//fromHash/toHash: 이름 정규화 트리 해시 + 타입 벡터 (PairResultCacheService.contentHash), 조회 키
+//fromDigest/toDigest: 같은 내용의 SHA-256 (contentDigest), 64비트 해시 충돌 확인용 (null은 이전 형식 -> 다시 계산)
+//scoreVersion: 점수/매칭 로직이 바뀌면 올려서 이전 결과를 무시
+//tedMode: 결과를 계산한 TED 엔진 (같은 해시 쌍이라도 엔진마다 점수가 다를 수 있음, null은 FULL로 취급)
+//matcher: segments를 만든 매칭 구현 (키에 포함 -> 구현마다 따로 저장, 점수는 구현과 무관, null은 TED로 취급)
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Table(
+        name = "PairResultCache",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_pair_result_cache_key",
+                columnNames = {"fromHash", "toHash", "scoreVersion", "tedMode", "matcher"}
+        ),
+        indexes = @Index(name = "idx_pair_result_cache_version", columnList = "scoreVersion")
+)
+public class PairResultCache {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long pairResultCacheId;
+
+    private Long fromHash;
+    private Long toHash;
+
+    @Column(columnDefinition = "BINARY(32)")
+    private byte[] fromDigest;
+
+    @Column(columnDefinition = "BINARY(32)")
+    private byte[] toDigest;
+
+    private Integer scoreVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private AssignmentSetting.TedMode tedMode;
+
+    //코사인 임계값 미만이면 null (이전 형식, 지금은 코사인을 통과한 페어만 저장)
+    private Double similarity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PairMatcher.Engine matcher;
+
+    //세그먼트 (fs, fe, ts, te) int 4개씩
+    @Lob
+    @Column(columnDefinition = "BLOB")
+    private byte[] segments;
+
+    private LocalDateTime createdAt;
+}
@@ -13,7 +13,16 @@ import lombok.*;
         uniqueConstraints = @UniqueConstraint(
         name = "uk_result_assignment_from_to",
         columnNames = {"assignmentId", "submission_from_id", "submission_to_id"}
-    )
+    ),
+        // top-K 조회용 (과제 / 학생별 유사도 내림차순)
+        // 엔티티 전체를 읽는 조회라 커버링은 아님 -> 인덱스로 k행을 고른 뒤 행마다 PK 조회 (DDL: db/migration/V3)
+        indexes = {
+                @Index(name = "idx_result_assignment_score", columnList = "assignmentId, accumulateResult DESC"),
+                @Index(name = "idx_result_assignment_student_from_score",
+                        columnList = "assignmentId, student_from_id, accumulateResult DESC"),
+                @Index(name = "idx_result_assignment_student_to_score",
+                        columnList = "assignmentId, student_to_id, accumulateResult DESC")
+        }
 )
 public class Result {
     @Id
@@ -38,4 +47,19 @@ public class Result {
 
     @Column(name = "assignmentId")
     private Long assignmentId;
-}
\ No newline at end of file
+
+    // 매칭 세그먼트(Codeline)를 계산했는지 (DDL: db/migration/V8)
+    // lazy 모드 분석은 false로 저장 -> 상세 조회 때 계산 후 true (세그먼트가 없어도 다시 계산하지 않음)
+    @Column(name = "segmentsComputed", nullable = false)
+    private boolean segmentsComputed;
+
+    // 재분석 시 점수와 세그먼트 계산 여부 갱신 (ResultWriter 업서트, 이전 Codeline은 호출 측이 삭제)
+    public void reanalyzed(double accumulateResult, boolean segmentsComputed) {
+        this.accumulateResult = accumulateResult;
+        this.segmentsComputed = segmentsComputed;
+    }
+
+    public void markSegmentsComputed() {
+        this.segmentsComputed = true;
+    }
+}
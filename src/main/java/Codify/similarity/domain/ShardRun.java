@@ -0,0 +1,38 @@
+package Codify.similarity.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//블록 분할 분석 실행 단위 (groupId + runNo, 같은 groupId를 다시 분석하면 새 runNo)
+//completedAt / failedAt은 조건부 update로 둘 중 하나만 한 번 채워짐
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Table(
+        name = "ShardRun",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_shard_run_group_run",
+                columnNames = {"groupId", "runNo"}
+        )
+)
+public class ShardRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long shardRunId;
+    private String groupId;
+    private Integer runNo;
+    private Long assignmentId;
+    private Integer totalBlocks;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime failedAt;
+
+    //아직 끝나지도 실패하지도 않은 실행 (재전달된 코디네이터 메시지는 여기에 합류)
+    public boolean isOpen() {
+        return completedAt == null && failedAt == null;
+    }
+}
@@ -17,6 +17,9 @@ public enum ErrorCode {
 
     ASSIGNMENT_NOT_FOUND(HttpStatus.NOT_FOUND, "A2", "존재하지 않는 과제입니다."),
 
+    RESULT_NOT_FOUND(HttpStatus.NOT_FOUND, "R1", "존재하지 않는 분석 결과입니다."),
+    PAIR_ANALYSIS_FAILED(HttpStatus.INTERNAL_SERVER_ERROR, "R2", "페어 분석 중 실패한 행이 있습니다."),
+
     ARTICLE_NOT_FOUND(HttpStatus.NOT_FOUND, "A1", "존재하지 않는 아티클입니다.");
 
     private final HttpStatus status; //http 상태 코드
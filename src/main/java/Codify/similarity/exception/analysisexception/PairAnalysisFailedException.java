@@ -0,0 +1,13 @@
+package Codify.similarity.exception.analysisexception;
+
+import Codify.similarity.exception.ErrorCode;
+import Codify.similarity.exception.baseException.BaseException;
+
+//그룹/블록 분석 중 한 행이라도 실패하면 결과를 커밋하지 않고 실패로 끝냄 (메시지 ack/완료 발행 X)
+public class PairAnalysisFailedException extends BaseException {
+    public PairAnalysisFailedException(int failedRows, Throwable cause) {
+        super(ErrorCode.PAIR_ANALYSIS_FAILED.getMessage() + " failedRows=" + failedRows,
+                ErrorCode.PAIR_ANALYSIS_FAILED);
+        initCause(cause);
+    }
+}
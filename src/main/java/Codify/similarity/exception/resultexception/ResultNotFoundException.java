@@ -0,0 +1,10 @@
+package Codify.similarity.exception.resultexception;
+
+import Codify.similarity.exception.ErrorCode;
+import Codify.similarity.exception.baseException.BaseException;
+
+public class ResultNotFoundException extends BaseException {
+    public ResultNotFoundException() {
+        super(ErrorCode.RESULT_NOT_FOUND);
+    }
+}
@@ -1,5 +1,6 @@
 package Codify.similarity.model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
@@ -24,12 +25,28 @@ public class TreeNode {
     }
 
     // 유사도 코드 비교
+    // 하위 노드 span을 모두 계산 (명시적 스택, 깊은 트리에서도 스택 오버플로 없음)
+    // 전위 순서의 역순으로 처리하면 자식이 항상 부모보다 먼저 계산됨
     public void computeSpan() {
+        List<TreeNode> order = new ArrayList<>();
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.pop();
+            order.add(node);
+            for (TreeNode ch : node.children) stack.push(ch);
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            order.get(i).computeOwnSpan();
+        }
+    }
+
+    // 자식 span이 계산되어 있다고 보고 자기 span만 계산
+    private void computeOwnSpan() {
         int min = (line >= 1) ? line : Integer.MAX_VALUE;
         int max = (line >= 1) ? line : Integer.MIN_VALUE;
         
         for (TreeNode ch : children) {
-            ch.computeSpan();
             if (ch.minLine >= 1) min = Math.min(min, ch.minLine);
             if (ch.maxLine >= 1) max = Math.max(max, ch.maxLine);
         }
@@ -3,9 +3,38 @@ package Codify.similarity.model;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 public class TreeNodeBuilder {
+    // 명시적 스택으로 전위 순회하며 부모에 자식을 순서대로 연결 (깊은 AST에서도 스택 오버플로 없음)
     public static TreeNode fromJson(JsonNode json) {
+        record Pending(JsonNode json, TreeNode parent) {}
+        TreeNode root = null;
+        ArrayDeque<Pending> stack = new ArrayDeque<>();
+        stack.push(new Pending(json, null));
+        List<JsonNode> children = new ArrayList<>();
+
+        while (!stack.isEmpty()) {
+            Pending pending = stack.pop();
+            TreeNode node = toNode(pending.json());
+            if (pending.parent() == null) root = node;
+            else pending.parent().addChild(node);
+
+            // 앞 형제의 서브트리가 모두 연결된 뒤 다음 형제가 나오도록 역순으로 push
+            if (pending.json().has("children")) {
+                children.clear();
+                for (JsonNode ch : pending.json().get("children")) children.add(ch);
+                for (int i = children.size() - 1; i >= 0; i--) stack.push(new Pending(children.get(i), node));
+            }
+        }
+        return root;
+    }
+
+    // 자식을 제외한 노드 하나 변환
+    private static TreeNode toNode(JsonNode json) {
         // JSON에서 line/value도 읽도록 수정
         String type = json.has("type") ? json.get("type").asText() : "Unknown";
         TreeNode node = new TreeNode(type);
@@ -36,12 +65,6 @@ public class TreeNodeBuilder {
                 log.debug("Node {} at line {}", type, node.line);
             }
         }
-        
-        if (json.has("children")) {
-            for (JsonNode ch : json.get("children")) {
-                node.addChild(fromJson(ch));
-            }
-        }
         return node;
     }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package Codify.similarity.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// 분석용으로 고정한 트리 (디코딩 직후 한 번 만들고 여러 스레드가 공유)
+// span, 전위 순서 노드 배열, 서브트리 크기, 구조 해시를 미리 계산
+// of() 시점의 라벨/값/라인/span/자식 수를 배열로 복사해 두고 접근자는 배열만 읽음
+// -> 원본 TreeNode가 나중에 바뀌어도 스냅샷 값/해시는 그대로, 비교 중 쓰기 없음, 동기화 불필요
+public final class TreeSnapshot {
+
+    private final TreeNode[] nodes;
+    private final String[] labels;
+    private final String[] values;
+    private final int[] lines;
+    private final int[] minLines;
+    private final int[] maxLines;
+    private final int[] childCounts;
+    private final int[] sizes;
+    private final long[] hashes;
+
+    // root 트리의 소유권을 가져감 (자식 목록은 불변 리스트로 교체, 이후 원본 TreeNode를 수정하지 말 것)
+    public static TreeSnapshot of(TreeNode root) {
+        root.computeSpan();
+        return new TreeSnapshot(root);
+    }
+
+    private TreeSnapshot(TreeNode root) {
+        // 전위 순회하며 자식 목록 고정
+        List<TreeNode> order = new ArrayList<>();
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.pop();
+            node.children = List.copyOf(node.children);
+            order.add(node);
+            for (int i = node.children.size() - 1; i >= 0; i--) stack.push(node.children.get(i));
+        }
+        this.nodes = order.toArray(new TreeNode[0]);
+
+        int n = nodes.length;
+        this.labels = new String[n];
+        this.values = new String[n];
+        this.lines = new int[n];
+        this.minLines = new int[n];
+        this.maxLines = new int[n];
+        this.childCounts = new int[n];
+        for (int i = 0; i < n; i++) {
+            TreeNode node = nodes[i];
+            labels[i] = node.label;
+            values[i] = node.value;
+            lines[i] = node.line;
+            minLines[i] = node.minLine;
+            maxLines[i] = node.maxLine;
+            childCounts[i] = node.children.size();
+        }
+
+        // 역순으로 서브트리 크기/해시 (자식은 i+1부터, 앞 자식 서브트리 크기만큼 건너뜀)
+        this.sizes = new int[n];
+        this.hashes = new long[n];
+        for (int i = n - 1; i >= 0; i--) {
+            int size = 1;
+            long hash = mix(Objects.hashCode(labels[i]) * 31L + lines[i]);
+            for (int k = 0, c = i + 1; k < childCounts[i]; k++, c += sizes[c]) {
+                size += sizes[c];
+                hash = mix(hash * 31 + hashes[c]);
+            }
+            sizes[i] = size;
+            hashes[i] = mix(hash + size);
+        }
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    // 전위 순서 i번째 원본 노드 (0 = root)
+    // 매칭 결과(Match)처럼 노드 식별이 필요할 때만 사용, 읽기 전용 (내용은 아래 접근자로 읽을 것)
+    public TreeNode node(int i) {
+        return nodes[i];
+    }
+
+    public String label(int i) {
+        return labels[i];
+    }
+
+    public String value(int i) {
+        return values[i];
+    }
+
+    public int line(int i) {
+        return lines[i];
+    }
+
+    // 서브트리 라인 범위 (라인 정보가 없으면 -1)
+    public int minLine(int i) {
+        return minLines[i];
+    }
+
+    public int maxLine(int i) {
+        return maxLines[i];
+    }
+
+    public int childCount(int i) {
+        return childCounts[i];
+    }
+
+    // i번째 노드의 서브트리 노드 수 (서브트리는 전위 순서 [i, i + subtreeSize(i)))
+    public int subtreeSize(int i) {
+        return sizes[i];
+    }
+
+    // 라벨/라인/자식 순서를 반영한 서브트리 해시
+    public long hash(int i) {
+        return hashes[i];
+    }
+
+    public long rootHash() {
+        return hashes[0];
+    }
+
+    // 해시에 반영되는 내용(라벨/라인/자식 순서)이 전부 같은지 (해시 충돌 확인용, value는 보지 않음)
+    public boolean sameShape(TreeSnapshot other) {
+        if (this == other) return true;
+        if (nodes.length != other.nodes.length || hashes[0] != other.hashes[0]) return false;
+        for (int i = 0; i < nodes.length; i++) {
+            if (sizes[i] != other.sizes[i] || lines[i] != other.lines[i]
+                    || childCounts[i] != other.childCounts[i] || !Objects.equals(labels[i], other.labels[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
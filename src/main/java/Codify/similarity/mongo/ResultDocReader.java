@@ -0,0 +1,47 @@
+package Codify.similarity.mongo;
+
+import org.springframework.data.mongodb.repository.Aggregation;
+
+import java.util.List;
+import java.util.Optional;
+
+// 서비스가 사용하는 result 컬렉션 조회 쿼리 (파생 쿼리/집계는 ResultDocRepository가 구현)
+// 서비스는 이 인터페이스만 주입받음 -> loadtest 인메모리 저장소는 MongoRepository 전체 대신 이것만 구현
+public interface ResultDocReader {
+    Optional<ResultDoc> findBySubmissionId(Integer submissionId);
+
+    boolean existsByAssignmentId(Integer assignmentId);
+
+    List<ResultDoc> findAllByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNotNullOrderBySubmissionIdAsc(
+            Integer assignmentId, Integer submissionId
+    );
+
+    List<ResultDoc> findAllByAssignmentIdAndSubmissionIdGreaterThanEqualAndAstIsNotNullOrderBySubmissionIdAsc(
+            Integer assignmentId, Integer submissionId
+    );
+
+    int countByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNotNull(
+            Integer assignmentId, Integer submissionId
+    );
+
+    int countByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNull(
+            Integer assignmentId, Integer submissionId
+    );
+
+    List<ResultDoc> findAllByAssignmentIdAndSubmissionIdInAndAstIsNotNull(
+            Long assignmentId,
+            List<Integer> submissionIds
+    );
+
+    // status 폴링용: 과제 전체 submission의 AST 유무를 한 번의 $group으로 집계
+    @Aggregation(pipeline = {
+            "{ $match: { assignmentId: ?0 } }",
+            "{ $group: { _id: '$submissionId', studentId: { $first: '$studentId' }, "
+                    + "withAst: { $sum: { $cond: [ { $eq: [ { $ifNull: ['$ast', null] }, null ] }, 0, 1 ] } }, "
+                    + "withoutAst: { $sum: { $cond: [ { $eq: [ { $ifNull: ['$ast', null] }, null ] }, 1, 0 ] } } } }",
+            "{ $project: { _id: 0, submissionId: '$_id', studentId: 1, withAst: 1, withoutAst: 1 } }",
+            "{ $sort: { submissionId: 1 } }"
+    })
+    List<SubmissionAstCount> aggregateAstCountsByAssignmentId(Integer assignmentId);
+
+}
@@ -0,0 +1,10 @@
+package Codify.similarity.mongo;
+
+// 과제 내 submission별 AST 보유 문서 수 집계 결과 ($group)
+public record SubmissionAstCount(
+        Integer submissionId,
+        Integer studentId,
+        int withAst,
+        int withoutAst
+) {
+}
@@ -0,0 +1,24 @@
+package Codify.similarity.repository;
+
+import Codify.similarity.domain.AnalysisCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface AnalysisCheckpointRepository extends JpaRepository<AnalysisCheckpoint, Long> {
+    Optional<AnalysisCheckpoint> findByRunKey(String runKey);
+
+    List<AnalysisCheckpoint> findAllByAssignmentIdOrderByUpdatedAtDesc(Long assignmentId);
+
+    // before 이전에 마지막으로 갱신된 행을 limit개씩 삭제 (idx_analysis_checkpoint_updated)
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM AnalysisCheckpoint WHERE updatedAt < :before LIMIT :limit", nativeQuery = true)
+    int deleteUpdatedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
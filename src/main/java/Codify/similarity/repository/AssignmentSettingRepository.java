@@ -0,0 +1,7 @@
+package Codify.similarity.repository;
+
+import Codify.similarity.domain.AssignmentSetting;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AssignmentSettingRepository extends JpaRepository<AssignmentSetting, Long> {
+}
@@ -7,8 +7,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface CodelineRepository extends JpaRepository<Codeline, Long> {
+    List<Codeline> findAllByResultIdOrderByStartLineAsc(Long resultId);
+
     @Modifying
     @Query("delete from Codeline c where c.resultId = :resultId")
     void deleteByResultId(@Param("resultId") Long resultId);
@@ -0,0 +1,12 @@
+package Codify.similarity.repository;
+
+import Codify.similarity.domain.PairBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PairBlockRepository extends JpaRepository<PairBlock, Long> {
+    boolean existsByShardRunIdAndBlockIndex(Long shardRunId, Integer blockIndex);
+
+    List<PairBlock> findAllByShardRunId(Long shardRunId);
+}
@@ -0,0 +1,23 @@
+package Codify.similarity.repository;
+
+import Codify.similarity.domain.PairResultCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PairResultCacheRepository extends JpaRepository<PairResultCache, Long> {
+    // 한 행(fromHash)의 상대들: uk_pair_result_cache_key 앞 두 컬럼 (fromHash =, toHash IN)
+    List<PairResultCache> findAllByScoreVersionAndFromHashAndToHashIn(
+            Integer scoreVersion, Long fromHash, Collection<Long> toHashes);
+
+    // 이전 버전 행을 limit개씩 삭제 (idx_pair_result_cache_version)
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM PairResultCache WHERE scoreVersion < :scoreVersion LIMIT :limit", nativeQuery = true)
+    int deleteOlderVersions(@Param("scoreVersion") int scoreVersion, @Param("limit") int limit);
+}
@@ -0,0 +1,8 @@
+package Codify.similarity.repository;
+
+// 클러스터링용 페어 (학생 - 학생 - 유사도)
+public interface ResultEdge {
+    Long getStudentFromId();
+    Long getStudentToId();
+    double getAccumulateResult();
+}
@@ -1,8 +1,13 @@
 package Codify.similarity.repository;
 
 import Codify.similarity.domain.Result;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ResultRepository extends JpaRepository<Result, Long> {
@@ -10,4 +15,29 @@ public interface ResultRepository extends JpaRepository<Result, Long> {
 
     Optional<Result> findByAssignmentIdAndSubmissionFromIdAndSubmissionToId(
             Long assignmentId, Long submissionFromId, Long submissionToId);
-}
\ No newline at end of file
+
+    // 업서트용: from x to 범위의 기존 결과 (호출 측에서 실제 페어만 골라 씀)
+    List<Result> findAllByAssignmentIdAndSubmissionFromIdInAndSubmissionToIdIn(
+            Long assignmentId, Collection<Long> submissionFromIds, Collection<Long> submissionToIds);
+
+    // status 폴링용: 과제 내 submission_from_id별 완료 수를 한 번에 집계
+    @Query("select r.submissionFromId as submissionFromId, count(r) as doneCount " +
+            "from Result r where r.assignmentId = :assignmentId group by r.submissionFromId")
+    List<SubmissionDoneCount> countDoneGroupBySubmissionFromId(@Param("assignmentId") Long assignmentId);
+
+    // top-K: idx_result_assignment_score 순서대로 k개만 읽음 (엔티티 전체를 읽으므로 k행은 PK로 다시 조회)
+    List<Result> findByAssignmentIdOrderByAccumulateResultDesc(Long assignmentId, Pageable pageable);
+
+    // 학생별 top-K: from/to 각각 인덱스로 k개씩 읽어 병합 (OR 조건은 인덱스를 타지 못함)
+    List<Result> findByAssignmentIdAndStudentFromIdOrderByAccumulateResultDesc(
+            Long assignmentId, Long studentFromId, Pageable pageable);
+
+    List<Result> findByAssignmentIdAndStudentToIdOrderByAccumulateResultDesc(
+            Long assignmentId, Long studentToId, Pageable pageable);
+
+    // 클러스터 edge 목록: 하한 이상 페어만 (idx_result_assignment_score 범위 조회)
+    @Query("select r.studentFromId as studentFromId, r.studentToId as studentToId, " +
+            "r.accumulateResult as accumulateResult " +
+            "from Result r where r.assignmentId = :assignmentId and r.accumulateResult >= :floor")
+    List<ResultEdge> findEdges(@Param("assignmentId") Long assignmentId, @Param("floor") double floor);
+}
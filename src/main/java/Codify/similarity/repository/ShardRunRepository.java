@@ -0,0 +1,31 @@
+package Codify.similarity.repository;
+
+import Codify.similarity.domain.ShardRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface ShardRunRepository extends JpaRepository<ShardRun, Long> {
+    Optional<ShardRun> findFirstByGroupIdOrderByRunNoDesc(String groupId);
+
+    // 조건부 update는 자체 트랜잭션 (코디네이터처럼 트랜잭션 밖에서 호출해도 동작)
+    // 모든 블록이 완료됐고 아직 완료/실패 처리 전일 때만 completedAt 기록 -> 1을 반환한 호출 한 번만 완료 이벤트 발행
+    @Modifying
+    @Transactional
+    @Query("update ShardRun s set s.completedAt = :now " +
+            "where s.shardRunId = :shardRunId and s.completedAt is null and s.failedAt is null " +
+            "and s.totalBlocks <= (select count(b) from PairBlock b where b.shardRunId = :shardRunId)")
+    int markCompleted(@Param("shardRunId") Long shardRunId, @Param("now") LocalDateTime now);
+
+    // 재시도를 모두 소진한 블록이 있을 때 (1을 반환한 호출 한 번만 실패 알림)
+    @Modifying
+    @Transactional
+    @Query("update ShardRun s set s.failedAt = :now " +
+            "where s.shardRunId = :shardRunId and s.completedAt is null and s.failedAt is null")
+    int markFailed(@Param("shardRunId") Long shardRunId, @Param("now") LocalDateTime now);
+}
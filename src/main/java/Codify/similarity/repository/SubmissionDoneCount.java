@@ -0,0 +1,8 @@
+package Codify.similarity.repository;
+
+// submission_from_id별 저장된 Result 수 (GROUP BY 프로젝션)
+public interface SubmissionDoneCount {
+    Long getSubmissionFromId();
+
+    Long getDoneCount();
+}
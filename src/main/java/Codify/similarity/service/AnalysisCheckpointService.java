@@ -0,0 +1,159 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.PairMatcher;
+import Codify.similarity.domain.AnalysisCheckpoint;
+import Codify.similarity.domain.AssignmentSetting.TedMode;
+import Codify.similarity.repository.AnalysisCheckpointRepository;
+import Codify.similarity.web.dto.CheckpointStatusResponseDto;
+import Codify.similarity.web.dto.MessageDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+
+//그룹 분석 체크포인트 저장/조회
+//flush는 REQUIRES_NEW -> 분석 도중 결과와 완료 비트맵이 함께 커밋되어 장애 후 남은 페어만 재실행
+//실행 키에 TED 모드/매칭 구현/점수 버전 포함 -> 설정이 바뀌면 새 실행, 완료된 실행을 다시 요청하면 처음부터
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisCheckpointService {
+
+    private static final int PRUNE_CHUNK = 500;
+
+    private final AnalysisCheckpointRepository checkpointRepository;
+
+    //이 기간(일) 동안 갱신되지 않은 체크포인트(완료 또는 중단 후 재개되지 않은 실행)는 시작 시 삭제
+    @Value("${similarity.checkpoint.retention-days:30}")
+    private int retentionDays;
+
+    public record Opened(Long checkpointId, BitSet done, long pairTotal) {
+        public boolean resumed() {
+            return !done.isEmpty();
+        }
+    }
+
+    //보관 기간이 지난 체크포인트 삭제 (여러 인스턴스가 동시에 지워도 무방)
+    @EventListener(ApplicationReadyEvent.class)
+    public void pruneExpired() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        long deleted = 0;
+        try {
+            int batch;
+            do {
+                batch = checkpointRepository.deleteUpdatedBefore(before, PRUNE_CHUNK);
+                deleted += batch;
+            } while (batch == PRUNE_CHUNK);
+        } catch (DataAccessException e) {
+            log.warn("오래된 체크포인트 삭제 실패 ({}개 삭제 후 중단)", deleted, e);
+            return;
+        }
+        if (deleted > 0) log.info("{}일 지난 체크포인트 {}개 삭제", retentionDays, deleted);
+    }
+
+    //실행 체크포인트 열기 (같은 과제 + 제출물 집합 + 설정의 미완료 기록이 있으면 이어서, 완료됐으면 처음부터)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Opened open(MessageDto message, List<Integer> sortedSubmissionIds,
+                       TedMode tedMode, PairMatcher.Engine matcher) {
+        int n = sortedSubmissionIds.size();
+        long pairTotal = (long) n * (n - 1) / 2;
+        String runKey = runKey(message.getAssignmentId(), sortedSubmissionIds, tedMode, matcher);
+
+        AnalysisCheckpoint checkpoint = checkpointRepository.findByRunKey(runKey)
+                .map(existing -> {
+                    if (existing.isCompleted()) {
+                        existing.restart(message.getGroupId());
+                        log.info("완료된 체크포인트 재실행: groupId={}, pairs={}", message.getGroupId(),
+                                existing.getPairTotal());
+                        return existing;
+                    }
+                    existing.resume(message.getGroupId());
+                    log.info("체크포인트 재개: groupId={}, done={}/{}", message.getGroupId(),
+                            existing.getPairDone(), existing.getPairTotal());
+                    return existing;
+                })
+                .orElseGet(() -> checkpointRepository.save(AnalysisCheckpoint.builder()
+                        .runKey(runKey)
+                        .assignmentId(message.getAssignmentId())
+                        .groupId(message.getGroupId())
+                        .submissionCount(n)
+                        .pairTotal(pairTotal)
+                        .pairDone(0L)
+                        .resumedFromPairs(0L)
+                        .createdAt(LocalDateTime.now())
+                        .updatedAt(LocalDateTime.now())
+                        .build()));
+        return new Opened(checkpoint.getCheckpointId(), checkpoint.completedPairBits(), pairTotal);
+    }
+
+    //결과 저장(persist)과 완료 페어 기록을 한 트랜잭션으로 커밋
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void flush(Long checkpointId, BitSet newlyDone, Runnable persist) {
+        persist.run();
+        AnalysisCheckpoint checkpoint = checkpointRepository.findById(checkpointId).orElseThrow();
+        checkpoint.markPairs(newlyDone);
+    }
+
+    //모든 페어가 기록됐으면 완료 처리
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean complete(Long checkpointId) {
+        AnalysisCheckpoint checkpoint = checkpointRepository.findById(checkpointId).orElseThrow();
+        if (checkpoint.getPairDone() < checkpoint.getPairTotal()) {
+            log.warn("체크포인트 미완료: groupId={}, done={}/{}", checkpoint.getGroupId(),
+                    checkpoint.getPairDone(), checkpoint.getPairTotal());
+            return false;
+        }
+        if (!checkpoint.isCompleted()) checkpoint.complete();
+        return true;
+    }
+
+    //status: 과제의 실행별 재개 지점/진행률
+    @Transactional(readOnly = true)
+    public List<CheckpointStatusResponseDto> statuses(Long assignmentId) {
+        return checkpointRepository.findAllByAssignmentIdOrderByUpdatedAtDesc(assignmentId).stream()
+                .map(c -> new CheckpointStatusResponseDto(
+                        c.getGroupId(),
+                        c.getSubmissionCount(),
+                        c.getPairTotal(),
+                        c.getPairDone(),
+                        c.getResumedFromPairs(),
+                        c.isCompleted() ? "DONE" : "INCOMPLETE",
+                        c.getUpdatedAt(),
+                        c.getCompletedAt()))
+                .toList();
+    }
+
+    //정렬된 n개 제출물 상삼각 페어 (i < j)의 비트 인덱스
+    public static int pairIndex(int n, int i, int j) {
+        return (int) ((long) i * (2L * n - i - 1) / 2 + (j - i - 1));
+    }
+
+    private static String runKey(Long assignmentId, List<Integer> sortedSubmissionIds,
+                                 TedMode tedMode, PairMatcher.Engine matcher) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String settings = tedMode + "," + matcher + "," + PairResultCacheService.SCORE_VERSION + ";";
+            digest.update(settings.getBytes(StandardCharsets.UTF_8));
+            for (Integer id : sortedSubmissionIds) {
+                digest.update(id.toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ',');
+            }
+            return assignmentId + ":" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
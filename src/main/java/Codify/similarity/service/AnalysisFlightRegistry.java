@@ -0,0 +1,188 @@
+package Codify.similarity.service;
+
+import Codify.similarity.web.dto.MessageDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//진행 중인 분석 single-flight 레지스트리
+//- 그룹 경로(Rabbit): 같은 과제 + 같은 제출물 집합이면 진행 중인 실행의 future에 합류
+//  window-ms 안에 들어온 같은 과제 요청 중 제출물이 겹치는 요청만 합집합으로 한 번만 실행 (디코딩 트리 공유)
+//  겹치지 않는 요청은 따로 실행 (서로 다른 그룹 사이 페어를 계산하지 않도록)
+//- 단건 경로(HTTP runOne): 같은 시작 제출물 중복 실행 방지, 그룹 실행과는 서로 순서대로 실행
+//  (Result 유니크 키 충돌 방지, 스레드를 잡고 기다리지 않고 그룹 future 뒤에 이어 실행)
+@Slf4j
+@Component
+public class AnalysisFlightRegistry {
+
+    private static final class Flight {
+        final Long assignmentId;
+        final Set<Long> submissionIds = new TreeSet<>();
+        final List<MessageDto> requests = new ArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        boolean launched;
+
+        Flight(Long assignmentId) {
+            this.assignmentId = assignmentId;
+        }
+    }
+
+    private final long windowMs;
+
+    //아래 상태는 this로 보호
+    private final Map<Long, List<Flight>> open = new HashMap<>();    // 과제별 아직 시작 전(병합 가능) 실행
+    private final Map<String, Flight> byKey = new HashMap<>();      // 과제+제출물 집합 -> 실행
+    private final Map<Long, Set<Flight>> launched = new HashMap<>();
+    private final Map<String, CompletableFuture<Void>> singles = new HashMap<>();
+
+    public AnalysisFlightRegistry(@Value("${similarity.coalesce.window-ms:200}") long windowMs) {
+        this.windowMs = Math.max(0, windowMs);
+    }
+
+    //그룹 분석 요청 등록
+    //runner: 병합된 메시지로 실행 (결과 저장까지 끝나면 완료되는 future)
+    //onCompleted: 실행 성공 후 합류한 요청마다 호출 (groupId별 완료 이벤트 발행)
+    public CompletableFuture<Void> submit(MessageDto message,
+                                          Function<MessageDto, CompletableFuture<Void>> runner,
+                                          Consumer<MessageDto> onCompleted) {
+        String key = key(message.getAssignmentId(), message.getSubmissionIds());
+        Flight flight;
+        boolean created = false;
+        synchronized (this) {
+            flight = byKey.get(key);
+            if (flight != null) {
+                log.info("진행 중인 분석에 합류: assignmentId={}, groupId={}", message.getAssignmentId(), message.getGroupId());
+            } else {
+                flight = openOverlapping(message.getAssignmentId(), message.getSubmissionIds());
+                if (flight == null) {
+                    flight = new Flight(message.getAssignmentId());
+                    open.computeIfAbsent(message.getAssignmentId(), id -> new ArrayList<>()).add(flight);
+                    created = true;
+                } else {
+                    log.info("분석 요청 병합: assignmentId={}, groupId={}", message.getAssignmentId(), message.getGroupId());
+                }
+                flight.submissionIds.addAll(message.getSubmissionIds());
+                byKey.put(key, flight);
+            }
+            if (flight.requests.stream().noneMatch(r -> Objects.equals(r.getGroupId(), message.getGroupId()))) {
+                flight.requests.add(message);
+            }
+        }
+
+        if (created) {
+            Flight toLaunch = flight;
+            CompletableFuture.delayedExecutor(windowMs, TimeUnit.MILLISECONDS)
+                    .execute(() -> launch(toLaunch, runner, onCompleted));
+        }
+        return flight.done;
+    }
+
+    //제출물이 하나라도 겹치는 시작 전 실행 (없으면 null)
+    private Flight openOverlapping(Long assignmentId, Collection<Long> submissionIds) {
+        for (Flight flight : open.getOrDefault(assignmentId, List.of())) {
+            if (submissionIds.stream().anyMatch(flight.submissionIds::contains)) return flight;
+        }
+        return null;
+    }
+
+    private void launch(Flight flight, Function<MessageDto, CompletableFuture<Void>> runner,
+                        Consumer<MessageDto> onCompleted) {
+        MessageDto merged;
+        CompletableFuture<?>[] waitFor;
+        synchronized (this) {
+            flight.launched = true;
+            List<Flight> waiting = open.get(flight.assignmentId);
+            if (waiting != null) {
+                waiting.remove(flight);
+                if (waiting.isEmpty()) open.remove(flight.assignmentId);
+            }
+            launched.computeIfAbsent(flight.assignmentId, id -> new HashSet<>()).add(flight);
+            // 이미 시작된 같은 과제 단건 분석이 끝난 뒤 실행
+            waitFor = singlesOf(flight.assignmentId);
+
+            MessageDto first = flight.requests.get(0);
+            merged = new MessageDto(first.getMessageType(), first.getGroupId(), flight.assignmentId,
+                    new ArrayList<>(flight.submissionIds), flight.submissionIds.size(), LocalDateTime.now());
+        }
+
+        CompletableFuture.allOf(waitFor)
+                .handle((ignored, e) -> null)
+                .thenCompose(ignored -> runner.apply(merged))
+                .whenComplete((ignored, e) -> finish(flight, e, onCompleted));
+    }
+
+    private void finish(Flight flight, Throwable error, Consumer<MessageDto> onCompleted) {
+        List<MessageDto> requests;
+        synchronized (this) {
+            byKey.values().removeIf(f -> f == flight);
+            Set<Flight> running = launched.get(flight.assignmentId);
+            if (running != null) {
+                running.remove(flight);
+                if (running.isEmpty()) launched.remove(flight.assignmentId);
+            }
+            requests = List.copyOf(flight.requests);
+        }
+
+        if (error != null) {
+            flight.done.completeExceptionally(error);
+            return;
+        }
+        for (MessageDto request : requests) {
+            try {
+                onCompleted.accept(request);
+            } catch (Exception e) {
+                log.error("완료 처리 실패: groupId={}", request.getGroupId(), e);
+            }
+        }
+        flight.done.complete(null);
+    }
+
+    //단건 분석 예약 (같은 과제/시작 제출물이 이미 예약/실행 중이면 null)
+    //이미 시작된 같은 과제 그룹 분석이 모두 끝나면 executor에서 task 실행 (대기 중 스레드를 점유하지 않음)
+    //timeoutSec 안에 그룹 분석이 끝나지 않으면 task를 실행하지 않고 TimeoutException으로 실패
+    public CompletableFuture<Void> submitSingle(Integer assignmentId, Integer submissionId, long timeoutSec,
+                                                Executor executor, Runnable task) {
+        CompletableFuture<?>[] waitFor;
+        synchronized (this) {
+            String key = assignmentId + ":" + submissionId;
+            if (singles.containsKey(key)) return null;
+            singles.put(key, new CompletableFuture<>());
+            waitFor = launched.getOrDefault(assignmentId.longValue(), Set.of()).stream()
+                    .map(f -> f.done)
+                    .toArray(CompletableFuture[]::new);
+        }
+        return CompletableFuture.allOf(waitFor)
+                .handle((ignored, e) -> (Void) null)   // 그룹 실패도 끝난 것으로 봄
+                .orTimeout(timeoutSec, TimeUnit.SECONDS)
+                .thenRunAsync(task, executor)
+                .whenComplete((ignored, e) -> endSingle(assignmentId, submissionId));
+    }
+
+    private void endSingle(Integer assignmentId, Integer submissionId) {
+        CompletableFuture<Void> single;
+        synchronized (this) {
+            single = singles.remove(assignmentId + ":" + submissionId);
+        }
+        if (single != null) single.complete(null);
+    }
+
+    private CompletableFuture<?>[] singlesOf(Long assignmentId) {
+        String prefix = assignmentId + ":";
+        return singles.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix))
+                .map(Map.Entry::getValue)
+                .toArray(CompletableFuture[]::new);
+    }
+
+    private static String key(Long assignmentId, Collection<Long> submissionIds) {
+        return assignmentId + ":" + new TreeSet<>(submissionIds);
+    }
+}
@@ -0,0 +1,196 @@
+package Codify.similarity.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+//그룹 분석 스케줄러 (예상 페어 수로 SMALL / LARGE 레인 분류)
+//레인마다 동시 실행 수와 페어 풀을 따로 가져서 큰 그룹이 작은 그룹을 막지 않음
+//같은 과제는 레인과 무관하게 max-runs-per-assignment개까지만 동시에 실행
+//수신 크레딧: 미ack 메시지(max-in-flight) 중 small.reserved-in-flight개는 LARGE가 쓰지 못함
+//-> 큰 그룹이 prefetch를 모두 차지해 작은 그룹이 브로커 큐에서 기다리는 일을 막음
+@Slf4j
+@Component
+public class AnalysisScheduler {
+
+    public enum Lane {
+        SMALL("small"),
+        LARGE("large");
+
+        private final String tag;
+
+        Lane(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private record Job(Long assignmentId, Lane lane, Supplier<CompletableFuture<Void>> start,
+                       CompletableFuture<Void> result, long enqueuedAt) {}
+
+    private final SimilarityMetrics metrics;
+    private final Map<Lane, Executor> pairExecutors = new EnumMap<>(Lane.class);
+    private final Map<Lane, Integer> maxRuns = new EnumMap<>(Lane.class);
+    private final long largePairs;
+    private final int maxRunsPerAssignment;
+    private final Map<Lane, Integer> maxInFlight = new EnumMap<>(Lane.class);
+
+    //아래 상태는 this로 보호
+    private final Map<Lane, Deque<Job>> pending = new EnumMap<>(Lane.class);
+    private final Map<Lane, Integer> running = new EnumMap<>(Lane.class);
+    private final Map<Long, Integer> runningByAssignment = new HashMap<>();
+    private final Map<Lane, Integer> inFlight = new EnumMap<>(Lane.class);
+
+    public AnalysisScheduler(SimilarityMetrics metrics,
+                             MeterRegistry registry,
+                             @Qualifier("smallLaneExecutor") ThreadPoolTaskExecutor smallLaneExecutor,
+                             @Qualifier("largeLaneExecutor") ThreadPoolTaskExecutor largeLaneExecutor,
+                             @Value("${similarity.scheduler.large-pairs:20000}") long largePairs,
+                             @Value("${similarity.scheduler.small.max-runs:4}") int smallMaxRuns,
+                             @Value("${similarity.scheduler.large.max-runs:1}") int largeMaxRuns,
+                             @Value("${similarity.scheduler.max-runs-per-assignment:1}") int maxRunsPerAssignment,
+                             @Value("${similarity.analysis.max-in-flight:8}") int maxInFlight,
+                             @Value("${similarity.scheduler.small.reserved-in-flight:4}") int smallReserved) {
+        this.metrics = metrics;
+        this.largePairs = largePairs;
+        this.maxRunsPerAssignment = Math.max(1, maxRunsPerAssignment);
+        pairExecutors.put(Lane.SMALL, smallLaneExecutor);
+        pairExecutors.put(Lane.LARGE, largeLaneExecutor);
+        maxRuns.put(Lane.SMALL, Math.max(1, smallMaxRuns));
+        maxRuns.put(Lane.LARGE, Math.max(1, largeMaxRuns));
+        this.maxInFlight.put(Lane.SMALL, Math.max(1, maxInFlight));
+        this.maxInFlight.put(Lane.LARGE, Math.max(1, maxInFlight - Math.max(0, smallReserved)));
+
+        for (Lane lane : Lane.values()) {
+            pending.put(lane, new ArrayDeque<>());
+            running.put(lane, 0);
+            inFlight.put(lane, 0);
+            Gauge.builder("similarity.scheduler.pending", this, s -> s.pendingCount(lane))
+                    .tag("lane", lane.tag())
+                    .register(registry);
+            Gauge.builder("similarity.scheduler.running", this, s -> s.runningCount(lane))
+                    .tag("lane", lane.tag())
+                    .register(registry);
+            Gauge.builder("similarity.scheduler.in-flight", this, s -> s.inFlightCount(lane))
+                    .tag("lane", lane.tag())
+                    .register(registry);
+        }
+    }
+
+    //예상 비용(페어 수)으로 레인 결정
+    public Lane classify(long pairs) {
+        return pairs >= largePairs ? Lane.LARGE : Lane.SMALL;
+    }
+
+    //그룹 크기로 레인 결정 (블록 분할 작업도 블록이 아닌 원래 그룹 크기 기준)
+    public Lane laneOf(int submissions) {
+        return classify(trianglePairs(submissions));
+    }
+
+    public static long trianglePairs(int submissions) {
+        return (long) submissions * (submissions - 1) / 2;
+    }
+
+    //페어 비교 작업을 돌릴 레인 풀
+    public Executor pairExecutor(Lane lane) {
+        return pairExecutors.get(lane);
+    }
+
+    //수신한 메시지의 크레딧 확보 (ack/nack 시 releaseCredit), 레인 상한이면 false -> 호출 측이 나중으로 미룸
+    public synchronized boolean tryAcquireCredit(Lane lane) {
+        if (inFlight.get(lane) >= maxInFlight.get(lane)) return false;
+        inFlight.merge(lane, 1, Integer::sum);
+        return true;
+    }
+
+    public synchronized void releaseCredit(Lane lane) {
+        inFlight.merge(lane, -1, Integer::sum);
+    }
+
+    //그룹 분석 예약: 레인/과제 상한 안에서 도착 순으로 start 호출
+    //반환된 future는 start가 돌려준 future가 끝날 때 완료
+    public CompletableFuture<Void> submit(Long assignmentId, int submissions, Supplier<CompletableFuture<Void>> start) {
+        Lane lane = laneOf(submissions);
+        Job job = new Job(assignmentId, lane, start, new CompletableFuture<>(), System.nanoTime());
+        synchronized (this) {
+            pending.get(lane).addLast(job);
+        }
+        log.debug("분석 예약: assignmentId={}, submissions={}, lane={}", assignmentId, submissions, lane);
+        drain();
+        return job.result();
+    }
+
+    //시작 가능한 작업을 꺼내 락 밖에서 시작
+    private void drain() {
+        List<Job> ready = new ArrayList<>();
+        synchronized (this) {
+            for (Lane lane : Lane.values()) {
+                Iterator<Job> it = pending.get(lane).iterator();
+                while (running.get(lane) < maxRuns.get(lane) && it.hasNext()) {
+                    Job job = it.next();
+                    // 같은 과제가 이미 상한만큼 실행 중이면 건너뛰고 뒤 작업을 먼저 (도착 순서는 유지)
+                    if (runningByAssignment.getOrDefault(job.assignmentId(), 0) >= maxRunsPerAssignment) continue;
+                    it.remove();
+                    running.merge(lane, 1, Integer::sum);
+                    runningByAssignment.merge(job.assignmentId(), 1, Integer::sum);
+                    ready.add(job);
+                }
+            }
+        }
+        for (Job job : ready) start(job);
+    }
+
+    private void start(Job job) {
+        metrics.recordLaneWait(job.lane(), System.nanoTime() - job.enqueuedAt());
+        CompletableFuture<Void> run;
+        try {
+            run = job.start().get();
+        } catch (Exception e) {
+            run = CompletableFuture.failedFuture(e);
+        }
+        run.whenComplete((ignored, e) -> {
+            release(job);
+            if (e == null) job.result().complete(null);
+            else job.result().completeExceptionally(e);
+        });
+    }
+
+    private void release(Job job) {
+        synchronized (this) {
+            running.merge(job.lane(), -1, Integer::sum);
+            runningByAssignment.computeIfPresent(job.assignmentId(), (id, n) -> n > 1 ? n - 1 : null);
+        }
+        drain();
+    }
+
+    private synchronized int pendingCount(Lane lane) {
+        return pending.get(lane).size();
+    }
+
+    private synchronized int runningCount(Lane lane) {
+        return running.get(lane);
+    }
+
+    private synchronized int inFlightCount(Lane lane) {
+        return inFlight.get(lane);
+    }
+}
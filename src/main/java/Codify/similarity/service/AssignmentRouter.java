@@ -0,0 +1,140 @@
+package Codify.similarity.service;
+
+import Codify.similarity.web.dto.MessageDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+//assignmentId -> 담당 인스턴스 (Eureka 인스턴스 목록 기반 consistent hashing)
+//같은 과제는 항상 같은 인스턴스에서 분석 -> AstCache 적중
+//인스턴스가 추가/제거되면 해당 구간의 과제만 다른 인스턴스로 이동
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "similarity.routing.enabled", havingValue = "true")
+public class AssignmentRouter {
+
+    //이미 한 번 라우팅된 메시지 표시 (다시 라우팅하지 않고 받은 인스턴스가 처리)
+    public static final String ROUTED_HEADER = "x-similarity-routed";
+
+    private final DiscoveryClient discoveryClient;
+    private final RabbitTemplate rabbitTemplate;
+    private final String serviceId;
+    private final String selfId;
+    private final int virtualNodes;
+
+    private volatile NavigableMap<Long, String> ring = new TreeMap<>();
+    private volatile List<String> members = List.of();
+
+    public AssignmentRouter(DiscoveryClient discoveryClient,
+                            RabbitTemplate rabbitTemplate,
+                            ObjectProvider<Registration> registration,
+                            @Value("${spring.application.name}") String serviceId,
+                            @Value("${server.port:8084}") int port,
+                            @Value("${similarity.routing.virtual-nodes:64}") int virtualNodes) {
+        this.discoveryClient = discoveryClient;
+        this.rabbitTemplate = rabbitTemplate;
+        this.serviceId = serviceId;
+        Registration self = registration.getIfAvailable();
+        this.selfId = self != null ? self.getInstanceId() : serviceId + ":" + port;
+        this.virtualNodes = Math.max(1, virtualNodes);
+        refresh();
+    }
+
+    //이 인스턴스 전용 큐 / 라우팅 키
+    public String queueName() {
+        return "similarity.instance." + sanitize(selfId);
+    }
+
+    public static String routingKey(String instanceId) {
+        return "similarity.route." + sanitize(instanceId);
+    }
+
+    public String selfId() {
+        return selfId;
+    }
+
+    //과제 담당 인스턴스 (링이 비어 있으면 자기 자신)
+    public String ownerOf(Long assignmentId) {
+        NavigableMap<Long, String> current = ring;
+        if (current.isEmpty()) return selfId;
+        Map.Entry<Long, String> owner = current.ceilingEntry(hash("assignment-" + assignmentId));
+        return (owner != null ? owner : current.firstEntry()).getValue();
+    }
+
+    public boolean isOwner(Long assignmentId) {
+        return selfId.equals(ownerOf(assignmentId));
+    }
+
+    //담당 인스턴스 큐로 전달 (전달된 메시지는 재라우팅하지 않음)
+    public void forward(MessageDto message) {
+        String owner = ownerOf(message.getAssignmentId());
+        rabbitTemplate.convertAndSend("codifyExchange", routingKey(owner), message, m -> {
+            m.getMessageProperties().setHeader(ROUTED_HEADER, selfId);
+            return m;
+        });
+        log.info("과제 라우팅: assignmentId={}, groupId={} -> {}", message.getAssignmentId(), message.getGroupId(), owner);
+    }
+
+    //Eureka 레지스트리 갱신 시 링 재구성 (멤버가 바뀐 경우만)
+    @EventListener({HeartbeatEvent.class, InstanceRegisteredEvent.class})
+    public void refresh() {
+        TreeSet<String> ids = new TreeSet<>();
+        ids.add(selfId);
+        try {
+            for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                if (instance.getInstanceId() != null) ids.add(instance.getInstanceId());
+            }
+        } catch (Exception e) {
+            log.warn("인스턴스 목록 조회 실패 -> 기존 링 유지", e);
+            return;
+        }
+
+        List<String> next = List.copyOf(ids);
+        if (next.equals(members)) return;
+
+        NavigableMap<Long, String> nextRing = new TreeMap<>();
+        for (String id : next) {
+            for (int v = 0; v < virtualNodes; v++) {
+                nextRing.put(hash(id + "#" + v), id);
+            }
+        }
+        ring = nextRing;
+        members = next;
+        log.info("라우팅 링 갱신: instances={}", next);
+    }
+
+    //MD5 앞 8바이트 (인스턴스 간 동일한 링을 만들기 위해 JVM 해시 대신 사용)
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) h = (h << 8) | (digest[i] & 0xff);
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //큐 이름/라우팅 키에 쓸 수 없는 문자 치환 (topic exchange의 '.' 구분자 포함)
+    private static String sanitize(String instanceId) {
+        return instanceId.replaceAll("[^A-Za-z0-9_-]", "-");
+    }
+}
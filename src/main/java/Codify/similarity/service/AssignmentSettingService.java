@@ -0,0 +1,57 @@
+package Codify.similarity.service;
+
+import Codify.similarity.domain.AssignmentSetting;
+import Codify.similarity.exception.ErrorCode;
+import Codify.similarity.exception.baseException.BaseException;
+import Codify.similarity.repository.AssignmentSettingRepository;
+import Codify.similarity.web.dto.TedModeResponseDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+//과제별 분석 설정 조회/변경 (설정이 없는 과제는 yml 기본값)
+//분석 실행은 시작할 때 한 번만 읽음 -> 변경은 다음 실행부터 적용
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AssignmentSettingService {
+
+    private final AssignmentSettingRepository repository;
+
+    @Value("${similarity.ted.mode:FULL}")
+    private AssignmentSetting.TedMode defaultTedMode;
+
+    @Transactional(readOnly = true)
+    public AssignmentSetting.TedMode tedMode(Long assignmentId) {
+        if (assignmentId == null) return defaultTedMode;
+        return repository.findById(assignmentId)
+                .map(AssignmentSetting::getTedMode)
+                .orElse(defaultTedMode);
+    }
+
+    @Transactional(readOnly = true)
+    public TedModeResponseDto tedModeOf(Long assignmentId) {
+        if (assignmentId == null) throw new BaseException(ErrorCode.INVALID_INPUT_VALUE);
+        return repository.findById(assignmentId)
+                .map(setting -> new TedModeResponseDto(assignmentId, setting.getTedMode(), true))
+                .orElseGet(() -> new TedModeResponseDto(assignmentId, defaultTedMode, false));
+    }
+
+    @Transactional
+    public TedModeResponseDto changeTedMode(Long assignmentId, AssignmentSetting.TedMode tedMode) {
+        if (assignmentId == null || tedMode == null) throw new BaseException(ErrorCode.INVALID_INPUT_VALUE);
+        repository.findById(assignmentId).ifPresentOrElse(
+                setting -> setting.changeTedMode(tedMode),
+                () -> repository.save(AssignmentSetting.builder()
+                        .assignmentId(assignmentId)
+                        .tedMode(tedMode)
+                        .updatedAt(LocalDateTime.now())
+                        .build()));
+        log.info("과제 TED 모드 변경: assignmentId={}, tedMode={}", assignmentId, tedMode);
+        return new TedModeResponseDto(assignmentId, tedMode, true);
+    }
+}
@@ -0,0 +1,80 @@
+package Codify.similarity.service;
+
+import Codify.similarity.model.TreeSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+//인스턴스 단위 디코딩 결과 캐시 (submissionId -> 타입 벡터 / TreeSnapshot)
+//스냅샷은 고정된 트리라 여러 분석 스레드가 그대로 공유
+//같은 과제가 같은 인스턴스로 라우팅되면(AssignmentRouter) 재분석 시 AST 디코딩을 건너뜀
+//제출물의 AST는 파싱 이후 바뀌지 않으므로 submissionId만으로 키를 잡음
+//루트 해시는 항목이 작아 트리보다 오래 보관 (트리가 밀려나도 중복 묶기에서 디코딩 없이 비교)
+@Component
+public class AstCache {
+
+    private final Map<Integer, Map<String, Integer>> vectors;
+    private final Map<Integer, TreeSnapshot> trees;
+    private final Map<Integer, Long> rootHashes;
+
+    public AstCache(@Value("${similarity.cache.max-entries:500}") int maxEntries,
+                    @Value("${similarity.cache.max-hash-entries:20000}") int maxHashEntries) {
+        this.vectors = lru(maxEntries);
+        this.trees = lru(maxEntries);
+        this.rootHashes = lru(maxHashEntries);
+    }
+
+    public Map<String, Integer> vector(Integer submissionId, Supplier<Map<String, Integer>> loader) {
+        return load(vectors, submissionId, loader);
+    }
+
+    public TreeSnapshot tree(Integer submissionId, Supplier<TreeSnapshot> loader) {
+        TreeSnapshot tree = load(trees, submissionId, loader);
+        synchronized (rootHashes) {
+            rootHashes.put(submissionId, tree.rootHash());
+        }
+        return tree;
+    }
+
+    //저장된 루트 해시, 없으면 트리를 읽어 계산 (loader는 트리 캐시를 거치는 로더)
+    public long rootHash(Integer submissionId, Supplier<TreeSnapshot> loader) {
+        synchronized (rootHashes) {
+            Long cached = rootHashes.get(submissionId);
+            if (cached != null) return cached;
+        }
+        return loader.get().rootHash();
+    }
+
+    public int size() {
+        synchronized (trees) {
+            return trees.size();
+        }
+    }
+
+    //디코딩은 락 밖에서 (같은 키를 동시에 디코딩하면 나중 값으로 덮어씀)
+    private static <V> V load(Map<Integer, V> cache, Integer key, Supplier<V> loader) {
+        synchronized (cache) {
+            V cached = cache.get(key);
+            if (cached != null) return cached;
+        }
+        V loaded = loader.get();
+        synchronized (cache) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    //접근 순서 LinkedHashMap -> 가장 오래 안 쓴 항목부터 제거
+    private static <V> Map<Integer, V> lru(int maxEntries) {
+        int capacity = Math.max(0, maxEntries);
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package Codify.similarity.service;
+
+import Codify.similarity.mongo.ResultDocReader;
+import Codify.similarity.mongo.SubmissionAstCount;
+import Codify.similarity.repository.ResultRepository;
+import Codify.similarity.repository.SubmissionDoneCount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// status 폴링 집계 엔진
+// 과제 단위로 Mongo $group 1회 + MySQL GROUP BY 1회만 조회하고 짧은 TTL 동안 캐시
+@Component
+@RequiredArgsConstructor
+public class BatchStatusEngine {
+    private final ResultDocReader resultDocRepository;
+    private final ResultRepository resultRepository;
+
+    @Value("${similarity.status.cache-ttl-ms:2000}")
+    private long cacheTtlMs;
+
+    private final ConcurrentMap<Integer, Snapshot> cache = new ConcurrentHashMap<>();
+
+    public Snapshot snapshot(final Integer assignmentId) {
+        var cached = cache.get(assignmentId);
+        if (cached != null && !cached.isExpired(cacheTtlMs)) return cached;
+
+        var loaded = load(assignmentId);
+        cache.put(assignmentId, loaded);
+        return loaded;
+    }
+
+    // 분석 시작 시 이전 집계가 남아있지 않도록 제거
+    public void evict(final Integer assignmentId) {
+        cache.remove(assignmentId);
+    }
+
+    private Snapshot load(final Integer assignmentId) {
+        var counts = resultDocRepository.aggregateAstCountsByAssignmentId(assignmentId);
+
+        Map<Integer, Integer> done = new HashMap<>();
+        for (SubmissionDoneCount row : resultRepository.countDoneGroupBySubmissionFromId(assignmentId.longValue())) {
+            done.put(Math.toIntExact(row.getSubmissionFromId()), Math.toIntExact(row.getDoneCount()));
+        }
+        return new Snapshot(counts, done, System.nanoTime());
+    }
+
+    // 과제 하나의 집계 결과 (submissionId 오름차순)
+    // total/skipped는 submissionId > from 구간의 suffix 합으로 계산
+    public static final class Snapshot {
+        private final int[] submissionIds;
+        private final int[] suffixWithAst;
+        private final int[] suffixWithoutAst;
+        private final Map<Integer, SubmissionAstCount> bySubmission;
+        private final Map<Integer, Integer> doneCounts;
+        private final long loadedAtNanos;
+
+        private Snapshot(List<SubmissionAstCount> counts, Map<Integer, Integer> doneCounts, long loadedAtNanos) {
+            var sorted = counts.stream()
+                    .filter(c -> c.submissionId() != null)
+                    .sorted(Comparator.comparingInt(SubmissionAstCount::submissionId))
+                    .toList();
+            int n = sorted.size();
+            this.submissionIds = new int[n];
+            this.suffixWithAst = new int[n + 1];
+            this.suffixWithoutAst = new int[n + 1];
+            this.bySubmission = new HashMap<>();
+            for (int i = n - 1; i >= 0; i--) {
+                var c = sorted.get(i);
+                submissionIds[i] = c.submissionId();
+                suffixWithAst[i] = suffixWithAst[i + 1] + c.withAst();
+                suffixWithoutAst[i] = suffixWithoutAst[i + 1] + c.withoutAst();
+                bySubmission.put(c.submissionId(), c);
+            }
+            this.doneCounts = doneCounts;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+
+        private boolean isExpired(long ttlMs) {
+            return System.nanoTime() - loadedAtNanos > ttlMs * 1_000_000L;
+        }
+
+        public boolean isEmpty() {
+            return submissionIds.length == 0;
+        }
+
+        public boolean contains(Integer submissionId) {
+            return bySubmission.containsKey(submissionId);
+        }
+
+        public Optional<Integer> studentIdOf(Integer submissionId) {
+            return Optional.ofNullable(bySubmission.get(submissionId)).map(SubmissionAstCount::studentId);
+        }
+
+        // AST 존재 & submissionId > from
+        public int total(Integer from) {
+            return suffixWithAst[firstGreaterThan(from)];
+        }
+
+        // AST 없어서 skip & submissionId > from
+        public int skipped(Integer from) {
+            return suffixWithoutAst[firstGreaterThan(from)];
+        }
+
+        public int done(Integer from) {
+            return doneCounts.getOrDefault(from, 0);
+        }
+
+        // AST 존재 & submissionId >= from 중 마지막을 제외한 목록 (determineStartSubmissions와 동일 규칙)
+        public List<Integer> startSubmissionsFrom(Integer from) {
+            var expanded = new ArrayList<Integer>();
+            for (int i = firstGreaterThan(from - 1); i < submissionIds.length; i++) {
+                if (bySubmission.get(submissionIds[i]).withAst() > 0) expanded.add(submissionIds[i]);
+            }
+            return (expanded.size() <= 1) ? List.of() : expanded.subList(0, expanded.size() - 1);
+        }
+
+        private int firstGreaterThan(int from) {
+            int lo = 0, hi = submissionIds.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (submissionIds[mid] > from) hi = mid;
+                else lo = mid + 1;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.UnionFind;
+import Codify.similarity.domain.Result;
+import Codify.similarity.exception.ErrorCode;
+import Codify.similarity.exception.baseException.BaseException;
+import Codify.similarity.repository.ResultEdge;
+import Codify.similarity.repository.ResultRepository;
+import Codify.similarity.web.dto.ClusterResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//과제별 유사 학생 클러스터 (accumulateResult >= threshold 페어의 연결 요소)
+//- 결과 저장(커밋) 시 union-find를 증분 갱신
+//- edge-floor 이상 페어는 압축 edge 목록(학생 인덱스 배열 + 점수)으로 보관
+//  -> 임계값이 바뀌면 재분석 없이 edge 목록만 다시 훑어 재계산
+//- 다른 인스턴스가 저장한 결과는 증분 반영되지 않으므로 ttl-ms가 지나면 DB에서 다시 적재
+//  (그룹 완료 시에도 무효화), 메모리에는 최근 조회한 과제 max-assignments개까지만 보관
+@Slf4j
+@Service
+public class ClusterService {
+
+    private final ResultRepository resultRepository;
+    private final double edgeFloor;
+    private final double defaultThreshold;
+    private final long ttlMs;
+    private final int maxAssignments;
+
+    private final ConcurrentMap<Long, Entry> byAssignment = new ConcurrentHashMap<>();
+
+    public ClusterService(ResultRepository resultRepository,
+                          @Value("${similarity.cluster.edge-floor:0.5}") double edgeFloor,
+                          @Value("${similarity.cluster.threshold:0.8}") double defaultThreshold,
+                          @Value("${similarity.cluster.ttl-ms:600000}") long ttlMs,
+                          @Value("${similarity.cluster.max-assignments:200}") int maxAssignments) {
+        this.resultRepository = resultRepository;
+        this.edgeFloor = edgeFloor;
+        this.defaultThreshold = Math.max(edgeFloor, defaultThreshold);
+        this.ttlMs = ttlMs;
+        this.maxAssignments = Math.max(1, maxAssignments);
+    }
+
+    public double defaultThreshold() {
+        return defaultThreshold;
+    }
+
+    //저장된 결과 반영 (트랜잭션 안이면 커밋 이후)
+    //아직 메모리에 올라오지 않은 과제는 무시 -> 처음 조회할 때 DB에서 적재
+    //적재 중인 과제에도 반영 (적재 쿼리와 겹친 결과는 edge가 중복될 수 있지만 연결 요소/최대 점수는 같음)
+    public void onPersisted(List<Result> results) {
+        if (results.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Result> committed = List.copyOf(results);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(committed);
+                }
+            });
+        } else {
+            apply(results);
+        }
+    }
+
+    private void apply(List<Result> results) {
+        for (Result result : results) {
+            Entry entry = byAssignment.get(result.getAssignmentId());
+            if (entry == null || result.getAccumulateResult() < edgeFloor) continue;
+            entry.clusters.addEdge(result.getStudentFromId(), result.getStudentToId(), result.getAccumulateResult());
+        }
+    }
+
+    //threshold가 현재 값과 다르면 edge 목록에서 재계산
+    public ClusterResponseDto clusters(Long assignmentId, Double threshold) {
+        double t = threshold == null ? defaultThreshold : threshold;
+        if (assignmentId == null || t < edgeFloor || t > 1.0) {
+            throw new BaseException(ErrorCode.INVALID_INPUT_VALUE);
+        }
+        long now = System.currentTimeMillis();
+        Entry fresh = new Entry(new AssignmentClusters(defaultThreshold), now);
+        Entry entry = byAssignment.compute(assignmentId,
+                (id, old) -> old == null || old.expired(now, ttlMs) ? fresh : old);
+        if (entry == fresh) {
+            load(assignmentId, fresh);
+            trim();
+        } else {
+            await(entry);
+        }
+        entry.lastAccess = now;
+        return new ClusterResponseDto(assignmentId, t, entry.clusters.components(t));
+    }
+
+    //그룹 완료 시 호출 (다른 인스턴스가 저장한 블록 결과까지 다음 조회에서 다시 적재)
+    public void evict(Long assignmentId) {
+        byAssignment.remove(assignmentId);
+    }
+
+    //맵에 먼저 넣은 뒤 조회 -> 쿼리 도중 커밋된 결과도 apply로 반영됨
+    private void load(Long assignmentId, Entry entry) {
+        try {
+            List<ResultEdge> edges = resultRepository.findEdges(assignmentId, edgeFloor);
+            for (ResultEdge edge : edges) {
+                entry.clusters.addEdge(edge.getStudentFromId(), edge.getStudentToId(), edge.getAccumulateResult());
+            }
+            entry.loaded.complete(null);
+            log.info("클러스터 적재: assignmentId={}, edges={}", assignmentId, edges.size());
+        } catch (RuntimeException e) {
+            byAssignment.remove(assignmentId, entry);
+            entry.loaded.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    //다른 요청이 적재 중이면 끝날 때까지 대기
+    private static void await(Entry entry) {
+        try {
+            entry.loaded.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    //max-assignments 초과 시 가장 오래 조회되지 않은 과제부터 제거
+    private void trim() {
+        while (byAssignment.size() > maxAssignments) {
+            Map.Entry<Long, Entry> oldest = null;
+            for (Map.Entry<Long, Entry> e : byAssignment.entrySet()) {
+                if (oldest == null || e.getValue().lastAccess < oldest.getValue().lastAccess) oldest = e;
+            }
+            if (oldest == null) return;
+            byAssignment.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private static final class Entry {
+        private final AssignmentClusters clusters;
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        Entry(AssignmentClusters clusters, long now) {
+            this.clusters = clusters;
+            this.loadedAt = now;
+            this.lastAccess = now;
+        }
+
+        // ttl <= 0이면 만료 없음
+        boolean expired(long now, long ttlMs) {
+            return ttlMs > 0 && now - loadedAt >= ttlMs;
+        }
+    }
+
+    //과제 하나의 클러스터 상태 (this로 보호)
+    private static final class AssignmentClusters {
+        private final Map<Long, Integer> indexOf = new HashMap<>();
+        private final List<Long> studentIds = new ArrayList<>();
+        // 압축 edge 목록: (from[i], to[i], score[i])
+        private int[] from = new int[64];
+        private int[] to = new int[64];
+        private float[] score = new float[64];
+        private int edgeCount;
+
+        private double threshold;
+        private UnionFind uf = new UnionFind(64);
+
+        AssignmentClusters(double threshold) {
+            this.threshold = threshold;
+        }
+
+        synchronized void addEdge(Long a, Long b, double s) {
+            int ia = node(a), ib = node(b);
+            if (edgeCount == from.length) {
+                from = Arrays.copyOf(from, edgeCount * 2);
+                to = Arrays.copyOf(to, edgeCount * 2);
+                score = Arrays.copyOf(score, edgeCount * 2);
+            }
+            from[edgeCount] = ia;
+            to[edgeCount] = ib;
+            score[edgeCount] = (float) s;
+            if (score[edgeCount++] >= threshold) uf.union(ia, ib);
+        }
+
+        synchronized List<ClusterResponseDto.Cluster> components(double t) {
+            if (t != threshold) rebuild(t);
+
+            Map<Integer, List<Long>> members = new HashMap<>();
+            for (int i = 0; i < studentIds.size(); i++) {
+                if (uf.componentSize(i) < 2) continue;
+                members.computeIfAbsent(uf.find(i), r -> new ArrayList<>()).add(studentIds.get(i));
+            }
+            Map<Integer, Double> maxScore = new HashMap<>();
+            for (int e = 0; e < edgeCount; e++) {
+                if (score[e] < t) continue;
+                maxScore.merge(uf.find(from[e]), (double) score[e], Math::max);
+            }
+
+            List<ClusterResponseDto.Cluster> clusters = new ArrayList<>();
+            for (var entry : members.entrySet()) {
+                List<Long> ids = entry.getValue();
+                Collections.sort(ids);
+                clusters.add(new ClusterResponseDto.Cluster(ids.size(), ids,
+                        maxScore.getOrDefault(entry.getKey(), 0.0)));
+            }
+            clusters.sort(Comparator.comparingInt(ClusterResponseDto.Cluster::size).reversed()
+                    .thenComparing(c -> c.studentIds().get(0)));
+            return clusters;
+        }
+
+        //임계값 변경: edge 목록 한 번 훑어 union-find 재구성 (O(E α(V)))
+        private void rebuild(double t) {
+            UnionFind next = new UnionFind(studentIds.size());
+            for (int i = 0; i < studentIds.size(); i++) next.add();
+            for (int e = 0; e < edgeCount; e++) {
+                if (score[e] >= t) next.union(from[e], to[e]);
+            }
+            uf = next;
+            threshold = t;
+        }
+
+        private int node(Long studentId) {
+            Integer index = indexOf.get(studentId);
+            if (index != null) return index;
+            int added = uf.add();
+            indexOf.put(studentId, added);
+            studentIds.add(studentId);
+            return added;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package Codify.similarity.service;
+
+import Codify.similarity.domain.PairBlock;
+import Codify.similarity.domain.ShardRun;
+import Codify.similarity.mongo.ResultDoc;
+import Codify.similarity.repository.PairBlockRepository;
+import Codify.similarity.repository.ShardRunRepository;
+import Codify.similarity.web.dto.MessageDto;
+import Codify.similarity.web.dto.PairBlockTask;
+import Codify.similarity.web.dto.ProcessResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//큰 그룹의 상삼각 페어 행렬을 블록으로 나눠 similarity.block 큐로 분산
+//어느 인스턴스든 블록을 소비하고, 마지막 블록을 커밋한 쪽이 SIMILARITY_COMPLETED를 한 번만 발행
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PairBlockService {
+
+    private final SimilarityService similarityService;
+    private final ShardRunRepository shardRunRepository;
+    private final PairBlockRepository pairBlockRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final SseEventPublisher sseEventPublisher;
+
+    @Value("${similarity.sharding.enabled:false}")
+    private boolean enabled;
+
+    //블록 한 변의 제출물 수 (블록당 최대 blockSize^2 페어)
+    @Value("${similarity.sharding.block-size:200}")
+    private int blockSize;
+
+    //블록으로 나눌 그룹인지 (블록 하나에 다 들어가면 기존 단일 JVM 경로)
+    public boolean shouldShard(MessageDto message) {
+        return enabled && message.getSubmissionIds() != null
+                && message.getSubmissionIds().size() > blockSize;
+    }
+
+    //코디네이터: 실행 기록 후 블록 태스크 발행
+    //진행 중인 실행이 있으면(코디네이터 메시지 재전달) 아직 끝나지 않은 블록만 재발행
+    //마지막 실행이 완료/실패했으면 같은 groupId라도 새 실행 (재분석)
+    //실행 기록은 발행 전에 커밋 (워커가 블록을 받았을 때 실행이 보여야 함)
+    public void coordinate(MessageDto message) {
+        List<Long> submissionIds = similarityService.fetchDocs(message.getAssignmentId(), message.getSubmissionIds())
+                .stream()
+                .map(doc -> doc.getSubmissionId().longValue())
+                .toList();
+
+        Optional<ShardRun> latest = shardRunRepository.findFirstByGroupIdOrderByRunNoDesc(message.getGroupId());
+        ShardRun run;
+        if (latest.isPresent() && latest.get().isOpen()) {
+            run = latest.get();
+        } else {
+            run = shardRunRepository.save(ShardRun.builder()
+                    .groupId(message.getGroupId())
+                    .runNo(latest.map(r -> r.getRunNo() + 1).orElse(1))
+                    .assignmentId(message.getAssignmentId())
+                    .totalBlocks(blockCount(submissionIds.size()))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        List<PairBlockTask> tasks = plan(message, run.getShardRunId(), submissionIds);
+
+        Set<Integer> done = pairBlockRepository.findAllByShardRunId(run.getShardRunId()).stream()
+                .map(PairBlock::getBlockIndex)
+                .collect(Collectors.toSet());
+        int published = 0;
+        for (PairBlockTask task : tasks) {
+            if (done.contains(task.blockIndex())) continue;
+            rabbitTemplate.convertAndSend("codifyExchange", "similarity.block", task);
+            published++;
+        }
+        log.info("블록 분석 시작: groupId={}, run={}, submissions={}, blocks={}, published={}",
+                message.getGroupId(), run.getRunNo(), submissionIds.size(), tasks.size(), published);
+
+        // 모든 블록이 이미 끝나 있었으면 (완료 발행 직전 장애 등) 여기서 마무리
+        if (published == 0) completeIfDone(run.getShardRunId(), message);
+    }
+
+    private int blockCount(int n) {
+        int k = Math.max(1, (n + Math.max(1, blockSize) - 1) / Math.max(1, blockSize));
+        return k * (k + 1) / 2;
+    }
+
+    //정렬된 제출물의 상삼각 행렬을 blockSize x blockSize 블록으로 분할 (행 블록 r <= 열 블록 c)
+    List<PairBlockTask> plan(MessageDto message, Long shardRunId, List<Long> sortedSubmissionIds) {
+        int n = sortedSubmissionIds.size();
+        int size = Math.max(1, blockSize);
+        int k = Math.max(1, (n + size - 1) / size);
+        int total = blockCount(n);
+
+        List<PairBlockTask> tasks = new ArrayList<>(total);
+        int index = 0;
+        for (int r = 0; r < k; r++) {
+            List<Long> rows = List.copyOf(sortedSubmissionIds.subList(r * size, Math.min(n, (r + 1) * size)));
+            for (int c = r; c < k; c++) {
+                List<Long> cols = c == r
+                        ? rows
+                        : List.copyOf(sortedSubmissionIds.subList(c * size, Math.min(n, (c + 1) * size)));
+                tasks.add(new PairBlockTask(message, shardRunId, index++, total, rows, cols, c == r));
+            }
+        }
+        return tasks;
+    }
+
+    //블록 하나 분석 + 결과/블록 완료 기록을 한 트랜잭션으로 커밋
+    //이미 기록된 블록(재전달)이거나 실행이 실패로 끝났으면 건너뜀
+    //행/열 제출물만 조회 (대각 블록은 한 번)
+    @Transactional
+    public void analyzeBlock(PairBlockTask task) {
+        MessageDto source = task.source();
+        if (pairBlockRepository.existsByShardRunIdAndBlockIndex(task.shardRunId(), task.blockIndex())) {
+            log.info("이미 처리된 블록: groupId={}, block={}", source.getGroupId(), task.blockIndex());
+            return;
+        }
+        if (shardRunRepository.findById(task.shardRunId()).map(run -> run.getFailedAt() != null).orElse(true)) {
+            log.info("실패/삭제된 실행의 블록은 건너뜀: groupId={}, block={}", source.getGroupId(), task.blockIndex());
+            return;
+        }
+
+        List<ResultDoc> rows = similarityService.fetchDocs(source.getAssignmentId(), task.rowSubmissionIds());
+        List<ResultDoc> cols = task.diagonal()
+                ? rows
+                : similarityService.fetchDocs(source.getAssignmentId(), task.colSubmissionIds());
+
+        ProcessResult processed = similarityService.analyzePairs(rows, cols, task.diagonal(), source.getAssignmentId(),
+                source.getSubmissionIds().size());
+        similarityService.persistResults(processed);
+
+        pairBlockRepository.save(PairBlock.builder()
+                .shardRunId(task.shardRunId())
+                .groupId(source.getGroupId())
+                .blockIndex(task.blockIndex())
+                .pairCount(processed.results().size())
+                .completedAt(LocalDateTime.now())
+                .build());
+        log.info("블록 완료: groupId={}, block={}/{}, pairs={}",
+                source.getGroupId(), task.blockIndex() + 1, task.totalBlocks(), processed.results().size());
+    }
+
+    //블록 커밋 이후 호출 (커밋된 블록 수 기준으로 판정)
+    //조건부 update에 성공한 호출 한 번만 완료 이벤트 발행
+    @Transactional
+    public boolean completeIfDone(Long shardRunId, MessageDto source) {
+        if (shardRunRepository.markCompleted(shardRunId, LocalDateTime.now()) != 1) {
+            return false;
+        }
+        log.info("모든 블록 완료: groupId={}", source.getGroupId());
+        similarityService.publishCompleted(source);
+        return true;
+    }
+
+    //재시도를 모두 소진한 블록: 실행을 실패로 기록하고 한 번만 알림 (남은 블록은 analyzeBlock에서 건너뜀)
+    @Transactional
+    public void fail(PairBlockTask task, Exception cause) {
+        MessageDto source = task.source();
+        if (shardRunRepository.markFailed(task.shardRunId(), LocalDateTime.now()) != 1) {
+            return;
+        }
+        log.error("블록 분석 실패로 실행 중단: groupId={}, block={}", source.getGroupId(), task.blockIndex(), cause);
+        sseEventPublisher.publishError(source.getGroupId(), "유사도 분석에 실패했습니다.");
+    }
+}
@@ -0,0 +1,11 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.TreeMatcher;
+
+import java.util.List;
+
+//페어 한 쌍의 계산 결과 (Result/Codeline은 실제 제출물 id로 따로 생성)
+//similarity: 코사인 임계값 미만이면 null
+//segments: 매칭 라인 세그먼트, lazy 모드에서 계산하지 않았으면 null
+record PairOutcome(Double similarity, List<TreeMatcher.Seg> segments) {
+}
@@ -0,0 +1,288 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.PairMatcher;
+import Codify.similarity.core.TreeMatcher;
+import Codify.similarity.domain.AssignmentSetting.TedMode;
+import Codify.similarity.domain.PairResultCache;
+import Codify.similarity.model.TreeSnapshot;
+import Codify.similarity.mongo.ResultDoc;
+import Codify.similarity.repository.PairResultCacheRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//AST 내용 해시 기반 페어 결과 캐시 (MySQL PairResultCache)
+//재제출/재분석 시 같은 두 AST 페어는 TED/매칭 없이 저장된 결과 사용
+//코사인 임계값을 넘은 페어만 대상 (코사인은 벡터만으로 싸게 계산)
+//조회는 행(from 제출물) 단위로 그 행의 코사인 통과 상대만, 저장은 체크포인트 flush마다 (실패해도 분석은 계속)
+//키는 64비트 해시, 사용 전 양쪽 SHA-256 다이제스트가 같은지 확인 (해시 충돌이면 계산하고 저장하지 않음)
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PairResultCacheService {
+
+    //점수/매칭 로직(코사인 임계값, TED, TreeMatcher)이 바뀌면 올림 -> 이전 버전 결과는 조회되지 않고 시작 시 삭제
+    static final int SCORE_VERSION = 1;
+    //IN 절 하나에 넣는 해시 수
+    private static final int LOOKUP_CHUNK = 500;
+    private static final int SAVE_CHUNK = 1000;
+    private static final int PRUNE_CHUNK = 5000;
+
+    private final PairResultCacheRepository repository;
+    private final SimilarityMetrics metrics;
+
+    @Value("${similarity.pair-cache.enabled:true}")
+    private boolean enabled;
+
+    //이전 scoreVersion 행 삭제 (조회되지 않는 행, 여러 인스턴스가 동시에 지워도 무방)
+    @EventListener(ApplicationReadyEvent.class)
+    public void pruneOldVersions() {
+        if (!enabled) return;
+        long deleted = 0;
+        try {
+            int batch;
+            do {
+                batch = repository.deleteOlderVersions(SCORE_VERSION, PRUNE_CHUNK);
+                deleted += batch;
+            } while (batch == PRUNE_CHUNK);
+        } catch (DataAccessException e) {
+            log.warn("이전 버전 페어 결과 캐시 삭제 실패 ({}개 삭제 후 중단)", deleted, e);
+            return;
+        }
+        if (deleted > 0) log.info("이전 버전 페어 결과 캐시 {}개 삭제 (현재 버전 {})", deleted, SCORE_VERSION);
+    }
+
+    //실행 단위 캐시 열기 (trees: 제출물 트리 로더, 비활성이면 항상 계산)
+    //segmentsRequired: 세그먼트 없이 저장된 결과(lazy 모드)를 다시 계산해 채울지
+    //matcher: 이번 실행의 매칭 구현 (키에 포함, 세그먼트가 필요 없으면 다른 구현으로 저장된 행의 점수도 사용)
+    //여기서는 아무것도 읽지 않음 (내용 해시는 행 조회 때 필요한 제출물만 계산)
+    Session open(Map<Integer, Map<String, Integer>> vectors,
+                 Function<ResultDoc, TreeSnapshot> trees,
+                 boolean segmentsRequired,
+                 PairMatcher.Engine matcher) {
+        return new Session(vectors, trees, segmentsRequired, matcher);
+    }
+
+    //이름 정규화 트리 해시 + 타입 벡터 (코사인 입력까지 같아야 결과가 같음)
+    //HashMap.hashCode는 (String, Integer) 항목 해시의 합이라 인스턴스/재시작과 무관하게 같음
+    static long contentHash(TreeSnapshot tree, Map<String, Integer> vector) {
+        return tree.rootHash() * 31 + Objects.hashCode(vector);
+    }
+
+    //contentHash와 같은 내용(전위 순서 라벨/라인/자식 수 + 정렬한 타입 벡터)의 SHA-256
+    static byte[] contentDigest(TreeSnapshot tree, Map<String, Integer> vector) {
+        MessageDigest digest = sha256();
+        ByteBuffer ints = ByteBuffer.allocate(8);
+        for (int i = 0; i < tree.nodeCount(); i++) {
+            putString(digest, tree.label(i));
+            digest.update(ints.clear().putInt(tree.line(i)).putInt(tree.childCount(i)).array());
+        }
+        if (vector != null) {
+            for (var entry : new TreeMap<>(vector).entrySet()) {
+                putString(digest, entry.getKey());
+                digest.update(ByteBuffer.allocate(4).putInt(entry.getValue() != null ? entry.getValue() : 0).array());
+            }
+        }
+        return digest.digest();
+    }
+
+    //길이(-1 = null) + UTF-8 바이트
+    private static void putString(MessageDigest digest, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(value == null ? -1 : bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Content(long hash, byte[] digest) {}
+
+    private record Key(long fromHash, long toHash, TedMode engine, PairMatcher.Engine matcher) {}
+
+    //id: 저장된 행 (null이면 새 행)
+    private record Pending(Long id, byte[] fromDigest, byte[] toDigest, PairOutcome outcome) {}
+
+    final class Session {
+        private final Map<Integer, Map<String, Integer>> vectors;
+        private final Function<ResultDoc, TreeSnapshot> trees;
+        private final boolean segmentsRequired;
+        private final PairMatcher.Engine matcher;
+        private final Map<Integer, Content> contents = new ConcurrentHashMap<>();
+        //마지막 save 이후 새로 계산한 결과 (세그먼트를 채운 기존 행은 갱신)
+        private final Map<Key, Pending> computed = new ConcurrentHashMap<>();
+
+        private Session(Map<Integer, Map<String, Integer>> vectors, Function<ResultDoc, TreeSnapshot> trees,
+                        boolean segmentsRequired, PairMatcher.Engine matcher) {
+            this.vectors = vectors;
+            this.trees = trees;
+            this.segmentsRequired = segmentsRequired;
+            this.matcher = matcher;
+        }
+
+        //from 행의 저장된 결과 조회 (candidates: 코사인을 통과한 상대, 이 행의 (fromHash, toHash IN) 한 번)
+        Row row(ResultDoc from, List<ResultDoc> candidates) {
+            if (!enabled || candidates.isEmpty()) return new Row(null, Map.of());
+            Content fromContent = content(from);
+            Set<Long> toHashes = new HashSet<>();
+            for (ResultDoc to : candidates) toHashes.add(content(to).hash());
+
+            Map<Key, PairResultCache> hits = new HashMap<>();
+            try {
+                List<Long> values = new ArrayList<>(toHashes);
+                for (int i = 0; i < values.size(); i += LOOKUP_CHUNK) {
+                    for (PairResultCache row : repository.findAllByScoreVersionAndFromHashAndToHashIn(
+                            SCORE_VERSION, fromContent.hash(), values.subList(i, Math.min(values.size(),
+                                    i + LOOKUP_CHUNK)))) {
+                        TedMode engine = row.getTedMode() != null ? row.getTedMode() : TedMode.FULL;
+                        hits.put(new Key(row.getFromHash(), row.getToHash(), engine, matcherOf(row)), row);
+                    }
+                }
+            } catch (DataAccessException e) {
+                // 캐시 조회 실패는 이 행 전부 계산으로 대체
+                log.warn("페어 결과 캐시 조회 실패 - 행 전체 계산으로 진행: submissionId={}", from.getSubmissionId(), e);
+                hits.clear();
+            }
+            return new Row(fromContent, hits);
+        }
+
+        private Content content(ResultDoc doc) {
+            return contents.computeIfAbsent(doc.getSubmissionId(), id -> {
+                TreeSnapshot tree = trees.apply(doc);
+                Map<String, Integer> vector = vectors.get(id);
+                return new Content(contentHash(tree, vector), contentDigest(tree, vector));
+            });
+        }
+
+        //행 하나의 조회 결과 (행 처리가 끝나면 버림)
+        final class Row {
+            private final Content from;
+            private final Map<Key, PairResultCache> hits;
+
+            private Row(Content from, Map<Key, PairResultCache> hits) {
+                this.from = from;
+                this.hits = hits;
+            }
+
+            //저장된 결과가 있으면 사용, 없으면 계산 후 저장 대상에 추가 (engine: 이 페어에 쓰는 TED 엔진)
+            //세그먼트가 필요 없으면(lazy) 다른 매칭 구현의 행도 점수로 사용 (점수는 매칭 구현과 무관)
+            PairOutcome outcome(ResultDoc toDoc, TedMode engine, Supplier<PairOutcome> compute) {
+                if (from == null) return compute.get();
+                Content to = content(toDoc);
+                Key key = new Key(from.hash(), to.hash(), engine, matcher);
+                PairResultCache hit = hits.get(key);
+                if (verified(hit, to)) {
+                    List<TreeMatcher.Seg> segments = decode(hit.getSegments());
+                    if (segments != null || !segmentsRequired) {
+                        metrics.countPairCache(true);
+                        return new PairOutcome(hit.getSimilarity(), segments);
+                    }
+                } else if (!segmentsRequired) {
+                    for (PairMatcher.Engine other : PairMatcher.Engine.values()) {
+                        PairResultCache scored = hits.get(new Key(from.hash(), to.hash(), engine, other));
+                        if (other != matcher && verified(scored, to)) {
+                            metrics.countPairCache(true);
+                            return new PairOutcome(scored.getSimilarity(), null);
+                        }
+                    }
+                }
+                metrics.countPairCache(false);
+
+                // 다이제스트가 없는 행(이전 형식)은 계산 후 같은 행에 채움, 다르면 해시 충돌 -> 계산만 하고 저장하지 않음
+                PairOutcome outcome = compute.get();
+                boolean collision = hit != null && hit.getFromDigest() != null && !verified(hit, to);
+                if (!collision) {
+                    computed.putIfAbsent(key, new Pending(hit != null ? hit.getPairResultCacheId() : null,
+                            from.digest(), to.digest(), outcome));
+                }
+                return outcome;
+            }
+
+            private boolean verified(PairResultCache hit, Content to) {
+                return hit != null && Arrays.equals(hit.getFromDigest(), from.digest())
+                        && Arrays.equals(hit.getToDigest(), to.digest());
+            }
+        }
+
+        //새로 계산한 결과 일괄 저장 (체크포인트 flush마다 + 실행 끝, 다른 실행이 먼저 저장한 키와 겹치면 해당 묶음만 건너뜀)
+        //키 단위로 꺼내므로 저장 중에 다른 행이 추가한 결과는 다음 save에서 저장
+        void save() {
+            if (computed.isEmpty()) return;
+            LocalDateTime now = LocalDateTime.now();
+            List<PairResultCache> rows = new ArrayList<>();
+            for (Key key : computed.keySet()) {
+                Pending pending = computed.remove(key);
+                if (pending == null) continue;
+                rows.add(PairResultCache.builder()
+                        .pairResultCacheId(pending.id())
+                        .fromHash(key.fromHash())
+                        .toHash(key.toHash())
+                        .fromDigest(pending.fromDigest())
+                        .toDigest(pending.toDigest())
+                        .scoreVersion(SCORE_VERSION)
+                        .tedMode(key.engine())
+                        .matcher(key.matcher())
+                        .similarity(pending.outcome().similarity())
+                        .segments(encode(pending.outcome().segments()))
+                        .createdAt(now)
+                        .build());
+            }
+
+            int saved = 0;
+            for (int i = 0; i < rows.size(); i += SAVE_CHUNK) {
+                List<PairResultCache> chunk = rows.subList(i, Math.min(rows.size(), i + SAVE_CHUNK));
+                try {
+                    repository.saveAll(chunk);
+                    saved += chunk.size();
+                } catch (DataAccessException e) {
+                    log.warn("페어 결과 캐시 저장 실패 - {}개 건너뜀", chunk.size(), e);
+                }
+            }
+            log.info("페어 결과 캐시 저장: {}/{}개", saved, rows.size());
+        }
+    }
+
+    private static PairMatcher.Engine matcherOf(PairResultCache row) {
+        return row.getMatcher() != null ? row.getMatcher() : PairMatcher.Engine.TED;
+    }
+
+    //null(세그먼트 미계산)은 null로, 빈 목록은 빈 배열로 저장
+    static byte[] encode(List<TreeMatcher.Seg> segments) {
+        if (segments == null) return null;
+        ByteBuffer buffer = ByteBuffer.allocate(segments.size() * 16);
+        for (TreeMatcher.Seg seg : segments) {
+            buffer.putInt(seg.fs()).putInt(seg.fe()).putInt(seg.ts()).putInt(seg.te());
+        }
+        return buffer.array();
+    }
+
+    static List<TreeMatcher.Seg> decode(byte[] bytes) {
+        if (bytes == null) return null;
+        if (bytes.length == 0) return Collections.emptyList();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        List<TreeMatcher.Seg> segments = new ArrayList<>(bytes.length / 16);
+        while (buffer.remaining() >= 16) {
+            segments.add(new TreeMatcher.Seg(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()));
+        }
+        return segments;
+    }
+}
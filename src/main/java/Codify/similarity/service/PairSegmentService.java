@@ -0,0 +1,145 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.TreeMatcher;
+import Codify.similarity.domain.Codeline;
+import Codify.similarity.domain.Result;
+import Codify.similarity.exception.ErrorCode;
+import Codify.similarity.exception.baseException.BaseException;
+import Codify.similarity.exception.resultexception.ResultNotFoundException;
+import Codify.similarity.repository.CodelineRepository;
+import Codify.similarity.repository.ResultRepository;
+import Codify.similarity.web.dto.PairCodelinesResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+//페어 상세(매칭 라인) 조회
+//lazy 모드(similarity.segments.lazy)에서는 그룹 분석이 점수만 저장 -> 처음 조회할 때 세그먼트를 계산해 Codeline으로 저장
+//계산한 페어는 Result.segmentsComputed로 표시 (세그먼트가 없는 페어도 재시작 후 다시 계산하지 않음)
+//응답은 resultId 단위 LRU로 캐시
+//같은 resultId 동시 조회는 한 번만 계산 (Codeline 삭제/저장이 겹치지 않도록)
+//precompute-top > 0이면 분석 완료 후 유사도 상위 페어를 저우선순위 풀에서 미리 계산
+@Slf4j
+@Service
+public class PairSegmentService {
+
+    private final ResultRepository resultRepository;
+    private final CodelineRepository codelineRepository;
+    private final CodelineService codelineService;
+    private final SimilarityService similarityService;
+    private final ThreadPoolTaskExecutor segmentExecutor;
+    private final boolean lazy;
+    private final int precomputeTop;
+
+    private final Map<Long, PairCodelinesResponseDto> computed;
+    private final Map<Long, CompletableFuture<PairCodelinesResponseDto>> inFlight = new ConcurrentHashMap<>();
+
+    public PairSegmentService(ResultRepository resultRepository,
+                              CodelineRepository codelineRepository,
+                              CodelineService codelineService,
+                              SimilarityService similarityService,
+                              @Qualifier("segmentExecutor") ThreadPoolTaskExecutor segmentExecutor,
+                              @Value("${similarity.segments.lazy:false}") boolean lazy,
+                              @Value("${similarity.segments.precompute-top:0}") int precomputeTop,
+                              @Value("${similarity.segments.cache-entries:1000}") int cacheEntries) {
+        this.resultRepository = resultRepository;
+        this.codelineRepository = codelineRepository;
+        this.codelineService = codelineService;
+        this.similarityService = similarityService;
+        this.segmentExecutor = segmentExecutor;
+        this.lazy = lazy;
+        this.precomputeTop = precomputeTop;
+        int capacity = Math.max(0, cacheEntries);
+        this.computed = Collections.synchronizedMap(new LinkedHashMap<Long, PairCodelinesResponseDto>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PairCodelinesResponseDto> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    //결과 한 건의 매칭 라인 (lazy 모드면 없을 때 계산 후 저장)
+    public PairCodelinesResponseDto codelines(final Long resultId) {
+        if (resultId == null) throw new BaseException(ErrorCode.INVALID_INPUT_VALUE);
+        PairCodelinesResponseDto cached = computed.get(resultId);
+        if (cached != null) return cached;
+
+        CompletableFuture<PairCodelinesResponseDto> mine = new CompletableFuture<>();
+        CompletableFuture<PairCodelinesResponseDto> running = inFlight.putIfAbsent(resultId, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+
+        try {
+            PairCodelinesResponseDto loaded = load(resultId);
+            // 제출물 AST는 바뀌지 않으므로 계산한 결과는 그대로 유지 (eager 모드는 Codeline 조회만 하므로 캐시 안 함)
+            if (lazy) computed.put(resultId, loaded);
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(resultId, mine);
+        }
+    }
+
+    //분석 완료 후 상위 페어 미리 계산 (lazy 모드 + precompute-top > 0일 때만, 풀이 가득 차면 건너뜀)
+    public void precomputeTop(final Long assignmentId) {
+        if (!lazy || precomputeTop <= 0 || assignmentId == null) return;
+        segmentExecutor.execute(() -> {
+            try {
+                for (Result result : resultRepository.findByAssignmentIdOrderByAccumulateResultDesc(
+                        assignmentId, PageRequest.of(0, precomputeTop))) {
+                    codelines(result.getId());
+                }
+            } catch (Exception e) {
+                log.warn("상위 페어 세그먼트 미리 계산 실패: assignmentId={}", assignmentId, e);
+            }
+        });
+    }
+
+    private PairCodelinesResponseDto load(Long resultId) {
+        Result result = resultRepository.findById(resultId).orElseThrow(ResultNotFoundException::new);
+        List<Codeline> rows = codelineRepository.findAllByResultIdOrderByStartLineAsc(resultId);
+
+        // 저장된 라인이 없고 아직 계산하지 않은 페어만 lazy 모드에서 계산
+        // (eager 모드는 분석 시 이미 저장, 계산했는데 라인이 없으면 매칭 없음)
+        if (rows.isEmpty() && lazy && !result.isSegmentsComputed()) {
+            List<TreeMatcher.Seg> segments = similarityService.computeSegments(result);
+            if (!segments.isEmpty()) {
+                codelineService.saveMergedRanges(resultId, result.getStudentFromId(), result.getStudentToId(), segments);
+                rows = codelineRepository.findAllByResultIdOrderByStartLineAsc(resultId);
+            }
+            // 빈 결과도 기록 (LRU에서 밀려나거나 재시작해도 다시 계산하지 않음)
+            result.markSegmentsComputed();
+            resultRepository.save(result);
+            log.debug("세그먼트 계산: resultId={}, segments={}", resultId, segments.size());
+        }
+        return toDto(result, rows);
+    }
+
+    private static PairCodelinesResponseDto toDto(Result result, List<Codeline> rows) {
+        List<PairCodelinesResponseDto.LineRange> from = new ArrayList<>();
+        List<PairCodelinesResponseDto.LineRange> to = new ArrayList<>();
+        for (Codeline row : rows) {
+            var range = new PairCodelinesResponseDto.LineRange(row.getStartLine(), row.getEndLine());
+            (Objects.equals(row.getStudentId(), result.getStudentFromId()) ? from : to).add(range);
+        }
+        return new PairCodelinesResponseDto(result.getId(), result.getStudentFromId(), result.getStudentToId(),
+                from, to);
+    }
+}
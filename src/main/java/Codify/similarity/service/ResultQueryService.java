@@ -0,0 +1,72 @@
+package Codify.similarity.service;
+
+import Codify.similarity.domain.Result;
+import Codify.similarity.exception.ErrorCode;
+import Codify.similarity.exception.baseException.BaseException;
+import Codify.similarity.repository.ResultRepository;
+import Codify.similarity.web.dto.SimilarPairResponseDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//Result 조회 (유사도 상위 페어)
+//(assignmentId, accumulateResult desc) 인덱스로 k개만 읽으므로 반 규모와 무관하게 일정한 지연
+@Service
+@RequiredArgsConstructor
+public class ResultQueryService {
+    private final ResultRepository resultRepository;
+
+    @Value("${similarity.query.max-k:100}")
+    private int maxK;
+
+    //과제 전체 유사도 상위 k개 페어
+    @Transactional(readOnly = true)
+    public List<SimilarPairResponseDto> topPairs(final Long assignmentId, final int k) {
+        validate(assignmentId, k);
+        return resultRepository.findByAssignmentIdOrderByAccumulateResultDesc(assignmentId, PageRequest.of(0, k))
+                .stream()
+                .map(ResultQueryService::toDto)
+                .toList();
+    }
+
+    //학생이 포함된 페어 중 상위 k개 (from/to 양쪽 상위 k개를 병합)
+    @Transactional(readOnly = true)
+    public List<SimilarPairResponseDto> topPairsOfStudent(final Long assignmentId, final Long studentId, final int k) {
+        validate(assignmentId, k);
+        if (studentId == null) throw new BaseException(ErrorCode.INVALID_INPUT_VALUE);
+
+        var page = PageRequest.of(0, k);
+        List<Result> merged = new ArrayList<>(resultRepository
+                .findByAssignmentIdAndStudentFromIdOrderByAccumulateResultDesc(assignmentId, studentId, page));
+        merged.addAll(resultRepository
+                .findByAssignmentIdAndStudentToIdOrderByAccumulateResultDesc(assignmentId, studentId, page));
+
+        return merged.stream()
+                .sorted(Comparator.comparingDouble(Result::getAccumulateResult).reversed())
+                .limit(k)
+                .map(ResultQueryService::toDto)
+                .toList();
+    }
+
+    private void validate(Long assignmentId, int k) {
+        if (assignmentId == null || k < 1 || k > maxK) {
+            throw new BaseException(ErrorCode.INVALID_INPUT_VALUE);
+        }
+    }
+
+    private static SimilarPairResponseDto toDto(Result result) {
+        return new SimilarPairResponseDto(
+                result.getId(),
+                result.getSubmissionFromId(),
+                result.getSubmissionToId(),
+                result.getStudentFromId(),
+                result.getStudentToId(),
+                result.getAccumulateResult());
+    }
+}
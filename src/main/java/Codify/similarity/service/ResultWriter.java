@@ -0,0 +1,66 @@
+package Codify.similarity.service;
+
+import Codify.similarity.domain.Result;
+import Codify.similarity.repository.ResultRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+//Result 업서트 (호출 측 트랜잭션에 참여)
+//- (assignmentId, from, to)가 이미 있으면 점수/세그먼트 계산 여부만 갱신, 없으면 삽입 -> 겹치는 제출물 집합 재분석,
+//  단건 분석(analyzeAndSave)이 먼저 저장한 페어도 uk_result_assignment_from_to 위반 없음
+//- 기존 행은 과제별 from x to 범위로 한 번에 조회 후 실제 페어만 골라 씀
+@Service
+@RequiredArgsConstructor
+public class ResultWriter {
+
+    private final ResultRepository resultRepository;
+
+    //saved: 저장된 행 (id 포함, 입력 순서), updatedIds: 이미 있던 행 (기존 코드라인을 지워야 함)
+    public record Upsert(List<Result> saved, List<Long> updatedIds) {}
+
+    public Upsert upsert(List<Result> results) {
+        if (results.isEmpty()) return new Upsert(List.of(), List.of());
+
+        // 같은 페어가 두 번 들어오면 마지막 점수
+        Map<String, Result> byKey = new LinkedHashMap<>();
+        for (Result result : results) byKey.put(key(result), result);
+
+        Map<String, Result> stored = existing(byKey.values());
+        List<Result> rows = new ArrayList<>(byKey.size());
+        List<Long> updatedIds = new ArrayList<>();
+        for (Map.Entry<String, Result> e : byKey.entrySet()) {
+            Result existing = stored.get(e.getKey());
+            if (existing == null) {
+                rows.add(e.getValue());
+                continue;
+            }
+            existing.reanalyzed(e.getValue().getAccumulateResult(), e.getValue().isSegmentsComputed());
+            rows.add(existing);
+            updatedIds.add(existing.getId());
+        }
+        return new Upsert(resultRepository.saveAll(rows), updatedIds);
+    }
+
+    private Map<String, Result> existing(Collection<Result> results) {
+        Map<Long, Set<Long>> fromIds = new HashMap<>();
+        Map<Long, Set<Long>> toIds = new HashMap<>();
+        for (Result result : results) {
+            fromIds.computeIfAbsent(result.getAssignmentId(), k -> new HashSet<>()).add(result.getSubmissionFromId());
+            toIds.computeIfAbsent(result.getAssignmentId(), k -> new HashSet<>()).add(result.getSubmissionToId());
+        }
+        Map<String, Result> stored = new HashMap<>();
+        for (Long assignmentId : fromIds.keySet()) {
+            for (Result row : resultRepository.findAllByAssignmentIdAndSubmissionFromIdInAndSubmissionToIdIn(
+                    assignmentId, fromIds.get(assignmentId), toIds.get(assignmentId))) {
+                stored.put(key(row), row);
+            }
+        }
+        return stored;
+    }
+
+    private static String key(Result result) {
+        return result.getAssignmentId() + ":" + result.getSubmissionFromId() + "-" + result.getSubmissionToId();
+    }
+}
@@ -5,7 +5,7 @@ import Codify.similarity.exception.assignmentexception.AssignmentNotFoundExcepti
 import Codify.similarity.exception.baseException.BaseException;
 import Codify.similarity.exception.submissionexception.SubmissionNotFoundException;
 import Codify.similarity.mongo.ResultDoc;
-import Codify.similarity.mongo.ResultDocRepository;
+import Codify.similarity.mongo.ResultDocReader;
 import Codify.similarity.service.dto.AnalysisResult;
 import Codify.similarity.web.dto.SimilarityStartResponseDto;
 import Codify.similarity.web.dto.SimilarityStatusResponseDto;
@@ -22,7 +22,8 @@ import java.util.Objects;
 public class SimilarityBatchService {
     private final SimilarityTaskRunner taskRunner;
     private final SimilarityService similarityService;
-    private final ResultDocRepository resultDocRepository;
+    private final ResultDocReader resultDocRepository;
+    private final BatchStatusEngine statusEngine;
 
     // 중복되는 부분 공통 메서드로 추출
     //분석을 시작할 submission목록 지정
@@ -50,6 +51,7 @@ public class SimilarityBatchService {
 
         final List<Integer> starts = determineStartSubmissions(assignmentId, ids);
 
+        statusEngine.evict(assignmentId);
         for (Integer sid : starts) taskRunner.runOne(assignmentId, sid);
 
         return new SimilarityStartResponseDto(true, submissionIds.size(), starts.size(), starts);
@@ -65,28 +67,34 @@ public class SimilarityBatchService {
         final var ids = submissionIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
         if (ids.isEmpty()) throw new BaseException(ErrorCode.INVALID_INPUT_VALUE);
 
-        if (!resultDocRepository.existsByAssignmentId(assignmentId)) {
+        // 과제 단위 집계 1회 (Mongo $group + MySQL GROUP BY, 짧은 TTL 캐시)
+        final var snapshot = statusEngine.snapshot(assignmentId);
+        if (snapshot.isEmpty()) {
             throw new AssignmentNotFoundException();
         }
 
-        if (ids.size() == 1) {
+        if (ids.size() == 1 && !snapshot.contains(ids.get(0))) {
             var doc = resultDocRepository.findBySubmissionId(ids.get(0));
             if (doc.isEmpty()) {
                 throw new SubmissionNotFoundException();
             }
         }
 
-        final List<Integer> starts = determineStartSubmissions(assignmentId, ids);
+        final List<Integer> starts = (ids.size() == 1) ? snapshot.startSubmissionsFrom(ids.get(0)) : ids;
 
         int total = 0, done = 0, skipped = 0;
         var per = new ArrayList<SimilarityStatusResponseDto.PerSubmissionStatus>();
         var overall = AnalysisResult.Status.DONE;
 
         for (Integer sid : starts) {
-            var doc = resultDocRepository.findBySubmissionId(sid)
-                    .orElseThrow(SubmissionNotFoundException::new);
-
-            var ar = similarityService.status(assignmentId, doc.getStudentId(), sid);
+            // 다른 과제의 submission이 섞여 들어온 경우만 개별 조회
+            Integer studentId = snapshot.studentIdOf(sid)
+                    .orElseGet(() -> resultDocRepository.findBySubmissionId(sid)
+                            .orElseThrow(SubmissionNotFoundException::new)
+                            .getStudentId());
+
+            var ar = similarityService.resolveStatus(assignmentId, studentId, sid,
+                    snapshot.total(sid), snapshot.done(sid), snapshot.skipped(sid));
 
             total   += ar.getTotal()   == null ? 0 : ar.getTotal();
             done    += ar.getDone()    == null ? 0 : ar.getDone();
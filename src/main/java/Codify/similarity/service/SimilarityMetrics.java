@@ -0,0 +1,152 @@
+package Codify.similarity.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// 유사도 파이프라인 계측 (/actuator/prometheus 로 노출)
+// 단계별 Timer, 트리 크기/페어 수 분포, 코사인 게이트/페어 캐시 카운터, executor 대기열 gauge
+@Component
+public class SimilarityMetrics {
+
+    public enum Stage {
+        MONGO_FETCH("mongo_fetch"),
+        AST_DECODE("ast_decode"),
+        VECTORIZE("vectorize"),
+        COSINE("cosine", false),   // 페어마다 호출되는 짧은 구간 -> 백분위 히스토그램 없이 count/sum/max만
+        TED("ted"),
+        MATCH("match"),   // 노드 매칭 (WINNOWING은 지문 조인 + 라인 구간까지)
+        SEGMENTS("segments"),   // 노드 매칭 -> 세그먼트 변환 (TreeMatcher.toSegments, WINNOWING은 기록 안 함)
+        RESULT_WRITE("result_write"),
+        CODELINE_WRITE("codeline_write");
+
+        private final String tag;
+        private final boolean histogram;
+
+        Stage(String tag) {
+            this(tag, true);
+        }
+
+        Stage(String tag, boolean histogram) {
+            this.tag = tag;
+            this.histogram = histogram;
+        }
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final DistributionSummary treeSize;
+    private final DistributionSummary pairsPerRun;
+    private final Counter cosineGated;
+    private final Counter cosinePassed;
+    private final Counter pairCacheHit;
+    private final Counter pairCacheMiss;
+    private final Map<AnalysisScheduler.Lane, Timer> laneWaitTimers = new EnumMap<>(AnalysisScheduler.Lane.class);
+
+    public SimilarityMetrics(MeterRegistry registry,
+                             @Qualifier("analysisExecutor") ThreadPoolTaskExecutor analysisExecutor,
+                             @Qualifier("similarityExecutor") Executor similarityExecutor,
+                             @Qualifier("smallLaneExecutor") ThreadPoolTaskExecutor smallLaneExecutor,
+                             @Qualifier("largeLaneExecutor") ThreadPoolTaskExecutor largeLaneExecutor) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("similarity.stage")
+                    .description("유사도 파이프라인 단계별 소요 시간")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram(stage.histogram)
+                    .register(registry));
+        }
+
+        this.treeSize = DistributionSummary.builder("similarity.tree.size")
+                .description("분석에 사용한 제출물 트리 노드 수 (실행마다 제출물당 한 번)")
+                .baseUnit("nodes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.pairsPerRun = DistributionSummary.builder("similarity.run.pairs")
+                .description("그룹 분석 1회당 비교 페어 수")
+                .baseUnit("pairs")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        this.cosineGated = Counter.builder("similarity.pairs.cosine")
+                .description("코사인 1차 분석 결과")
+                .tag("outcome", "gated")
+                .register(registry);
+        this.cosinePassed = Counter.builder("similarity.pairs.cosine")
+                .description("코사인 1차 분석 결과")
+                .tag("outcome", "passed")
+                .register(registry);
+
+        this.pairCacheHit = Counter.builder("similarity.pairs.cache")
+                .description("페어 결과 캐시 조회 결과")
+                .tag("outcome", "hit")
+                .register(registry);
+        this.pairCacheMiss = Counter.builder("similarity.pairs.cache")
+                .description("페어 결과 캐시 조회 결과")
+                .tag("outcome", "miss")
+                .register(registry);
+
+        registerQueueDepth(registry, "analysisExecutor", analysisExecutor);
+        if (similarityExecutor instanceof ThreadPoolTaskExecutor executor) {
+            registerQueueDepth(registry, "similarityExecutor", executor);
+        }
+        // processSubmissionPairs가 사용하는 레인별 페어 풀
+        registerQueueDepth(registry, "smallLaneExecutor", smallLaneExecutor);
+        registerQueueDepth(registry, "largeLaneExecutor", largeLaneExecutor);
+
+        for (AnalysisScheduler.Lane lane : AnalysisScheduler.Lane.values()) {
+            laneWaitTimers.put(lane, Timer.builder("similarity.scheduler.wait")
+                    .description("그룹 분석이 레인에서 시작되기까지 대기한 시간")
+                    .tag("lane", lane.tag())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    private static void registerQueueDepth(MeterRegistry registry, String name, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("similarity.executor.queue.depth", executor,
+                        ex -> ex.getThreadPoolExecutor().getQueue().size())
+                .tag("executor", name)
+                .register(registry);
+        Gauge.builder("similarity.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("executor", name)
+                .register(registry);
+    }
+
+    public <T> T record(Stage stage, Supplier<T> work) {
+        return stageTimers.get(stage).record(work);
+    }
+
+    public void record(Stage stage, Runnable work) {
+        stageTimers.get(stage).record(work);
+    }
+
+    public void recordTreeSize(int nodes) {
+        treeSize.record(nodes);
+    }
+
+    public void recordPairsPerRun(long pairs) {
+        pairsPerRun.record(pairs);
+    }
+
+    public void recordLaneWait(AnalysisScheduler.Lane lane, long waitNanos) {
+        laneWaitTimers.get(lane).record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void countCosine(boolean passed) {
+        (passed ? cosinePassed : cosineGated).increment();
+    }
+
+    public void countPairCache(boolean hit) {
+        (hit ? pairCacheHit : pairCacheMiss).increment();
+    }
+}
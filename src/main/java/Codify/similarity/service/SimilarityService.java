@@ -1,18 +1,20 @@
 package Codify.similarity.service;
 
 import Codify.similarity.core.*;
+import Codify.similarity.domain.AssignmentSetting.TedMode;
 import Codify.similarity.domain.Codeline;
 import Codify.similarity.domain.Result;
 import Codify.similarity.exception.ErrorCode;
+import Codify.similarity.exception.analysisexception.PairAnalysisFailedException;
 import Codify.similarity.exception.baseException.BaseException;
 import Codify.similarity.exception.submissionexception.SameStudentComparisonException;
 import Codify.similarity.exception.submissionexception.SameSubmissionComparisonException;
 import Codify.similarity.exception.submissionexception.StudentSubmissionMismatchException;
 import Codify.similarity.exception.submissionexception.SubmissionNotFoundException;
-import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
 import Codify.similarity.model.TreeNodeBuilder;
 import Codify.similarity.mongo.ResultDoc;
-import Codify.similarity.mongo.ResultDocRepository;
+import Codify.similarity.mongo.ResultDocReader;
 import Codify.similarity.repository.CodelineRepository;
 import Codify.similarity.repository.ResultRepository;
 import Codify.similarity.service.dto.AnalysisResult;
@@ -24,6 +26,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +36,9 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -40,19 +46,52 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SimilarityService {
 
-    private final ResultDocRepository resultDocRepository; // Mongo
+    private final ResultDocReader resultDocRepository; // Mongo
     private final ResultRepository resultRepository; // JPA
     private final ObjectMapper objectMapper;
     private final AnalysisRuntimeRegistry runtime;
     private final CodelineRepository codelineRepository;
     private final RabbitTemplate rabbitTemplate;
     private final SseEventPublisher sseEventPublisher;
+    private final SimilarityMetrics metrics;
+    private final AstCache astCache;
+    private final AnalysisScheduler scheduler;
+    private final AnalysisCheckpointService checkpointService;
+    private final ClusterService clusterService;
+    private final ResultWriter resultWriter;
 
 
     private static final double COSINE_THRESHOLD = 0.8;
     private static final long TIMEOUT_SEC = 300;     // 기본 5분, 추후 변경 가능성 O
 
     private final CodelineService codelineService;
+    private final ForkJoinPool tedForkJoinPool;
+    private final PairResultCacheService pairResultCache;
+    private final AssignmentSettingService assignmentSettingService;
+
+    //체크포인트 flush 단위 (결과 수)
+    @Value("${similarity.checkpoint.flush-pairs:5000}")
+    private int checkpointFlushPairs;
+
+    //큰 쪽 트리 노드 수가 이 이상이면 TED 표를 fork/join으로 병렬 계산
+    @Value("${similarity.ted.parallel-min-nodes:5000}")
+    private int parallelTedMinNodes;
+
+    //과제 TED 모드가 METHOD일 때 큰 쪽 트리 노드 수가 이 이상인 페어만 메서드 분해 (작으면 전체 TED)
+    @Value("${similarity.ted.decompose-min-nodes:10000}")
+    private int decomposeMinNodes;
+
+    //그룹 분석 전 동일/이름만 다른 AST 묶기
+    @Value("${similarity.dedup.enabled:true}")
+    private boolean dedupEnabled;
+
+    //true면 그룹 분석은 점수만 저장, 매칭 라인은 상세 조회 시 계산 (PairSegmentService)
+    @Value("${similarity.segments.lazy:false}")
+    private boolean lazySegments;
+
+    //매칭 세그먼트 구현 (TED: TreeMatcher, GREEDY: GreedyMatcher, WINNOWING: WinnowingMatcher)
+    @Value("${similarity.matcher.engine:TED}")
+    private PairMatcher.Engine matcherEngine;
 
     //유사도 분석 및 결과 저장
     @Transactional
@@ -90,7 +129,8 @@ public class SimilarityService {
 
         JsonNode fromJson = toJsonNode(fromSubmissionDoc.getAst());
         var fromVec = ASTVectorizer.buildTypeVector(fromJson);
-        TreeNode fromTree = null;
+        TreeSnapshot fromTree = null;
+        TedMode tedMode = assignmentSettingService.tedMode(assignmentId.longValue());
 
         // for 루프
         for(ResultDoc candidates : candidatesSubmission) {
@@ -107,26 +147,39 @@ public class SimilarityService {
             }
 
             JsonNode candidatesJson = toJsonNode(candidates.getAst());
-            double cosine = CosineSimilarity.calculate(fromVec, ASTVectorizer.buildTypeVector(candidatesJson));
+            var candidatesVec = ASTVectorizer.buildTypeVector(candidatesJson);
+            double cosine = metrics.record(SimilarityMetrics.Stage.COSINE,
+                    () -> CosineSimilarity.calculate(fromVec, candidatesVec));
+            metrics.countCosine(cosine >= COSINE_THRESHOLD);
 
                 Double normalized = null;
                 List<TreeMatcher.Seg> segs = java.util.Collections.emptyList();
+                // 코사인 미달이면 매칭 없음으로 확정, lazy 모드면 상세 조회 때 계산
+                boolean segmentsComputed = true;
 
             if (cosine >= COSINE_THRESHOLD) {
-                if (fromTree == null) fromTree = TreeNodeBuilder.fromJson(fromJson);
-                TreeNode candidatesTree = TreeNodeBuilder.fromJson(candidatesJson);
-                int ted = TreeEditDistance.compute(fromTree, candidatesTree);
-                int maxSize = Math.max(countNodes(fromTree), countNodes(candidatesTree));
-                normalized = 1.0 - ((double) ted / maxSize);
-
-                // 개선된 매칭 사용 (구조적 유사성 고려)
-                var matches = TreeMatcher.match(fromTree, candidatesTree);
-                segs = TreeMatcher.toSegments(matches, /*minLines=*/2);
+                if (fromTree == null) {
+                    fromTree = TreeSnapshot.of(TreeNodeBuilder.fromJson(fromJson));
+                    metrics.recordTreeSize(fromTree.nodeCount());
+                }
+                TreeSnapshot candidatesTree = TreeSnapshot.of(TreeNodeBuilder.fromJson(candidatesJson));
+                metrics.recordTreeSize(candidatesTree.nodeCount());
+                final TreeSnapshot fromTreeRef = fromTree;
+                // TED 표를 한 번 채우고 점수/매칭 모두 같은 표 사용
+                TreeAlignment alignment = metrics.record(SimilarityMetrics.Stage.TED,
+                        () -> align(fromTreeRef, candidatesTree, tedEngine(tedMode, fromTreeRef, candidatesTree)));
+                normalized = alignment.similarity();
+
+                // 매칭 라인 구간 (similarity.matcher.engine 구현, lazy 모드면 PairSegmentService가 조회 시 계산)
+                segmentsComputed = !lazySegments;
+                if (segmentsComputed) {
+                    segs = matchSegments(alignment);
+                }
                 
                 // 디버깅 로그 추가
-                log.info("Matching {} vs {}: cosine={}, normalized={}, matches={}, segs={}", 
+                log.info("Matching {} vs {}: cosine={}, normalized={}, segs={}", 
                     fromSubmissionId, candidates.getSubmissionId(), 
-                    cosine, normalized, matches.size(), segs.size());
+                    cosine, normalized, segs.size());
                 for (var seg : segs) {
                     log.info("  Segment: from[{}-{}] to[{}-{}]", 
                         seg.fs(), seg.fe(), seg.ts(), seg.te());
@@ -142,15 +195,16 @@ public class SimilarityService {
                         .submissionToId(candidates.getSubmissionId().longValue())
                         .accumulateResult(normalized != null ? normalized : 0.0)
                         .assignmentId(assignmentId.longValue())
+                        .segmentsComputed(segmentsComputed)
                         .build();
 
-                Result saved = resultRepository
-                        .findByAssignmentIdAndSubmissionFromIdAndSubmissionToId(
-                                assignmentId.longValue(),
-                                fromSubmissionId.longValue(),
-                                candidates.getSubmissionId().longValue()
-                        )
-                        .orElseGet(() -> resultRepository.save(result));
+                // 이미 저장된 페어면 점수 갱신 + 기존 코드라인 삭제
+                ResultWriter.Upsert upsert = resultWriter.upsert(List.of(result));
+                Result saved = upsert.saved().get(0);
+                clusterService.onPersisted(upsert.saved());
+                if (!upsert.updatedIds().isEmpty() && segs.isEmpty()) {
+                    codelineRepository.deleteByResultIdIn(upsert.updatedIds());
+                }
 
                 if (!segs.isEmpty()) {
                     try {
@@ -189,6 +243,12 @@ public class SimilarityService {
         int skipped = resultDocRepository
                 .countByAssignmentIdAndSubmissionIdGreaterThanAndAstIsNull(assignmentId, fromSubmissionId);
 
+        return resolveStatus(assignmentId, fromStudentId, fromSubmissionId, total, done, skipped);
+    }
+
+    // 집계된 total/done/skipped와 런타임 기록으로 상태 판정 (BatchStatusEngine 집계 결과에도 사용)
+    public AnalysisResult resolveStatus(Integer assignmentId, Integer fromStudentId, Integer fromSubmissionId,
+                                        int total, int done, int skipped) {
         // DONE
         if (total == 0 || done >= total) {
             runtime.clear(assignmentId, fromStudentId, fromSubmissionId);
@@ -211,48 +271,190 @@ public class SimilarityService {
 
     //리팩토링 로직
     //유사도 분석 및 결과 저장 - 리팩토링
+    //결과는 flush-pairs 단위로 체크포인트와 함께 커밋 -> 중간에 죽어도 재실행 시 남은 페어만 계산
+    //반환된 future는 마지막 flush 이후 완료 -> 리스너가 이 시점에 완료 이벤트 발행 + 메시지 ack
+    //실패한 행이 있거나 체크포인트가 모든 페어를 기록하지 못했으면 실패한 future (완료 발행 X, 메시지 reject)
     @Async("similarityExecutor")
-    @Transactional
-    public void analyzeAndSaveRefactor(MessageDto message) {
+    public CompletableFuture<Void> analyzeAndSaveRefactor(MessageDto message) {
         Long assignmentId = message.getAssignmentId();
-        List<Integer> submissionIds =
-                message.getSubmissionIds().stream()
-                        .map(Math::toIntExact)
-                        .toList();
         // 1.mongoDB에서 모든 document 리스트 가져오기
-        List<ResultDoc> results = resultDocRepository.findAllByAssignmentIdAndSubmissionIdInAndAstIsNotNull(assignmentId, submissionIds);
+        List<ResultDoc> results = fetchDocs(assignmentId, message.getSubmissionIds());
+        int n = results.size();
+        metrics.recordPairsPerRun(AnalysisScheduler.trianglePairs(n));
+
+        // 이전 실행이 남긴 완료 페어 (같은 TED 모드/매칭 구현일 때만)
+        TedMode tedMode = assignmentSettingService.tedMode(assignmentId);
+        var checkpoint = checkpointService.open(message,
+                results.stream().map(ResultDoc::getSubmissionId).toList(), tedMode, matcherEngine);
+        BitSet done = checkpoint.done();
+        if (checkpoint.resumed()) {
+            log.info("체크포인트에서 재개: groupId={}, 완료 {}/{}", message.getGroupId(),
+                    done.cardinality(), checkpoint.pairTotal());
+        }
 
-        //2. document의 모든 ast를 벡터화하여 Map에 저장 -> 단일 스레드
+        //2. 벡터화
+        Map<Integer, Map<String, Integer>> vectorCache = buildVectorCache(results);
+        Map<Integer, TreeSnapshot> treeCache = new ConcurrentHashMap<>();
+        SubmissionClasses classes = groupDuplicates(results, vectorCache, treeCache);
+        PairResultCacheService.Session pairCache =
+                pairResultCache.open(vectorCache, doc -> cachedTree(doc, treeCache), !lazySegments, matcherEngine);
+
+        //3. 코사인 유사도 도출 -> 2차 분석까지 병렬처리, 완료된 행은 모아서 flush
+        Executor pairExecutor = scheduler.pairExecutor(scheduler.laneOf(n));
+        CheckpointBuffer buffer = new CheckpointBuffer(checkpoint.checkpointId(), n, pairCache);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < n - 1; i++) {
+            final int row = i;
+            int rowFirst = AnalysisCheckpointService.pairIndex(n, row, row + 1);
+            int rowEnd = rowFirst + (n - row - 1);
+            if (done.nextClearBit(rowFirst) >= rowEnd) continue;   // 이미 끝난 행
+            ResultDoc fromDoc = results.get(row);
+
+            futures.add(CompletableFuture.supplyAsync(() -> processSubmissionPairs(fromDoc, results,
+                            row + 1, vectorCache, treeCache, classes, pairCache, tedMode, assignmentId,
+                            j -> done.get(AnalysisCheckpointService.pairIndex(n, row, j))), pairExecutor)
+                    .thenAccept(processed -> buffer.add(row, processed)));
+        }
 
-        Map<Integer, Map<String, Integer>> vectorCache = new ConcurrentHashMap<>();
-        Map<Integer, TreeNode> treeCache = new ConcurrentHashMap<>();
+        int failedRows = 0;
+        Throwable firstFailure = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                log.error("병렬 처리 중 오류 발생", e);
+                failedRows++;
+                if (firstFailure == null) firstFailure = e;
+            }
+        }
 
-        for (ResultDoc doc : results) {
-            JsonNode json = toJsonNode(doc.getAst());
-            vectorCache.put(doc.getSubmissionId(), ASTVectorizer.buildTypeVector(json));
+        // 4~5. 남은 결과 flush 후 완료 처리
+        // 실패해도 성공한 행은 커밋 -> 실패한 행은 체크포인트에 남지 않으므로 같은 제출물 집합을 다시 요청하면 그 행만 계산
+        buffer.flush();
+        pairCache.save();
+        if (failedRows > 0) {
+            return CompletableFuture.failedFuture(new PairAnalysisFailedException(failedRows, firstFailure));
+        }
+        if (!checkpointService.complete(checkpoint.checkpointId())) {
+            return CompletableFuture.failedFuture(new BaseException(
+                    "체크포인트 미완료: groupId=" + message.getGroupId(), ErrorCode.PAIR_ANALYSIS_FAILED));
         }
 
-        //3.코사인 유사도 도출 -> 2차 분석까지 병렬처리
+        // 완료 이벤트는 커밋 이후 AnalysisFlightRegistry가 합류한 요청(groupId)마다 발행
+        return CompletableFuture.completedFuture(null);
+    }
+
+    //행 단위 결과를 모았다가 flush-pairs개 이상이면 결과 + 완료 비트맵을 한 트랜잭션으로 커밋
+    //모으기만 this로 잠그고 DB 커밋은 락 밖에서 (커밋 중에도 다른 행은 계속 add)
+    //커밋끼리는 writeLock으로 순서대로 (체크포인트 비트맵 read-modify-write가 겹치지 않도록)
+    //커밋 후 그때까지 새로 계산한 페어 캐시도 저장 (체크포인트 트랜잭션 밖, 실행 끝까지 모아 두지 않음)
+    private final class CheckpointBuffer {
+        private final Long checkpointId;
+        private final int n;
+        private final PairResultCacheService.Session pairCache;
+        private final Object writeLock = new Object();
+        private List<Result> results = new ArrayList<>();
+        private List<CodelineData> codelines = new ArrayList<>();
+        private BitSet pairs = new BitSet();
+
+        private record Chunk(ProcessResult processed, BitSet pairs) {}
+
+        CheckpointBuffer(Long checkpointId, int n, PairResultCacheService.Session pairCache) {
+            this.checkpointId = checkpointId;
+            this.n = n;
+            this.pairCache = pairCache;
+        }
+
+        void add(int row, ProcessResult processed) {
+            Chunk chunk = null;
+            synchronized (this) {
+                results.addAll(processed.results());
+                codelines.addAll(processed.codelineDataList());
+                int rowFirst = AnalysisCheckpointService.pairIndex(n, row, row + 1);
+                pairs.set(rowFirst, rowFirst + (n - row - 1));
+                if (results.size() >= checkpointFlushPairs) chunk = take();
+            }
+            if (chunk != null) write(chunk);
+        }
+
+        void flush() {
+            Chunk chunk;
+            synchronized (this) {
+                chunk = take();
+            }
+            if (chunk != null) write(chunk);
+        }
+
+        //모은 결과를 떼어 냄 (비어 있으면 null)
+        private Chunk take() {
+            if (pairs.isEmpty()) return null;
+            Chunk chunk = new Chunk(new ProcessResult(results, codelines), pairs);
+            results = new ArrayList<>();
+            codelines = new ArrayList<>();
+            pairs = new BitSet();
+            return chunk;
+        }
+
+        private void write(Chunk chunk) {
+            synchronized (writeLock) {
+                checkpointService.flush(checkpointId, chunk.pairs(), () -> persistResults(chunk.processed()));
+            }
+            pairCache.save();
+        }
+    }
+
+    //AST가 있는 document를 submissionId 순으로 조회
+    //정렬해두면 어느 인스턴스에서 계산해도 페어 방향(from < to)이 같음
+    public List<ResultDoc> fetchDocs(Long assignmentId, List<Long> submissionIds) {
+        List<Integer> ids = submissionIds.stream()
+                .map(Math::toIntExact)
+                .toList();
+        List<ResultDoc> docs = metrics.record(SimilarityMetrics.Stage.MONGO_FETCH,
+                () -> resultDocRepository.findAllByAssignmentIdAndSubmissionIdInAndAstIsNotNull(assignmentId, ids));
+        return docs.stream()
+                .sorted(Comparator.comparing(ResultDoc::getSubmissionId))
+                .toList();
+    }
+
+    //rows x cols 페어 분석 (diagonal이면 rows == cols 이고 j > i 페어만)
+    //groupSize: 블록이 속한 그룹의 제출물 수 (레인 결정용)
+    public ProcessResult analyzePairs(List<ResultDoc> rows, List<ResultDoc> cols, boolean diagonal, Long assignmentId,
+                                      int groupSize) {
+        List<ResultDoc> docs = diagonal ? rows : concat(rows, cols);
+        Map<Integer, Map<String, Integer>> vectorCache = buildVectorCache(docs);
+        Map<Integer, TreeSnapshot> treeCache = new ConcurrentHashMap<>();
+        SubmissionClasses classes = groupDuplicates(docs, vectorCache, treeCache);
+        PairResultCacheService.Session pairCache =
+                pairResultCache.open(vectorCache, doc -> cachedTree(doc, treeCache), !lazySegments, matcherEngine);
+        TedMode tedMode = assignmentSettingService.tedMode(assignmentId);
+
+        //코사인 유사도 도출 -> 2차 분석까지 병렬처리
+        //레인은 블록 크기가 아닌 그룹 크기 기준 (큰 그룹의 블록이 작은 그룹 풀을 차지하지 않도록)
+        Executor pairExecutor = scheduler.pairExecutor(scheduler.laneOf(groupSize));
         List<CompletableFuture<ProcessResult>> futures = new
                 ArrayList<>();
 
         // 각 submission별로 병렬 처리
-        for (int i = 0; i < results.size(); i++) {
-            final int fromIndex = i;
-            ResultDoc fromDoc = results.get(fromIndex);
+        for (int i = 0; i < rows.size(); i++) {
+            final int startIndex = diagonal ? i + 1 : 0;
+            ResultDoc fromDoc = rows.get(i);
 
             CompletableFuture<ProcessResult> future =
                     CompletableFuture.supplyAsync(() -> {
-                        return processSubmissionPairs(fromDoc, results,
-                                fromIndex, vectorCache, treeCache, assignmentId);
-                    });
+                        return processSubmissionPairs(fromDoc, cols,
+                                startIndex, vectorCache, treeCache, classes, pairCache, tedMode, assignmentId,
+                                j -> false);
+                    }, pairExecutor);
 
             futures.add(future);
         }
 
         // 모든 병렬 작업 완료 대기 및 결과 수집
+        // 실패한 행이 있으면 일부만 저장하지 않고 예외 -> 블록 트랜잭션 롤백, 블록 메시지는 재시도/실패 처리
         List<Result> allResults = new ArrayList<>();
         List<CodelineData> allCodelines = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
 
         for (CompletableFuture<ProcessResult> future : futures)
         {
@@ -262,21 +464,61 @@ public class SimilarityService {
                 allCodelines.addAll(processResult.codelineDataList());
             } catch (Exception e) {
                 log.error("병렬 처리 중 오류 발생", e);
+                failures.add(e);
             }
         }
+        if (!failures.isEmpty()) throw new PairAnalysisFailedException(failures.size(), failures.get(0));
+        pairCache.save();
+        return new ProcessResult(allResults, allCodelines);
+    }
 
-        // 4. 한꺼번에 데이터베이스 저장 -> 결과 + 코드라인 둘 다 저장
-        if (!allResults.isEmpty()) {
-            resultRepository.saveAll(allResults);
-            log.info("총 {}개 결과 저장 완료",
-                    allResults.size());
+    //document의 모든 ast를 벡터화하여 Map에 저장 -> 단일 스레드
+    private Map<Integer, Map<String, Integer>> buildVectorCache(List<ResultDoc> docs) {
+        Map<Integer, Map<String, Integer>> vectorCache = new ConcurrentHashMap<>();
+        for (ResultDoc doc : docs) {
+            if (vectorCache.containsKey(doc.getSubmissionId())) continue;
+            vectorCache.put(doc.getSubmissionId(), astCache.vector(doc.getSubmissionId(), () -> {
+                JsonNode json = metrics.record(SimilarityMetrics.Stage.AST_DECODE, () -> toJsonNode(doc.getAst()));
+                return metrics.record(SimilarityMetrics.Stage.VECTORIZE, () -> ASTVectorizer.buildTypeVector(json));
+            }));
         }
-        // 5. Codeline 일괄 저장
+        return vectorCache;
+    }
+
+    private static List<ResultDoc> concat(List<ResultDoc> a, List<ResultDoc> b) {
+        List<ResultDoc> all = new ArrayList<>(a);
+        all.addAll(b);
+        return all;
+    }
+
+    //결과 + 코드라인 일괄 저장 (호출 측 트랜잭션에 참여)
+    public void persistResults(ProcessResult processed) {
+        List<Result> allResults = processed.results();
+        List<CodelineData> allCodelines = processed.codelineDataList();
+
+        if (allResults.isEmpty()) return;
+
+        // 이미 저장된 페어(겹치는 집합 재분석 등)는 점수 갱신, 이전 코드라인은 삭제 후 다시 저장
+        ResultWriter.Upsert upsert = metrics.record(SimilarityMetrics.Stage.RESULT_WRITE,
+                () -> resultWriter.upsert(allResults));
+        List<Result> saved = upsert.saved();
+        clusterService.onPersisted(saved);
+        log.info("총 {}개 결과 저장 완료 (갱신 {}개)", saved.size(), upsert.updatedIds().size());
+        if (!upsert.updatedIds().isEmpty()) {
+            codelineRepository.deleteByResultIdIn(upsert.updatedIds());
+        }
+        // Codeline 일괄 저장
         if (!allCodelines.isEmpty()) {
             log.info("codeline 저장 시작");
-            saveCodelinesBatch(allCodelines, allResults);
+            metrics.record(SimilarityMetrics.Stage.CODELINE_WRITE, () -> saveCodelinesBatch(allCodelines, saved));
             log.info("codeline 저장 완료");
         }
+    }
+
+    //SSE 완료 이벤트 + SIMILARITY_COMPLETED 메시지 발행
+    public void publishCompleted(MessageDto message) {
+        // 다른 인스턴스가 저장한 결과(블록 등)는 증분 반영되지 않으므로 클러스터 캐시 무효화
+        clusterService.evict(message.getAssignmentId());
 
         // SSE 완료 이벤트 발행
         try {
@@ -298,7 +540,6 @@ public class SimilarityService {
         log.info("Sending similarity complete message to RabbitMQ: {}", completedMessage);
         rabbitTemplate.convertAndSend("codifyExchange", "similarity.complete", completedMessage);
         log.info("Message sent successfully");
-
     }
 
 
@@ -316,72 +557,88 @@ public class SimilarityService {
         return objectMapper.valueToTree(ast);
     }
 
-    //트리노드 전체 수 계산
-    private int countNodes(TreeNode node) {
-        if (node == null) return 0;
-        int count = 1;
-        for (var child : node.children) {
-            count += countNodes(child);
-        }
-        return count;
+    //작은 페어는 현재 스레드에서 순차 계산, 큰 페어만 TED 표를 공용 fork/join 풀에서 나눠 채움
+    //METHOD 엔진은 메서드 쌍별 표 + 최소 비용 배정 (큰 페어면 메서드 행 단위로 풀에서 나눠 계산)
+    private TreeAlignment align(TreeSnapshot from, TreeSnapshot to, TedMode engine) {
+        boolean large = Math.max(from.nodeCount(), to.nodeCount()) >= parallelTedMinNodes;
+        ForkJoinPool pool = large ? tedForkJoinPool : null;
+        return engine == TedMode.METHOD
+                ? TreeAlignment.byMethods(from, to, pool)
+                : TreeAlignment.of(from, to, pool);
+    }
+
+    //과제 모드가 METHOD여도 작은 페어는 전체 TED (분해 이득이 없고 근사 오차만 생김)
+    private TedMode tedEngine(TedMode mode, TreeSnapshot from, TreeSnapshot to) {
+        boolean large = Math.max(from.nodeCount(), to.nodeCount()) >= decomposeMinNodes;
+        return mode == TedMode.METHOD && large ? TedMode.METHOD : TedMode.FULL;
+    }
+
+    private TedMode tedEngine(TedMode mode, ResultDoc fromDoc, ResultDoc toDoc, Map<Integer, TreeSnapshot> treeCache) {
+        if (mode != TedMode.METHOD) return TedMode.FULL;
+        return tedEngine(mode, cachedTree(fromDoc, treeCache), cachedTree(toDoc, treeCache));
     }
+
+    //실행 단위 treeCache에서 조회, 없으면 디코딩해 적재
+    private TreeSnapshot cachedTree(ResultDoc doc, Map<Integer, TreeSnapshot> treeCache) {
+        return treeCache.computeIfAbsent(doc.getSubmissionId(), id -> decodeTree(doc));
+    }
+
+    //ast -> 고정 트리 디코딩 (treeCache 적재용, 인스턴스 캐시 우선)
+    //span/노드 수는 여기서 한 번만 계산, 이후 페어 비교는 읽기만 함
+    //트리 크기 분포도 여기서 기록 (실행마다 제출물당 한 번, 페어 수만큼 중복 기록하지 않음)
+    private TreeSnapshot decodeTree(ResultDoc doc) {
+        TreeSnapshot tree = astCache.tree(doc.getSubmissionId(), () -> metrics.record(
+                SimilarityMetrics.Stage.AST_DECODE,
+                () -> TreeSnapshot.of(TreeNodeBuilder.fromJson(toJsonNode(doc.getAst())))));
+        metrics.recordTreeSize(tree.nodeCount());
+        return tree;
+    }
+    //fromDoc과 candidates[startIndex..] 비교 (skip이 true인 j는 건너뜀)
+    //같은 클래스(SubmissionClasses)에 속한 제출물이 낀 페어는 클래스 쌍별 결과를 재사용
+    //그 외에는 페어 결과 캐시(이전 실행에서 같은 두 AST를 계산한 결과) -> 없으면 계산
     private ProcessResult processSubmissionPairs(
             ResultDoc fromDoc,
-            List<ResultDoc> allResults,
-            int fromIndex,
+            List<ResultDoc> candidates,
+            int startIndex,
             Map<Integer, Map<String, Integer>> vectorCache,
-            Map<Integer, TreeNode> treeCache,
-            Long assignmentId) {
+            Map<Integer, TreeSnapshot> treeCache,
+            SubmissionClasses classes,
+            PairResultCacheService.Session pairCache,
+            TedMode tedMode,
+            Long assignmentId,
+            IntPredicate skip) {
 
         List<Result> results = new ArrayList<>();
         List<CodelineData> codelineDataList = new ArrayList<>();
-        var fromVec =
-                vectorCache.get(fromDoc.getSubmissionId());
-        TreeNode fromTree = null;
-
-        // fromIndex + 1부터 비교 (중복 제거)
-        for (int j = fromIndex + 1; j < allResults.size(); j++)
-        {
-            ResultDoc toDoc = allResults.get(j);
-            var toVec =
-                    vectorCache.get(toDoc.getSubmissionId());
-
-            // 1차 분석: 코사인 유사도
-            double cosine = CosineSimilarity.calculate(fromVec,
-                    toVec);
-
-            Double normalizedSimilarity = null;
-            List<TreeMatcher.Seg> segments =
-                    Collections.emptyList();
-
-            // 2차 분석: 임계값 넘은 경우만 TED 계산
-            if (cosine >= COSINE_THRESHOLD) {
-                // Tree 캐싱 활용
-                if (fromTree == null) {
-                    fromTree =
-                            treeCache.computeIfAbsent(fromDoc.getSubmissionId(),
-                                    id ->
-                                            TreeNodeBuilder.fromJson(toJsonNode(fromDoc.getAst())));
-                }
 
-                TreeNode toTree =
-                        treeCache.computeIfAbsent(toDoc.getSubmissionId(),
-                                id ->
-                                        TreeNodeBuilder.fromJson(toJsonNode(toDoc.getAst())));
-
-                // Tree Edit Distance 계산
-                int ted = TreeEditDistance.compute(fromTree,
-                        toTree);
-                int maxSize = Math.max(countNodes(fromTree),
-                        countNodes(toTree));
-                normalizedSimilarity = 1.0 - ((double) ted /
-                        maxSize);
-
-                // 매칭 세그먼트 추출
-                var matches = TreeMatcher.match(fromTree,
-                        toTree);
-                segments = TreeMatcher.toSegments(matches, 2);
+        // 1차 분석: 코사인 유사도 (임계값을 넘은 상대만 페어 캐시 조회/TED 대상)
+        BitSet passed = new BitSet(candidates.size());
+        List<ResultDoc> passedDocs = new ArrayList<>();
+        for (int j = startIndex; j < candidates.size(); j++) {
+            if (skip.test(j)) continue;   // 체크포인트에 이미 기록된 페어
+            if (cosinePasses(fromDoc, candidates.get(j), vectorCache)) {
+                passed.set(j);
+                passedDocs.add(candidates.get(j));
             }
+        }
+        PairResultCacheService.Session.Row cachedRow = pairCache.row(fromDoc, passedDocs);
+
+        // startIndex부터 비교 (삼각 행렬이면 fromIndex + 1 -> 중복 제거)
+        for (int j = startIndex; j < candidates.size(); j++)
+        {
+            if (skip.test(j)) continue;   // 체크포인트에 이미 기록된 페어
+            ResultDoc toDoc = candidates.get(j);
+            PairOutcome outcome = !passed.get(j)
+                    ? new PairOutcome(null, Collections.emptyList())
+                    : classes.outcome(fromDoc.getSubmissionId(), toDoc.getSubmissionId(), () -> {
+                        TedMode engine = tedEngine(tedMode, fromDoc, toDoc, treeCache);
+                        return cachedRow.outcome(toDoc, engine,
+                                () -> alignPair(fromDoc, toDoc, treeCache, engine, !lazySegments));
+                    });
+            Double normalizedSimilarity = outcome.similarity();
+            // lazy 모드면 세그먼트 없음 (Codeline은 상세 조회 시 저장)
+            List<TreeMatcher.Seg> segments = outcome.segments() != null
+                    ? outcome.segments() : Collections.emptyList();
 
             // Result 객체 생성 (저장은 나중에 일괄 처리)
             Result result = Result.builder()
@@ -396,6 +653,8 @@ public class SimilarityService {
                     .accumulateResult(normalizedSimilarity !=
                             null ? normalizedSimilarity : 0.0)
                     .assignmentId(assignmentId)
+                    // lazy 모드로 건너뛴 세그먼트(null)만 상세 조회 때 계산
+                    .segmentsComputed(outcome.segments() != null)
                     .build();
 
             results.add(result);
@@ -430,6 +689,93 @@ public class SimilarityService {
         return new ProcessResult(results, codelineDataList);
     }
 
+    //페어 한 쌍 계산: 코사인 -> 임계값 넘으면 TED (+ withSegments면 매칭 세그먼트, 아니면 segments = null)
+    private PairOutcome comparePair(ResultDoc fromDoc, ResultDoc toDoc,
+                                    Map<Integer, Map<String, Integer>> vectorCache,
+                                    Map<Integer, TreeSnapshot> treeCache,
+                                    TedMode engine,
+                                    boolean withSegments) {
+        // 2차 분석: 임계값 넘은 경우만 TED 계산
+        if (!cosinePasses(fromDoc, toDoc, vectorCache)) {
+            return new PairOutcome(null, Collections.emptyList());
+        }
+        return alignPair(fromDoc, toDoc, treeCache, engine, withSegments);
+    }
+
+    //1차 분석: 코사인 유사도가 임계값 이상인지
+    private boolean cosinePasses(ResultDoc fromDoc, ResultDoc toDoc, Map<Integer, Map<String, Integer>> vectorCache) {
+        var fromVec = vectorCache.get(fromDoc.getSubmissionId());
+        var toVec = vectorCache.get(toDoc.getSubmissionId());
+        double cosine = metrics.record(SimilarityMetrics.Stage.COSINE,
+                () -> CosineSimilarity.calculate(fromVec, toVec));
+        metrics.countCosine(cosine >= COSINE_THRESHOLD);
+        return cosine >= COSINE_THRESHOLD;
+    }
+
+    //코사인을 통과한 페어의 TED (+ withSegments면 매칭 세그먼트)
+    private PairOutcome alignPair(ResultDoc fromDoc, ResultDoc toDoc,
+                                  Map<Integer, TreeSnapshot> treeCache,
+                                  TedMode engine,
+                                  boolean withSegments) {
+        // Tree 캐싱 활용
+        TreeSnapshot fromTree = cachedTree(fromDoc, treeCache);
+        TreeSnapshot toTree = cachedTree(toDoc, treeCache);
+
+        // Tree Edit Distance 계산 (노드 쌍별 TED 표를 한 번 채움)
+        TreeAlignment alignment = metrics.record(SimilarityMetrics.Stage.TED,
+                () -> align(fromTree, toTree, engine));
+        if (!withSegments) {
+            return new PairOutcome(alignment.similarity(), null);
+        }
+
+        // 매칭 세그먼트 추출 (TED 매칭은 같은 TED 표로 자식 비용 조회, GREEDY/WINNOWING은 표 없이 양쪽 트리만)
+        return new PairOutcome(alignment.similarity(), matchSegments(alignment));
+    }
+
+    //매칭 라인 구간 (similarity.matcher.engine 구현, 2줄 이상)
+    //노드 매칭 구현은 매칭(MATCH)과 세그먼트 변환(SEGMENTS)을 따로 계측, WINNOWING은 MATCH만
+    private List<TreeMatcher.Seg> matchSegments(TreeAlignment alignment) {
+        PairMatcher matcher = PairMatcher.of(matcherEngine);
+        if (!(matcher instanceof PairMatcher.NodeMatcher nodeMatcher)) {
+            return metrics.record(SimilarityMetrics.Stage.MATCH, () -> matcher.segments(alignment, 2));
+        }
+        List<TreeMatcher.Match> matches = metrics.record(SimilarityMetrics.Stage.MATCH,
+                () -> nodeMatcher.match(alignment));
+        return metrics.record(SimilarityMetrics.Stage.SEGMENTS, () -> TreeMatcher.toSegments(matches, 2));
+    }
+
+    //결과 한 건의 매칭 세그먼트 계산 (lazy 모드 상세 조회용, 배치와 같은 코사인 게이트 / TED 표 사용)
+    public List<TreeMatcher.Seg> computeSegments(Result result) {
+        ResultDoc fromDoc = resultDocRepository.findBySubmissionId(Math.toIntExact(result.getSubmissionFromId()))
+                .orElseThrow(SubmissionNotFoundException::new);
+        ResultDoc toDoc = resultDocRepository.findBySubmissionId(Math.toIntExact(result.getSubmissionToId()))
+                .orElseThrow(SubmissionNotFoundException::new);
+        if (fromDoc.getAst() == null || toDoc.getAst() == null) return Collections.emptyList();
+
+        Map<Integer, Map<String, Integer>> vectorCache = buildVectorCache(List.of(fromDoc, toDoc));
+        Map<Integer, TreeSnapshot> treeCache = new HashMap<>();
+        TedMode tedMode = assignmentSettingService.tedMode(result.getAssignmentId());
+        TedMode engine = tedEngine(tedMode, fromDoc, toDoc, treeCache);
+        return comparePair(fromDoc, toDoc, vectorCache, treeCache, engine, true).segments();
+    }
+
+    //전처리: 이름 정규화 AST가 같은 제출물 묶기
+    //타입 벡터 -> 루트 해시(인스턴스 캐시) 순으로 비교하고 둘 다 겹친 제출물만 트리를 디코딩
+    private SubmissionClasses groupDuplicates(List<ResultDoc> docs,
+                                              Map<Integer, Map<String, Integer>> vectorCache,
+                                              Map<Integer, TreeSnapshot> treeCache) {
+        if (!dedupEnabled || docs.size() < 2) return SubmissionClasses.none();
+        SubmissionClasses classes = SubmissionClasses.group(docs, vectorCache,
+                doc -> astCache.rootHash(doc.getSubmissionId(), () -> cachedTree(doc, treeCache)),
+                doc -> cachedTree(doc, treeCache));
+        if (classes.canonicalDuplicates() > 0) {
+            log.info("동일 AST 묶음: 제출물 {}개 -> 클래스 {}개 (완전 동일 {}개, 이름만 다름 {}개)",
+                    classes.submissions(), classes.classes(), classes.exactDuplicates(),
+                    classes.canonicalDuplicates() - classes.exactDuplicates());
+        }
+        return classes;
+    }
+
     private void saveCodelinesBatch(List<CodelineData>
                                             allCodelines, List<Result> savedResults) {
         log.info("=== saveCodelinesBatch 시작 ===");
@@ -1,24 +1,61 @@
 package Codify.similarity.service;
 
 import Codify.similarity.exception.submissionexception.SubmissionNotFoundException;
-import Codify.similarity.mongo.ResultDocRepository;
-import lombok.RequiredArgsConstructor;
+import Codify.similarity.mongo.ResultDocReader;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class SimilarityTaskRunner {
-    private final ResultDocRepository resultDocRepository;
+    private final ResultDocReader resultDocRepository;
     private final SimilarityService similarityService;
     private final AnalysisRuntimeRegistry runtime;
+    private final AnalysisFlightRegistry flights;
+    private final ThreadPoolTaskExecutor analysisExecutor;
+
+    // 같은 과제 그룹 분석이 끝나기를 기다리는 최대 시간 (넘으면 단건 분석은 ERROR)
+    private static final long GROUP_WAIT_SEC = 300;
 
-    @Async("analysisExecutor")
-    @Transactional
-    public void runOne(final Integer assignmentId, final Integer submissionId) {
+    public SimilarityTaskRunner(ResultDocReader resultDocRepository,
+                                SimilarityService similarityService,
+                                AnalysisRuntimeRegistry runtime,
+                                AnalysisFlightRegistry flights,
+                                @Qualifier("analysisExecutor") ThreadPoolTaskExecutor analysisExecutor) {
+        this.resultDocRepository = resultDocRepository;
+        this.similarityService = similarityService;
+        this.runtime = runtime;
+        this.flights = flights;
+        this.analysisExecutor = analysisExecutor;
+    }
+
+    // 같은 과제 그룹 분석이 끝난 뒤 analysisExecutor에서 실행 (기다리는 동안 스레드를 잡지 않음)
+    // 트랜잭션은 analyzeAndSave에서 시작
+    public CompletableFuture<Void> runOne(final Integer assignmentId, final Integer submissionId) {
+        CompletableFuture<Void> run = flights.submitSingle(assignmentId, submissionId, GROUP_WAIT_SEC,
+                analysisExecutor, () -> analyze(assignmentId, submissionId));
+        // 같은 시작 제출물이 이미 분석 중이면 (중복 클릭) 진행 중인 실행에 맡김
+        if (run == null) {
+            log.info("Analysis already in flight: aId={}, subFrom={}", assignmentId, submissionId);
+            return CompletableFuture.completedFuture(null);
+        }
+        return run.whenComplete((ignored, e) -> {
+            if (e != null && unwrap(e) instanceof TimeoutException) {
+                log.error("Group analysis wait timed out, single analysis not started: aId={}, subFrom={}",
+                        assignmentId, submissionId);
+                resultDocRepository.findBySubmissionId(submissionId)
+                        .ifPresent(doc -> runtime.markError(assignmentId, doc.getStudentId(), submissionId));
+            }
+        });
+    }
+
+    private void analyze(Integer assignmentId, Integer submissionId) {
         final var doc = resultDocRepository.findBySubmissionId(submissionId)
                 .orElseThrow(SubmissionNotFoundException::new);
 
@@ -32,4 +69,8 @@ public class SimilarityTaskRunner {
             throw e;
         }
     }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
 }
@@ -0,0 +1,174 @@
+package Codify.similarity.service;
+
+import Codify.similarity.model.TreeSnapshot;
+import Codify.similarity.mongo.ResultDoc;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+//그룹 분석 전처리: 페어 결과가 같을 수밖에 없는 제출물끼리 묶기
+//코사인(타입 벡터), TED(라벨), 매칭/세그먼트(라벨/라인/자식 순서) 모두 노드 value(변수명/함수명 등)를 보지 않음
+// -> 스냅샷 해시(value 제외, 이름 정규화 해시)와 타입 벡터가 같으면 어떤 상대와 비교해도 결과가 같음
+//클래스 쌍(from 클래스, to 클래스)마다 한 번만 계산하고 나머지 멤버 페어는 결과를 그대로 사용
+//exact(value까지 같은 완전 동일) 수는 로그/통계용
+final class SubmissionClasses {
+
+    private static final SubmissionClasses NONE = new SubmissionClasses(Map.of(), new int[0], 0);
+
+    private final Map<Integer, Integer> classBySubmission;
+    private final int[] classSizes;
+    private final int exactDuplicates;
+    //중복이 있는 클래스가 낀 페어만 저장 (클래스 쌍 -> 결과)
+    //TED는 맵 잠금 밖에서 계산 (computeIfAbsent 안에서 돌리면 같은 빈의 다른 클래스 쌍까지 막힘)
+    private final Map<Long, CompletableFuture<PairOutcome>> outcomes = new ConcurrentHashMap<>();
+
+    private SubmissionClasses(Map<Integer, Integer> classBySubmission, int[] classSizes, int exactDuplicates) {
+        this.classBySubmission = classBySubmission;
+        this.classSizes = classSizes;
+        this.exactDuplicates = exactDuplicates;
+    }
+
+    //묶지 않음 (모든 페어를 직접 계산)
+    static SubmissionClasses none() {
+        return NONE;
+    }
+
+    //싼 키부터 비교: 타입 벡터 -> 루트 해시(저장된 값이 있으면 디코딩 없이) -> 트리 비교(sameShape)
+    //벡터나 루트 해시가 혼자인 제출물은 단독 클래스, 트리는 해시까지 겹친 제출물만 디코딩
+    //해시가 같아도 트리가 다르면(충돌) 다른 클래스
+    static SubmissionClasses group(List<ResultDoc> docs,
+                                   Map<Integer, Map<String, Integer>> vectors,
+                                   ToLongFunction<ResultDoc> rootHashes,
+                                   Function<ResultDoc, TreeSnapshot> trees) {
+        Map<Map<String, Integer>, List<ResultDoc>> byVector = new LinkedHashMap<>();
+        Set<Integer> seen = new HashSet<>();
+        for (ResultDoc doc : docs) {
+            if (!seen.add(doc.getSubmissionId())) continue;
+            byVector.computeIfAbsent(vectors.get(doc.getSubmissionId()), k -> new ArrayList<>()).add(doc);
+        }
+
+        Map<Integer, Integer> classBySubmission = new HashMap<>();
+        List<Integer> sizes = new ArrayList<>();
+        int exactDuplicates = 0;
+        for (List<ResultDoc> sameVector : byVector.values()) {
+            if (sameVector.size() == 1) {
+                addClass(sameVector, classBySubmission, sizes);
+                continue;
+            }
+            Map<Long, List<ResultDoc>> byHash = new LinkedHashMap<>();
+            for (ResultDoc doc : sameVector) {
+                byHash.computeIfAbsent(rootHashes.applyAsLong(doc), k -> new ArrayList<>()).add(doc);
+            }
+            for (List<ResultDoc> sameHash : byHash.values()) {
+                if (sameHash.size() == 1) {
+                    addClass(sameHash, classBySubmission, sizes);
+                    continue;
+                }
+                exactDuplicates += groupByShape(sameHash, trees, classBySubmission, sizes);
+            }
+        }
+
+        int[] classSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+        return new SubmissionClasses(classBySubmission, classSizes, exactDuplicates);
+    }
+
+    //벡터/루트 해시가 같은 제출물을 트리 비교로 나눔, 완전 동일(value까지 같음) 수 반환
+    private static int groupByShape(List<ResultDoc> docs,
+                                    Function<ResultDoc, TreeSnapshot> trees,
+                                    Map<Integer, Integer> classBySubmission,
+                                    List<Integer> sizes) {
+        List<TreeSnapshot> representatives = new ArrayList<>();
+        List<Integer> classes = new ArrayList<>();
+        Set<Long> exactKeys = new HashSet<>();
+        for (ResultDoc doc : docs) {
+            TreeSnapshot tree = trees.apply(doc);
+            exactKeys.add(exactHash(tree));
+            int cls = -1;
+            for (int r = 0; r < representatives.size(); r++) {
+                if (representatives.get(r).sameShape(tree)) {
+                    cls = classes.get(r);
+                    break;
+                }
+            }
+            if (cls < 0) {
+                cls = sizes.size();
+                sizes.add(0);
+                representatives.add(tree);
+                classes.add(cls);
+            }
+            sizes.set(cls, sizes.get(cls) + 1);
+            classBySubmission.put(doc.getSubmissionId(), cls);
+        }
+        return docs.size() - exactKeys.size();
+    }
+
+    private static void addClass(List<ResultDoc> single, Map<Integer, Integer> classBySubmission, List<Integer> sizes) {
+        classBySubmission.put(single.get(0).getSubmissionId(), sizes.size());
+        sizes.add(1);
+    }
+
+    int submissions() {
+        return classBySubmission.size();
+    }
+
+    int classes() {
+        return classSizes.length;
+    }
+
+    //value까지 같은 다른 제출물이 있는 제출물 수 (클래스마다 첫 제출물 제외)
+    int exactDuplicates() {
+        return exactDuplicates;
+    }
+
+    //이름만 다른 것까지 포함한 중복 수
+    int canonicalDuplicates() {
+        return submissions() - classes();
+    }
+
+    //from -> to 페어 결과: 둘 다 혼자인 클래스면 바로 계산, 아니면 클래스 쌍별로 한 번만 계산
+    //같은 클래스끼리의 페어도 서로 다른 트리끼리 비교한 결과 하나를 공유
+    PairOutcome outcome(Integer fromSubmissionId, Integer toSubmissionId, Supplier<PairOutcome> compute) {
+        Integer from = classBySubmission.get(fromSubmissionId);
+        Integer to = classBySubmission.get(toSubmissionId);
+        if (from == null || to == null || (classSizes[from] == 1 && classSizes[to] == 1)) {
+            return compute.get();
+        }
+        long key = (long) from * classSizes.length + to;
+        CompletableFuture<PairOutcome> mine = new CompletableFuture<>();
+        CompletableFuture<PairOutcome> running = outcomes.putIfAbsent(key, mine);
+        if (running != null) {
+            // 먼저 맡은 스레드의 결과를 기다림
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+
+        try {
+            PairOutcome computed = compute.get();
+            mine.complete(computed);
+            return computed;
+        } catch (RuntimeException e) {
+            // 실패는 남기지 않음 -> 같은 클래스 쌍의 다음 페어가 다시 계산
+            outcomes.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    //이름 정규화 해시에 전위 순서 value를 더한 해시 (완전 동일 판정용)
+    private static long exactHash(TreeSnapshot tree) {
+        long hash = tree.rootHash();
+        for (int i = 0; i < tree.nodeCount(); i++) {
+            hash = hash * 31 + Objects.hashCode(tree.value(i));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,59 @@
+package Codify.similarity.service.listener;
+
+import Codify.similarity.service.PairBlockService;
+import Codify.similarity.web.dto.PairBlockTask;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+//similarity.block 큐 소비 (모든 인스턴스가 같은 큐를 공유 -> 블록 단위 작업 분배)
+//리스너 스레드에서 동기 처리하므로 정상 반환 = 결과 커밋 이후 ack
+//실패 시 reject -> 재시도 큐(TTL)를 거쳐 다시 전달, max-attempts번째도 실패하면 실행을 실패로 기록하고 ack
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PairBlockListener {
+    private final PairBlockService pairBlockService;
+
+    //블록당 최대 시도 횟수 (첫 시도 포함)
+    @Value("${similarity.sharding.max-attempts:3}")
+    private int maxAttempts;
+
+    @RabbitListener(queues = "similarity.block.queue", containerFactory = "pairBlockListenerContainerFactory")
+    public void handleBlock(PairBlockTask task,
+                            @Header(name = "x-death", required = false) List<Map<String, ?>> xDeath) {
+        long attempt = rejections(xDeath) + 1;
+        try {
+            pairBlockService.analyzeBlock(task);
+            pairBlockService.completeIfDone(task.shardRunId(), task.source());
+        } catch (Exception e) {
+            if (attempt >= maxAttempts) {
+                log.error("블록 분석 재시도 소진: groupId={}, block={}, attempt={}",
+                        task.source().getGroupId(), task.blockIndex(), attempt, e);
+                pairBlockService.fail(task, e);
+                return;
+            }
+            log.warn("블록 분석 실패, 재시도 예정: groupId={}, block={}, attempt={}/{}",
+                    task.source().getGroupId(), task.blockIndex(), attempt, maxAttempts, e);
+            throw new AmqpRejectAndDontRequeueException("pair block failed", e);
+        }
+    }
+
+    //브로커가 기록한 similarity.block.queue에서의 reject 횟수 (x-death는 큐/사유별 누적 count)
+    static long rejections(List<Map<String, ?>> xDeath) {
+        if (xDeath == null) return 0;
+        return xDeath.stream()
+                .filter(death -> Objects.equals(death.get("queue"), "similarity.block.queue")
+                        && Objects.equals(death.get("reason"), "rejected"))
+                .mapToLong(death -> death.get("count") instanceof Number count ? count.longValue() : 1)
+                .sum();
+    }
+}
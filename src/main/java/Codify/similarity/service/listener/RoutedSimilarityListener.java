@@ -0,0 +1,28 @@
+package Codify.similarity.service.listener;
+
+import Codify.similarity.web.dto.MessageDto;
+import com.rabbitmq.client.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+//이 인스턴스가 담당하는 과제 메시지 소비 (AssignmentRouter가 전달한 메시지)
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "similarity.routing.enabled", havingValue = "true")
+public class RoutedSimilarityListener {
+    private final SimilarityMessageListener similarityMessageListener;
+
+    @RabbitListener(queues = "#{assignmentRouter.queueName()}", containerFactory =
+            "similarityListenerContainerFactory")
+    public void handleRouted(MessageDto message, Channel channel,
+                             @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        log.info("Received routed similarity message: {}", message.getGroupId());
+        similarityMessageListener.process(message, channel, deliveryTag);
+    }
+}
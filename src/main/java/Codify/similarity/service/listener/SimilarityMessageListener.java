@@ -1,35 +1,149 @@
 package Codify.similarity.service.listener;
 
+import Codify.similarity.service.AnalysisFlightRegistry;
+import Codify.similarity.service.AnalysisScheduler;
+import Codify.similarity.service.AssignmentRouter;
+import Codify.similarity.service.PairBlockService;
+import Codify.similarity.service.PairSegmentService;
 import Codify.similarity.service.SimilarityService;
 import Codify.similarity.web.dto.MessageDto;
-import lombok.RequiredArgsConstructor;
+import com.rabbitmq.client.Channel;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class SimilarityMessageListener {
     private final SimilarityService similarityService;
+    private final PairBlockService pairBlockService;
+    //similarity.routing.enabled일 때만 존재
+    private final AssignmentRouter router;
+    private final AnalysisScheduler scheduler;
+    private final AnalysisFlightRegistry flights;
+    private final PairSegmentService pairSegmentService;
+    private final RabbitTemplate rabbitTemplate;
+
+    public SimilarityMessageListener(SimilarityService similarityService,
+                                     PairBlockService pairBlockService,
+                                     ObjectProvider<AssignmentRouter> router,
+                                     AnalysisScheduler scheduler,
+                                     AnalysisFlightRegistry flights,
+                                     PairSegmentService pairSegmentService,
+                                     RabbitTemplate rabbitTemplate) {
+        this.similarityService = similarityService;
+        this.pairBlockService = pairBlockService;
+        this.router = router.getIfAvailable();
+        this.scheduler = scheduler;
+        this.flights = flights;
+        this.pairSegmentService = pairSegmentService;
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
     //parsing service에서 push한 message 소비
     // READY, DONE, ERROR
     //ready -> upload service에서 파일 업로드 후 바로 보내야 할듯
     //done -> 유사도 분석 완료 후 done
+    //수동 ack: 결과 저장이 끝난 뒤에만 ack, 실패 시 재큐잉 없이 reject
+    //라우팅 사용 시 담당 인스턴스가 아니면 담당 인스턴스 큐로 전달 후 ack
     @RabbitListener(queues = "similarity.queue", containerFactory =
-            "rabbitListenerContainerFactory")
-    public void handleParsingComplete(MessageDto message) {
+            "similarityListenerContainerFactory")
+    public void handleParsingComplete(MessageDto message, Channel channel,
+                                      @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                                      @Header(name = AssignmentRouter.ROUTED_HEADER, required = false) String routedBy) {
         log.info("Received similarity message: {}", message.getGroupId());
+        if (router != null && routedBy == null && !router.isOwner(message.getAssignmentId())) {
+            try {
+                router.forward(message);
+            } catch (Exception e) {
+                // 전달 실패 시 직접 처리
+                log.warn("Failed to route similarity message, processing locally: {}", message.getGroupId(), e);
+                process(message, channel, deliveryTag);
+                return;
+            }
+            try {
+                channel.basicAck(deliveryTag, false);
+            } catch (IOException ioe) {
+                log.error("Failed to ack routed similarity message for groupId: {}", message.getGroupId(), ioe);
+            }
+            return;
+        }
+        process(message, channel, deliveryTag);
+    }
+
+    //분석 후 결과 저장이 끝나면 ack (인스턴스 전용 큐 리스너도 사용)
+    //레인 크레딧이 없으면(큰 그룹이 LARGE 몫을 다 씀) 대기 큐로 보내고 ack -> prefetch 자리는 작은 그룹이 사용
+    public void process(MessageDto message, Channel channel, long deliveryTag) {
+        AnalysisScheduler.Lane lane = scheduler.laneOf(message.getSubmissionIds().size());
+        if (!scheduler.tryAcquireCredit(lane)) {
+            defer(message, channel, deliveryTag, lane);
+            return;
+        }
+        dispatch(message).whenComplete((ignored, e) -> {
+            scheduler.releaseCredit(lane);
+            try {
+                if (e == null) {
+                    channel.basicAck(deliveryTag, false);
+                    log.info("Similarity analysis acked for groupId: {}", message.getGroupId());
+                } else {
+                    log.error("Failed to process similarity message for groupId: {}", message.getGroupId(), e);
+                    channel.basicNack(deliveryTag, false, false);
+                }
+            } catch (IOException ioe) {
+                // 채널이 닫혔으면 브로커가 메시지를 재전달
+                log.error("Failed to ack similarity message for groupId: {}", message.getGroupId(), ioe);
+            }
+        });
+    }
+
+    //similarity.defer.queue에서 TTL만큼 기다린 뒤 parsing.complete로 돌아옴 (재전달 순서는 큐 맨 뒤)
+    private void defer(MessageDto message, Channel channel, long deliveryTag, AnalysisScheduler.Lane lane) {
         try {
-            log.info("Starting similarity analysis for groupId: {}", message.getGroupId());
-            similarityService.analyzeAndSaveRefactor(message);
-            log.info("Similarity analysis started successfully for groupId: {}", message.getGroupId());
+            rabbitTemplate.convertAndSend("codifyExchange", "similarity.defer", message);
+            channel.basicAck(deliveryTag, false);
+            log.info("레인 크레딧 부족으로 대기 큐로 이동: groupId={}, lane={}", message.getGroupId(), lane);
         } catch (Exception e) {
-            log.error("Failed to process similarity message for groupId: {}", message.getGroupId(), e);
-            log.error("Error details: {}", e.getMessage());
-            e.printStackTrace();
-            throw new AmqpRejectAndDontRequeueException("similarity failed", e);
+            // 대기 큐 발행 실패 시 브로커에 되돌림
+            log.warn("Failed to defer similarity message, requeueing: {}", message.getGroupId(), e);
+            try {
+                channel.basicNack(deliveryTag, false, true);
+            } catch (IOException ioe) {
+                log.error("Failed to requeue similarity message for groupId: {}", message.getGroupId(), ioe);
+            }
         }
     }
+
+    //분석 예약 (AnalysisScheduler 레인에서 차례가 되면 시작)
+    //반환된 future는 결과 저장 후 완료
+    //블록 분할 대상이면 블록 발행까지만 하고 완료 (블록은 similarity.block 큐에서 내구성 보장)
+    public CompletableFuture<Void> dispatch(MessageDto message) {
+        if (pairBlockService.shouldShard(message)) {
+            try {
+                pairBlockService.coordinate(message);
+                return CompletableFuture.completedFuture(null);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(new AmqpRejectAndDontRequeueException("pair block coordination failed", e));
+            }
+        }
+
+        //같은 요청(재전달/중복 클릭)은 진행 중인 실행에 합류, 짧은 시간 안의 같은 과제 요청은 병합
+        //레인/과제별 상한은 스케줄러가, 전체 미ack 수는 prefetch(max-in-flight)가 제한
+        log.info("Scheduling similarity analysis for groupId: {}", message.getGroupId());
+        return flights.submit(message,
+                        merged -> scheduler.submit(merged.getAssignmentId(), merged.getSubmissionIds().size(),
+                                () -> similarityService.analyzeAndSaveRefactor(merged)),
+                        similarityService::publishCompleted)
+                //lazy 세그먼트 모드면 상위 페어만 백그라운드에서 미리 계산
+                .thenRun(() -> pairSegmentService.precomputeTop(message.getAssignmentId()))
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(
+                        new AmqpRejectAndDontRequeueException("similarity failed", e)));
+    }
 }
@@ -1,13 +1,24 @@
 package Codify.similarity.web.controller;
 
+import Codify.similarity.service.AnalysisCheckpointService;
+import Codify.similarity.service.AssignmentSettingService;
+import Codify.similarity.service.ClusterService;
+import Codify.similarity.service.PairSegmentService;
+import Codify.similarity.service.ResultQueryService;
 import Codify.similarity.service.SimilarityBatchService;
 import Codify.similarity.service.SimilarityService;
 import Codify.similarity.service.SseEventPublisher;
 import Codify.similarity.service.listener.ClientMessageListener;
+import Codify.similarity.web.dto.CheckpointStatusResponseDto;
+import Codify.similarity.web.dto.ClusterResponseDto;
 import Codify.similarity.web.dto.MessageDto;
+import Codify.similarity.web.dto.PairCodelinesResponseDto;
+import Codify.similarity.web.dto.SimilarPairResponseDto;
 import Codify.similarity.web.dto.SimilarityStartResponseDto;
 import Codify.similarity.web.dto.SimilarityStatusResponseDto;
 import Codify.similarity.web.dto.SubmissionIdsRequestDto;
+import Codify.similarity.web.dto.TedModeRequestDto;
+import Codify.similarity.web.dto.TedModeResponseDto;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +39,11 @@ public class SimilarityController {
     private final SimilarityService similarityService;
     private final ClientMessageListener messageListener;
     private final SseEventPublisher sseEventPublisher;
+    private final AnalysisCheckpointService checkpointService;
+    private final ResultQueryService resultQueryService;
+    private final ClusterService clusterService;
+    private final PairSegmentService pairSegmentService;
+    private final AssignmentSettingService assignmentSettingService;
 
     @PostMapping("/assignments/{assignmentId}/submissions/batch")
     public ResponseEntity<SimilarityStartResponseDto> run(
@@ -55,6 +71,120 @@ public class SimilarityController {
         return ResponseEntity.ok(batchService.status(assignmentId, java.util.List.of(submissionFromId)));
     }
 
+    @Operation(
+            operationId = "getAnalysisCheckpoints",
+            summary = "그룹 분석 체크포인트 조회",
+            description = """
+                    과제의 그룹 분석 실행별 진행률과 마지막 재개 지점을 반환합니다.
+                    - resumedFromPairs: 재시작 시 이미 완료돼 있던 페어 수 (처음 실행이면 0)
+                    """
+    )
+    @GetMapping("/assignments/{assignmentId}/checkpoints")
+    public ResponseEntity<List<CheckpointStatusResponseDto>> checkpoints(
+            @PathVariable final Long assignmentId
+    ) {
+        return ResponseEntity.ok(checkpointService.statuses(assignmentId));
+    }
+
+    @Operation(
+            operationId = "getTopSimilarPairs",
+            summary = "유사도 상위 페어 조회",
+            description = """
+                    과제 내 유사도(accumulateResult)가 높은 페어 k개를 내림차순으로 반환합니다.
+                    - k: 1 ~ 100, 기본 20
+                    """
+    )
+    @GetMapping("/assignments/{assignmentId}/top")
+    public ResponseEntity<List<SimilarPairResponseDto>> top(
+            @PathVariable final Long assignmentId,
+            @RequestParam(defaultValue = "20") final int k
+    ) {
+        return ResponseEntity.ok(resultQueryService.topPairs(assignmentId, k));
+    }
+
+    @Operation(
+            operationId = "getTopSimilarPairsOfStudent",
+            summary = "학생별 유사도 상위 페어 조회",
+            description = """
+                    해당 학생이 포함된 페어 중 유사도가 높은 k개를 반환합니다.
+                    - k: 1 ~ 100, 기본 20
+                    """
+    )
+    @GetMapping("/assignments/{assignmentId}/students/{studentId}/top")
+    public ResponseEntity<List<SimilarPairResponseDto>> topOfStudent(
+            @PathVariable final Long assignmentId,
+            @PathVariable final Long studentId,
+            @RequestParam(defaultValue = "20") final int k
+    ) {
+        return ResponseEntity.ok(resultQueryService.topPairsOfStudent(assignmentId, studentId, k));
+    }
+
+    @Operation(
+            operationId = "getSimilarityClusters",
+            summary = "유사 학생 클러스터 조회",
+            description = """
+                    유사도가 threshold 이상인 페어로 연결된 학생 그룹(2명 이상)을 반환합니다.
+                    - threshold 생략 시 기본값(0.8), edge-floor(0.5) 이상 1.0 이하
+                    - threshold를 바꾸면 저장된 페어 목록으로 즉시 재계산합니다 (재분석 없음)
+                    """
+    )
+    @GetMapping("/assignments/{assignmentId}/clusters")
+    public ResponseEntity<ClusterResponseDto> clusters(
+            @PathVariable final Long assignmentId,
+            @RequestParam(required = false) final Double threshold
+    ) {
+        return ResponseEntity.ok(clusterService.clusters(assignmentId, threshold));
+    }
+
+    @Operation(
+            operationId = "getPairCodelines",
+            summary = "페어 매칭 라인 조회",
+            description = """
+                    분석 결과(resultId) 한 건의 양쪽 학생 매칭 라인 범위를 반환합니다.
+                    - lazy 모드에서는 처음 조회할 때 계산 후 저장합니다 (이후 조회는 저장된 값 사용)
+                    """
+    )
+    @GetMapping("/results/{resultId}/codelines")
+    public ResponseEntity<PairCodelinesResponseDto> codelines(
+            @PathVariable final Long resultId
+    ) {
+        return ResponseEntity.ok(pairSegmentService.codelines(resultId));
+    }
+
+    @Operation(
+            operationId = "getTedMode",
+            summary = "과제 TED 엔진 조회",
+            description = """
+                    과제의 TED 엔진을 반환합니다.
+                    - FULL: 전체 트리 TED, METHOD: 큰 제출물은 메서드 단위로 나눠 계산 (근사)
+                    - configured가 false면 기본값(similarity.ted.mode)을 사용 중입니다
+                    """
+    )
+    @GetMapping("/assignments/{assignmentId}/ted-mode")
+    public ResponseEntity<TedModeResponseDto> tedMode(
+            @PathVariable final Long assignmentId
+    ) {
+        return ResponseEntity.ok(assignmentSettingService.tedModeOf(assignmentId));
+    }
+
+    @Operation(
+            operationId = "changeTedMode",
+            summary = "과제 TED 엔진 변경",
+            description = """
+                    과제의 TED 엔진을 변경합니다. 다음 분석 실행부터 적용됩니다.
+                    - METHOD는 큰 쪽 제출물 노드 수가 similarity.ted.decompose-min-nodes 이상인 페어에만 적용
+                    """
+    )
+    @PutMapping("/assignments/{assignmentId}/ted-mode")
+    public ResponseEntity<TedModeResponseDto> changeTedMode(
+            @PathVariable final Long assignmentId,
+            @RequestBody @Valid final TedModeRequestDto tedModeRequestDto
+    ) {
+        return ResponseEntity.ok(
+                assignmentSettingService.changeTedMode(assignmentId, tedModeRequestDto.tedMode())
+        );
+    }
+
     //리팩토링 로직
 
     // SSE 연결 엔드포인트
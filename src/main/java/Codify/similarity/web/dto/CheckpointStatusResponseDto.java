@@ -0,0 +1,14 @@
+package Codify.similarity.web.dto;
+
+import java.time.LocalDateTime;
+
+public record CheckpointStatusResponseDto(
+        String groupId,
+        Integer submissionCount,
+        Long pairTotal,
+        Long pairDone,
+        Long resumedFromPairs,   // 마지막 재시작 지점 (처음 실행이면 0)
+        String status,           // INCOMPLETE(진행 중 또는 중단), DONE
+        LocalDateTime updatedAt,
+        LocalDateTime completedAt
+) {}
@@ -0,0 +1,15 @@
+package Codify.similarity.web.dto;
+
+import java.util.List;
+
+public record ClusterResponseDto(
+        Long assignmentId,
+        double threshold,
+        List<Cluster> clusters   // 크기 내림차순, 2명 이상만
+) {
+    public record Cluster(
+            int size,
+            List<Long> studentIds,
+            double maxScore
+    ) {}
+}
@@ -0,0 +1,17 @@
+package Codify.similarity.web.dto;
+
+import java.util.List;
+
+// 상삼각 페어 행렬의 한 블록 (행/열 = submissionId 순 정렬 제출물 구간)
+// 워커는 행/열 제출물만 조회 (그룹 전체 재조회 X)
+// diagonal이면 행 == 열 -> j > i 페어만 계산
+public record PairBlockTask(
+        MessageDto source,
+        Long shardRunId,
+        int blockIndex,
+        int totalBlocks,
+        List<Long> rowSubmissionIds,
+        List<Long> colSubmissionIds,
+        boolean diagonal
+) {
+}
@@ -0,0 +1,16 @@
+package Codify.similarity.web.dto;
+
+import java.util.List;
+
+public record PairCodelinesResponseDto(
+        Long resultId,
+        Long studentFromId,
+        Long studentToId,
+        List<LineRange> fromLines,   // 병합된 매칭 라인 범위 (시작 라인 순)
+        List<LineRange> toLines
+) {
+    public record LineRange(
+            int startLine,
+            int endLine
+    ) {}
+}
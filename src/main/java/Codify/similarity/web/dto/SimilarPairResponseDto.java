@@ -0,0 +1,10 @@
+package Codify.similarity.web.dto;
+
+public record SimilarPairResponseDto(
+        Long resultId,
+        Long submissionFromId,
+        Long submissionToId,
+        Long studentFromId,
+        Long studentToId,
+        double accumulateResult
+) {}
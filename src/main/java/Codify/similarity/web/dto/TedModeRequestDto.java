@@ -0,0 +1,9 @@
+package Codify.similarity.web.dto;
+
+import Codify.similarity.domain.AssignmentSetting;
+import jakarta.validation.constraints.NotNull;
+
+public record TedModeRequestDto(
+        @NotNull(message = "tedMode must not be null")
+        AssignmentSetting.TedMode tedMode
+) {}
@@ -0,0 +1,9 @@
+package Codify.similarity.web.dto;
+
+import Codify.similarity.domain.AssignmentSetting;
+
+public record TedModeResponseDto(
+        Long assignmentId,
+        AssignmentSetting.TedMode tedMode,
+        boolean configured   // false면 과제 설정 없이 기본값(similarity.ted.mode) 사용 중
+) {}
@@ -0,0 +1,26 @@
+-- 블록 분할 분석 실행/완료 블록 기록 (ShardRun, PairBlock 엔티티)
+-- spring.jpa.hibernate.ddl-auto: none -> 배포 전에 순서대로 수동 적용 (파일명은 Flyway 규칙)
+
+CREATE TABLE ShardRun (
+    shardRunId   BIGINT       NOT NULL AUTO_INCREMENT,
+    groupId      VARCHAR(255) NOT NULL,
+    runNo        INT          NOT NULL,
+    assignmentId BIGINT       NOT NULL,
+    totalBlocks  INT          NOT NULL,
+    createdAt    DATETIME(6)  NOT NULL,
+    completedAt  DATETIME(6)  NULL,
+    failedAt     DATETIME(6)  NULL,
+    PRIMARY KEY (shardRunId),
+    CONSTRAINT uk_shard_run_group_run UNIQUE (groupId, runNo)
+);
+
+CREATE TABLE PairBlock (
+    pairBlockId BIGINT       NOT NULL AUTO_INCREMENT,
+    shardRunId  BIGINT       NOT NULL,
+    groupId     VARCHAR(255) NOT NULL,
+    blockIndex  INT          NOT NULL,
+    pairCount   INT          NOT NULL,
+    completedAt DATETIME(6)  NOT NULL,
+    PRIMARY KEY (pairBlockId),
+    CONSTRAINT uk_pair_block_run_index UNIQUE (shardRunId, blockIndex)
+);
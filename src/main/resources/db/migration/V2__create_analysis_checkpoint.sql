@@ -0,0 +1,20 @@
+-- 그룹 분석 체크포인트 (AnalysisCheckpoint 엔티티)
+-- completedPairs: submissionId 순 정렬 기준 상삼각 페어 인덱스 비트맵 (BitSet.toByteArray)
+
+CREATE TABLE AnalysisCheckpoint (
+    checkpointId     BIGINT       NOT NULL AUTO_INCREMENT,
+    runKey           VARCHAR(100) NOT NULL,
+    assignmentId     BIGINT       NOT NULL,
+    groupId          VARCHAR(255) NULL,
+    submissionCount  INT          NOT NULL,
+    pairTotal        BIGINT       NOT NULL,
+    pairDone         BIGINT       NOT NULL,
+    resumedFromPairs BIGINT       NOT NULL,
+    completedPairs   LONGBLOB     NULL,
+    createdAt        DATETIME(6)  NOT NULL,
+    updatedAt        DATETIME(6)  NOT NULL,
+    completedAt      DATETIME(6)  NULL,
+    PRIMARY KEY (checkpointId),
+    CONSTRAINT uk_analysis_checkpoint_run UNIQUE (runKey),
+    INDEX idx_analysis_checkpoint_assignment (assignmentId, updatedAt)
+);
@@ -0,0 +1,8 @@
+-- top-K 조회용 Result 인덱스 (Result 엔티티 @Index, DESC 키는 MySQL 8 이상)
+-- 조회는 Result 엔티티 전체를 읽으므로 커버링 인덱스가 아님:
+-- 인덱스로 유사도 내림차순 범위를 k행만 읽고, 나머지 컬럼은 행마다 PK(resultId)로 다시 읽음 (k번)
+
+ALTER TABLE Result
+    ADD INDEX idx_result_assignment_score (assignmentId, accumulateResult DESC),
+    ADD INDEX idx_result_assignment_student_from_score (assignmentId, student_from_id, accumulateResult DESC),
+    ADD INDEX idx_result_assignment_student_to_score (assignmentId, student_to_id, accumulateResult DESC);
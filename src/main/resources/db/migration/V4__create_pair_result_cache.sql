@@ -0,0 +1,18 @@
+-- AST 내용 해시 쌍 -> 페어 결과 캐시 (PairResultCache 엔티티)
+-- fromHash/toHash: 조회 키 (64비트), fromDigest/toDigest: 같은 내용의 SHA-256 (충돌 확인, 이전 형식 행은 NULL)
+-- 조회는 행 단위 (fromHash =, toHash IN) -> 유니크 키 앞 두 컬럼, 이전 scoreVersion 삭제는 버전 인덱스
+
+CREATE TABLE PairResultCache (
+    pairResultCacheId BIGINT      NOT NULL AUTO_INCREMENT,
+    fromHash          BIGINT      NOT NULL,
+    toHash            BIGINT      NOT NULL,
+    fromDigest        BINARY(32)  NULL,
+    toDigest          BINARY(32)  NULL,
+    scoreVersion      INT         NOT NULL,
+    similarity        DOUBLE      NULL,
+    segments          BLOB        NULL,
+    createdAt         DATETIME(6) NOT NULL,
+    PRIMARY KEY (pairResultCacheId),
+    CONSTRAINT uk_pair_result_cache_key UNIQUE (fromHash, toHash, scoreVersion),
+    INDEX idx_pair_result_cache_version (scoreVersion)
+);
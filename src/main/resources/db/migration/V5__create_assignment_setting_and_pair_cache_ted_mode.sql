@@ -0,0 +1,15 @@
+-- 과제별 분석 설정 (AssignmentSetting 엔티티, 행이 없으면 similarity.ted.mode 기본값)
+-- PairResultCache.tedMode: 결과를 계산한 TED 엔진, 같은 해시 쌍이라도 엔진별로 따로 저장
+-- 기존 행은 전체 TED로 계산된 결과 -> FULL로 채움 (NULL이면 유니크 키가 중복을 막지 못함)
+
+CREATE TABLE AssignmentSetting (
+    assignmentId BIGINT      NOT NULL,
+    tedMode      VARCHAR(16) NULL,
+    updatedAt    DATETIME(6) NULL,
+    PRIMARY KEY (assignmentId)
+);
+
+ALTER TABLE PairResultCache
+    ADD COLUMN tedMode VARCHAR(16) NOT NULL DEFAULT 'FULL' AFTER scoreVersion,
+    DROP INDEX uk_pair_result_cache_key,
+    ADD CONSTRAINT uk_pair_result_cache_key UNIQUE (fromHash, toHash, scoreVersion, tedMode);
@@ -0,0 +1,7 @@
+-- PairResultCache.matcher: segments를 만든 매칭 구현 (PairMatcher.Engine), 구현마다 따로 저장
+-- 기존 행은 TED 매칭으로 만든 세그먼트 -> TED로 채움 (NULL이면 유니크 키가 중복을 막지 못함)
+
+ALTER TABLE PairResultCache
+    ADD COLUMN matcher VARCHAR(16) NOT NULL DEFAULT 'TED' AFTER similarity,
+    DROP INDEX uk_pair_result_cache_key,
+    ADD CONSTRAINT uk_pair_result_cache_key UNIQUE (fromHash, toHash, scoreVersion, tedMode, matcher);
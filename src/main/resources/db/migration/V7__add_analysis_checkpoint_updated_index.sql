@@ -0,0 +1,5 @@
+-- AnalysisCheckpoint 보관 기간 정리 (AnalysisCheckpointService.pruneExpired)
+-- 완료 시 updatedAt = completedAt -> updatedAt 하나로 완료/중단된 오래된 실행을 함께 찾음
+
+ALTER TABLE AnalysisCheckpoint
+    ADD INDEX idx_analysis_checkpoint_updated (updatedAt);
@@ -0,0 +1,6 @@
+-- Result.segmentsComputed: 매칭 세그먼트(Codeline)를 계산했는지 (PairSegmentService lazy 모드)
+-- 세그먼트가 없는 페어도 true로 남겨 재시작 후 다시 계산하지 않음
+-- 기존 행은 FALSE: lazy 모드에서 Codeline이 없는 페어만 첫 조회 때 한 번 다시 계산
+
+ALTER TABLE Result
+    ADD COLUMN segmentsComputed BOOLEAN NOT NULL DEFAULT FALSE;
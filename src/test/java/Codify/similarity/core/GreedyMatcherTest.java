@@ -0,0 +1,133 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// GreedyMatcher: 작은 트리에서 세그먼트가 기대 구간인지
+class GreedyMatcherTest {
+
+    @Test
+    void renamedCopyYieldsFullRanges() {
+        TreeSnapshot a = TreeSnapshot.of(program(1, "sum", "total"));
+        TreeSnapshot b = TreeSnapshot.of(program(1, "add", "acc"));
+
+        List<TreeMatcher.Seg> segments = segments(a, b);
+
+        // 식별자만 다름 -> 두 메서드 전체가 같은 구간으로
+        assertEquals(List.of(new TreeMatcher.Seg(2, 7, 2, 7), new TreeMatcher.Seg(8, 11, 8, 11)), segments);
+    }
+
+    @Test
+    void shiftedCopyMapsToShiftedLines() {
+        TreeSnapshot a = TreeSnapshot.of(program(1, "sum", "total"));
+        // 같은 코드를 3줄 아래에 (위에 필드 선언 추가)
+        TreeNode shifted = program(4, "sum", "total");
+        shifted.children.add(0, node("FieldDeclaration", 2));
+
+        List<TreeMatcher.Seg> segments = segments(a, TreeSnapshot.of(shifted));
+
+        assertEquals(List.of(new TreeMatcher.Seg(2, 7, 5, 10), new TreeMatcher.Seg(8, 11, 11, 14)), segments);
+    }
+
+    @Test
+    void unrelatedTreesYieldNothing() {
+        TreeSnapshot a = TreeSnapshot.of(program(1, "sum", "total"));
+        TreeNode other = node("ClassOrInterfaceDeclaration", 1,
+                node("EnumDeclaration", 2, node("EnumConstant", 3), node("EnumConstant", 4)),
+                node("AnnotationDeclaration", 5, node("MemberValuePair", 6), node("MemberValuePair", 7)));
+
+        assertTrue(segments(a, TreeSnapshot.of(other)).isEmpty());
+    }
+
+    @Test
+    void matchesPairSameLabelsAndSkipRoot() {
+        TreeSnapshot a = TreeSnapshot.of(program(1, "sum", "total"));
+        TreeSnapshot b = TreeSnapshot.of(program(1, "add", "acc"));
+
+        List<TreeMatcher.Match> matches = GreedyMatcher.match(a, b);
+
+        assertFalse(matches.isEmpty());
+        for (TreeMatcher.Match match : matches) {
+            assertEquals(match.a().label, match.b().label);
+            assertNotSame(a.node(0), match.a());
+        }
+    }
+
+    @Test
+    void unmatchedIdenticalSiblingIsOpened() {
+        // a: 같은 for 두 개, b: for 하나 + 본문이 같은 while
+        TreeNode loopA1 = loop("ForStmt", 3);
+        TreeNode loopA2 = loop("ForStmt", 5);
+        TreeNode loopB = loop("ForStmt", 3);
+        TreeNode whileB = loop("WhileStmt", 5);
+        TreeSnapshot a = TreeSnapshot.of(node("MethodDeclaration", 2, node("BlockStmt", 2, loopA1, loopA2)));
+        TreeSnapshot b = TreeSnapshot.of(node("MethodDeclaration", 2, node("BlockStmt", 2, loopB, whileB)));
+
+        List<TreeMatcher.Match> matches = GreedyMatcher.match(a, b);
+
+        // 같은 후보 하나는 첫 for와 매핑, 짝이 없는 두 번째 for는 버리지 않고 자식을 열어 while 본문과 매핑
+        assertTrue(matches.contains(new TreeMatcher.Match(loopA1, loopB)));
+        assertTrue(matches.stream().noneMatch(m -> m.a() == loopA2));
+        assertTrue(matches.contains(new TreeMatcher.Match(loopA2.children.get(0), whileB.children.get(0))));
+        assertTrue(matches.contains(new TreeMatcher.Match(loopA2.children.get(1), whileB.children.get(1))));
+    }
+
+    // 같은 구간은 한 번만 (메서드와 본문 블록처럼 span이 같은 노드 쌍은 같은 세그먼트를 만듦)
+    private static List<TreeMatcher.Seg> segments(TreeSnapshot a, TreeSnapshot b) {
+        return PairMatcher.of(PairMatcher.Engine.GREEDY).segments(TreeAlignment.of(a, b), 2).stream()
+                .distinct()
+                .toList();
+    }
+
+    // 클래스 하나에 메서드 둘 (first줄부터, 반복문 메서드 6줄 + 조건문 메서드 4줄)
+    private static TreeNode program(int first, String method, String variable) {
+        int l = first;
+        return node("ClassOrInterfaceDeclaration", l,
+                node("MethodDeclaration", l + 1,
+                        name(method, l + 1),
+                        node("BlockStmt", l + 1,
+                                node("VariableDeclarator", l + 2,
+                                        name(variable, l + 2), node("IntegerLiteral", l + 2)),
+                                node("ForStmt", l + 3,
+                                        node("BinaryExpr", l + 3, name("i", l + 3), node("IntegerLiteral", l + 3)),
+                                        node("ExpressionStmt", l + 4,
+                                                node("AssignExpr", l + 4, name(variable, l + 4), name("i", l + 4)))),
+                                node("ReturnStmt", l + 5, name(variable, l + 5)),
+                                node("EmptyStmt", l + 6))),
+                node("MethodDeclaration", l + 7,
+                        name("check", l + 7),
+                        node("BlockStmt", l + 7,
+                                node("IfStmt", l + 8,
+                                        node("BinaryExpr", l + 8,
+                                                name(variable, l + 8), node("NullLiteralExpr", l + 8)),
+                                        node("ReturnStmt", l + 9, node("BooleanLiteralExpr", l + 9))),
+                                node("ReturnStmt", l + 10, node("BooleanLiteralExpr", l + 10)))));
+    }
+
+    // 두 줄짜리 반복문 (조건 + 대입 본문)
+    private static TreeNode loop(String label, int line) {
+        return node(label, line,
+                node("BinaryExpr", line, name("i", line), node("IntegerLiteral", line)),
+                node("BlockStmt", line + 1,
+                        node("ExpressionStmt", line + 1,
+                                node("AssignExpr", line + 1, name("x", line + 1), name("i", line + 1)))));
+    }
+
+    private static TreeNode name(String value, int line) {
+        TreeNode name = node("SimpleName", line);
+        name.value = value;
+        return name;
+    }
+
+    private static TreeNode node(String label, int line, TreeNode... children) {
+        TreeNode node = new TreeNode(label);
+        node.line = line;
+        for (TreeNode child : children) node.addChild(child);
+        return node;
+    }
+}
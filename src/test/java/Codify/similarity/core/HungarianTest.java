@@ -0,0 +1,80 @@
+package Codify.similarity.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 헝가리안 배정이 순열 완전 탐색의 최소 비용과 같은지
+class HungarianTest {
+
+    @Test
+    void matchesBruteForceOnRandomMatrices() {
+        Random random = new Random(17L);
+        for (int round = 0; round < 500; round++) {
+            int n = 1 + random.nextInt(7);
+            long[][] cost = new long[n][n];
+            for (long[] row : cost) {
+                // 작은 범위 -> 같은 비용(동점)이 자주 나옴
+                for (int j = 0; j < n; j++) row[j] = random.nextInt(round % 2 == 0 ? 5 : 1000);
+            }
+            int[] assign = Hungarian.assign(cost);
+            assertPermutation(assign);
+            assertEquals(bruteForce(cost), total(cost, assign), "round " + round);
+        }
+    }
+
+    @Test
+    void singleCellAndIdentity() {
+        assertArrayEquals(new int[]{0}, Hungarian.assign(new long[][]{{7}}));
+
+        // 대각선만 0 -> 그대로 배정
+        long[][] cost = {{0, 9, 9}, {9, 0, 9}, {9, 9, 0}};
+        assertArrayEquals(new int[]{0, 1, 2}, Hungarian.assign(cost));
+
+        // 탐욕(행마다 최솟값)으로는 1 + 11 = 12, 최적은 2 + 1 = 3
+        long[][] crossed = {{1, 2}, {1, 11}};
+        int[] assign = Hungarian.assign(crossed);
+        assertEquals(3, total(crossed, assign));
+    }
+
+    @Test
+    void largeCostsDoNotOverflow() {
+        // TED 비용은 서브트리 크기 합 (int 범위를 넘지 않지만 포텐셜 계산은 long)
+        long big = Integer.MAX_VALUE;
+        long[][] cost = {{big, 1, big}, {big, big, 1}, {1, big, big}};
+        assertArrayEquals(new int[]{1, 2, 0}, Hungarian.assign(cost));
+    }
+
+    private static void assertPermutation(int[] assign) {
+        boolean[] seen = new boolean[assign.length];
+        for (int col : assign) {
+            assertTrue(col >= 0 && col < assign.length, "column " + col);
+            assertFalse(seen[col], "column " + col + " assigned twice");
+            seen[col] = true;
+        }
+    }
+
+    private static long total(long[][] cost, int[] assign) {
+        long sum = 0;
+        for (int i = 0; i < assign.length; i++) sum += cost[i][assign[i]];
+        return sum;
+    }
+
+    private static long bruteForce(long[][] cost) {
+        return bruteForce(cost, 0, new boolean[cost.length]);
+    }
+
+    private static long bruteForce(long[][] cost, int row, boolean[] used) {
+        if (row == cost.length) return 0;
+        long best = Long.MAX_VALUE;
+        for (int j = 0; j < cost.length; j++) {
+            if (used[j]) continue;
+            used[j] = true;
+            best = Math.min(best, cost[row][j] + bruteForce(cost, row + 1, used));
+            used[j] = false;
+        }
+        return best;
+    }
+}
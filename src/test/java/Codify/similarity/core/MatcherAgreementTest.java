@@ -0,0 +1,79 @@
+package Codify.similarity.core;
+
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.model.TreeNodeBuilder;
+import Codify.similarity.model.TreeSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 매칭 구현별 세그먼트가 TED 매칭과 얼마나 같은 라인을 덮는지 (MatcherBenchmark와 같은 합성 AST)
+// 일치도: 양쪽 세그먼트가 덮는 라인 집합의 Jaccard (from / to 각각)
+class MatcherAgreementTest {
+
+    @Test
+    void greedyCoversSameLinesAsTed() {
+        assertAgreement(PairMatcher.Engine.GREEDY, 1000, 0.05, 0.95);
+        assertAgreement(PairMatcher.Engine.GREEDY, 2000, 0.2, 0.95);
+    }
+
+    @Test
+    void winnowingCoversMostLinesOfTed() {
+        // 변경이 적으면 거의 같고, 많으면 라벨 k-gram이 끊겨 덮는 구간이 줄어듦
+        assertAgreement(PairMatcher.Engine.WINNOWING, 1000, 0.05, 0.95);
+        assertAgreement(PairMatcher.Engine.WINNOWING, 2000, 0.2, 0.65);
+    }
+
+    @Test
+    void nodeMatchersSplitIntoMatchAndSegments() {
+        // MATCH / SEGMENTS 계측을 나눠도 segments()와 같은 결과 (WINNOWING은 노드 매칭 없음)
+        var generator = new SyntheticAstGenerator(7L);
+        JsonNode jsonA = generator.generate(new SyntheticAstGenerator.Spec(800, 12, 4, 0.1));
+        TreeAlignment alignment = TreeAlignment.of(TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonA)),
+                TreeSnapshot.of(TreeNodeBuilder.fromJson(generator.mutate(jsonA, 0.1))));
+        for (PairMatcher.Engine engine : List.of(PairMatcher.Engine.TED, PairMatcher.Engine.GREEDY)) {
+            PairMatcher.NodeMatcher matcher = assertInstanceOf(PairMatcher.NodeMatcher.class, PairMatcher.of(engine));
+            assertEquals(matcher.segments(alignment, 2), TreeMatcher.toSegments(matcher.match(alignment), 2));
+        }
+        assertFalse(PairMatcher.of(PairMatcher.Engine.WINNOWING) instanceof PairMatcher.NodeMatcher);
+    }
+
+    private static void assertAgreement(PairMatcher.Engine engine, int size, double mutationRate, double minJaccard) {
+        var generator = new SyntheticAstGenerator(42L);
+        JsonNode jsonA = generator.generate(new SyntheticAstGenerator.Spec(size, 12, 4, mutationRate));
+        JsonNode jsonB = generator.mutate(jsonA, mutationRate);
+        TreeAlignment alignment = TreeAlignment.of(TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonA)),
+                TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonB)));
+
+        BitSet[] expected = coveredLines(PairMatcher.of(PairMatcher.Engine.TED).segments(alignment, 2));
+        BitSet[] actual = coveredLines(PairMatcher.of(engine).segments(alignment, 2));
+        assertFalse(expected[0].isEmpty());
+        String label = engine + " size=" + size + " mutation=" + mutationRate;
+        assertTrue(jaccard(expected[0], actual[0]) >= minJaccard, label + " from=" + jaccard(expected[0], actual[0]));
+        assertTrue(jaccard(expected[1], actual[1]) >= minJaccard, label + " to=" + jaccard(expected[1], actual[1]));
+    }
+
+    // [from 라인, to 라인]
+    private static BitSet[] coveredLines(List<TreeMatcher.Seg> segments) {
+        BitSet from = new BitSet();
+        BitSet to = new BitSet();
+        for (TreeMatcher.Seg seg : segments) {
+            from.set(seg.fs(), seg.fe() + 1);
+            to.set(seg.ts(), seg.te() + 1);
+        }
+        return new BitSet[]{from, to};
+    }
+
+    private static double jaccard(BitSet x, BitSet y) {
+        BitSet union = (BitSet) x.clone();
+        union.or(y);
+        if (union.isEmpty()) return 1.0;
+        BitSet common = (BitSet) x.clone();
+        common.and(y);
+        return (double) common.cardinality() / union.cardinality();
+    }
+}
@@ -0,0 +1,138 @@
+package Codify.similarity.core;
+
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeNodeBuilder;
+import Codify.similarity.model.TreeSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// TedTable / TreeAlignment 거리가 기준 구현(TreeEditDistance, 재귀)과 같은지
+class TedTableTest {
+
+    private static final String[] LABELS = {"Block", "IfStmt", "ForStmt", "Call", "Name", "Literal"};
+
+    @Test
+    void distanceMatchesBaselineOnRandomTrees() {
+        Random random = new Random(11L);
+        for (int round = 0; round < 300; round++) {
+            long seedA = random.nextLong(), seedB = random.nextLong();
+            int sizeA = 1 + random.nextInt(40), sizeB = 1 + random.nextInt(40);
+            int expected = TreeEditDistance.compute(tree(seedA, sizeA), tree(seedB, sizeB));
+
+            TreeSnapshot a = TreeSnapshot.of(tree(seedA, sizeA));
+            TreeSnapshot b = TreeSnapshot.of(tree(seedB, sizeB));
+            assertEquals(expected, TedTable.build(a, b).rootDistance(), "round " + round);
+            assertEquals(expected, TreeAlignment.of(a, b).distance(), "round " + round);
+        }
+    }
+
+    @Test
+    void identicalAndLeafPairs() {
+        TreeSnapshot a = TreeSnapshot.of(tree(3L, 30));
+        assertEquals(0, TedTable.build(a, TreeSnapshot.of(tree(3L, 30))).rootDistance());
+
+        // 리프 vs 트리: 이름 변경 + 나머지 전부 삽입
+        TreeSnapshot leaf = TreeSnapshot.of(new TreeNode("Leaf"));
+        assertEquals(a.nodeCount(), TedTable.build(leaf, a).rootDistance());
+        assertEquals(a.nodeCount(), TedTable.build(a, leaf).rootDistance());
+
+        TreeAlignment alignment = TreeAlignment.of(leaf, a);
+        assertEquals(a.nodeCount(), alignment.maxSize());
+        assertEquals(0.0, alignment.similarity(), 1e-9);
+    }
+
+    @Test
+    void parallelFillMatchesSequential() {
+        // 넓은 트리 -> 한 깊이에 PARALLEL_GRAIN보다 많은 쌍
+        TreeSnapshot a = TreeSnapshot.of(tree(5L, 600));
+        TreeSnapshot b = TreeSnapshot.of(tree(6L, 600));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int sequential = TedTable.build(a, b).rootDistance();
+            assertEquals(TreeEditDistance.compute(tree(5L, 600), tree(6L, 600)), sequential);
+            assertEquals(sequential, TedTable.build(a, b, pool).rootDistance());
+            assertEquals(sequential, TreeAlignment.of(a, b, pool).distance());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void subtreeTableMatchesBaselineOnSubtrees() {
+        TreeNode rootA = tree(8L, 120);
+        TreeNode rootB = tree(9L, 120);
+        TreeSnapshot a = TreeSnapshot.of(tree(8L, 120));
+        TreeSnapshot b = TreeSnapshot.of(tree(9L, 120));
+        List<TreeNode> nodesA = preorder(rootA);
+        List<TreeNode> nodesB = preorder(rootB);
+
+        Random random = new Random(13L);
+        for (int round = 0; round < 50; round++) {
+            int x = random.nextInt(a.nodeCount());
+            int y = random.nextInt(b.nodeCount());
+            TedTable table = TedTable.build(a, x, b, y, null);
+            assertEquals(TreeEditDistance.compute(nodesA.get(x), nodesB.get(y)), table.rootDistance(),
+                    "pair " + x + "," + y);
+            // 미리 센 쌍 수 = 실제로 나열한 쌍 수 (배열을 정확한 크기로 할당)
+            assertEquals(TedTable.pairCount(a, x, b, y), table.pairs(), "pair " + x + "," + y);
+        }
+    }
+
+    @Test
+    void largeTableIsNotRetainedButGivesSameResult() {
+        var generator = new SyntheticAstGenerator(42L);
+        JsonNode json = generator.generate(new SyntheticAstGenerator.Spec(10_000, 12, 4, 0.1));
+        TreeSnapshot a = TreeSnapshot.of(TreeNodeBuilder.fromJson(json));
+        TreeSnapshot b = TreeSnapshot.of(TreeNodeBuilder.fromJson(generator.mutate(json, 0.1)));
+        assertTrue(TedTable.large(TedTable.pairCount(a, 0, b, 0)));
+
+        // 큰 표: 거리만 남기고 matches()에서 다시 만듦 -> 표를 들고 있는 경우와 결과가 같아야 함
+        TedTable table = TedTable.build(a, b);
+        TreeAlignment alignment = TreeAlignment.of(a, b);
+        assertEquals(table.rootDistance(), alignment.distance());
+        assertEquals(TreeMatcher.match(table), alignment.matches());
+    }
+
+    // 시드가 같으면 같은 트리 (새 노드는 최근 노드 근처에 붙여 깊이와 폭이 섞이게)
+    static TreeNode tree(long seed, int size) {
+        Random random = new Random(seed);
+        List<TreeNode> nodes = new ArrayList<>();
+        TreeNode root = node(random, 1);
+        nodes.add(root);
+        for (int i = 1; i < size; i++) {
+            int from = Math.max(0, nodes.size() - 8);
+            TreeNode parent = random.nextInt(4) == 0
+                    ? nodes.get(random.nextInt(nodes.size()))
+                    : nodes.get(from + random.nextInt(nodes.size() - from));
+            TreeNode child = node(random, i + 1);
+            parent.addChild(child);
+            nodes.add(child);
+        }
+        return root;
+    }
+
+    private static TreeNode node(Random random, int line) {
+        TreeNode node = new TreeNode(LABELS[random.nextInt(LABELS.length)]);
+        node.line = line;
+        return node;
+    }
+
+    private static List<TreeNode> preorder(TreeNode root) {
+        List<TreeNode> order = new ArrayList<>();
+        List<TreeNode> stack = new ArrayList<>(List.of(root));
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.remove(stack.size() - 1);
+            order.add(node);
+            for (int i = node.children.size() - 1; i >= 0; i--) stack.add(node.children.get(i));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,131 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 메서드 분해 TED (TreeAlignment.byMethods)
+class TreeAlignmentTest {
+
+    private static final String[] BODY = {"ExprStmt", "IfStmt", "ForStmt", "MethodCall", "Name", "Literal"};
+
+    @Test
+    void withoutMethodsEqualsFullTed() {
+        // TedTableTest.tree에는 MethodDeclaration이 없음 -> 나머지 트리 = 전체 트리
+        Random random = new Random(21L);
+        for (int round = 0; round < 100; round++) {
+            long seedA = random.nextLong(), seedB = random.nextLong();
+            int sizeA = 1 + random.nextInt(40), sizeB = 1 + random.nextInt(40);
+            TreeSnapshot a = TreeSnapshot.of(TedTableTest.tree(seedA, sizeA));
+            TreeSnapshot b = TreeSnapshot.of(TedTableTest.tree(seedB, sizeB));
+            assertEquals(TreeAlignment.of(a, b).distance(), TreeAlignment.byMethods(a, b, null).distance(),
+                    "round " + round);
+        }
+    }
+
+    @Test
+    void reorderedMethodsCostNothing() {
+        TreeSnapshot a = TreeSnapshot.of(type(method(10L, 12), method(11L, 15)));
+        TreeSnapshot b = TreeSnapshot.of(type(method(11L, 15), method(10L, 12)));
+
+        // 전체 TED는 순서가 바뀐 형제를 짝짓지 못함, 분해는 위치와 무관하게 배정
+        assertTrue(TreeAlignment.of(a, b).distance() > 0);
+        TreeAlignment alignment = TreeAlignment.byMethods(a, b, null);
+        assertEquals(0, alignment.distance());
+        assertEquals(1.0, alignment.similarity(), 1e-9);
+
+        // 메서드 노드(전위 2번부터)는 모두 매칭, 매칭은 같은 라벨끼리 (추가 매칭 후보 포함)
+        List<TreeMatcher.Match> matches = alignment.matches();
+        Set<TreeNode> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TreeMatcher.Match match : matches) {
+            assertEquals(match.a().label, match.b().label);
+            matched.add(match.a());
+        }
+        for (int i = 2; i < a.nodeCount(); i++) assertTrue(matched.contains(a.node(i)), "node " + i);
+        assertFalse(alignment.segments(2).isEmpty());
+    }
+
+    @Test
+    void changedAndAddedMethods() {
+        TreeSnapshot a = TreeSnapshot.of(type(method(30L, 10), method(31L, 14)));
+
+        // 메서드 본문 노드 하나의 라벨만 다름 -> 이름 변경 1
+        TreeNode renamed = type(method(30L, 10), method(31L, 14));
+        TreeNode body = renamed.children.get(2).children.get(1);
+        body.label = "ReturnStmt";
+        assertEquals(1, TreeAlignment.byMethods(a, TreeSnapshot.of(renamed), null).distance());
+
+        // 메서드 추가 -> 추가한 서브트리(노드 9개) 전체 삽입
+        TreeSnapshot added = TreeSnapshot.of(type(method(30L, 10), method(32L, 9), method(31L, 14)));
+        assertEquals(9, TreeAlignment.byMethods(a, added, null).distance());
+        assertEquals(9, TreeAlignment.byMethods(added, a, null).distance());
+    }
+
+    @Test
+    void manyMethodsKeepExactPartnerAndPoolMatchesSequential() {
+        // 후보(METHOD_CANDIDATES)보다 메서드가 많아도 같은 메서드는 하한 0이라 항상 후보
+        Random random = new Random(23L);
+        TreeNode[] methodsA = new TreeNode[12];
+        TreeNode[] methodsB = new TreeNode[12];
+        for (int m = 0; m < methodsA.length; m++) {
+            long seed = random.nextLong();
+            int size = 5 + random.nextInt(20);
+            methodsA[m] = method(seed, size);
+            methodsB[methodsB.length - 1 - m] = method(seed, size);
+        }
+        TreeSnapshot a = TreeSnapshot.of(type(methodsA));
+        TreeSnapshot b = TreeSnapshot.of(type(methodsB));
+        assertEquals(0, TreeAlignment.byMethods(a, b, null).distance());
+
+        TreeSnapshot c = TreeSnapshot.of(type(method(41L, 30), method(42L, 8), method(43L, 20)));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int sequential = TreeAlignment.byMethods(a, c, null).distance();
+            assertEquals(sequential, TreeAlignment.byMethods(a, c, pool).distance());
+            // b는 a의 메서드 순서만 뒤집은 트리
+            assertEquals(sequential, TreeAlignment.byMethods(c, b, pool).distance());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 클래스 선언 (필드 하나 + 메서드들)
+    private static TreeNode type(TreeNode... methods) {
+        TreeNode type = new TreeNode("ClassOrInterfaceDeclaration");
+        type.line = 1;
+        TreeNode field = new TreeNode("FieldDeclaration");
+        field.line = 2;
+        type.addChild(field);
+        for (TreeNode method : methods) type.addChild(method);
+        return type;
+    }
+
+    // 시드가 같으면 같은 메서드 (이름 + 본문 노드 size - 2개를 한 줄에 하나씩)
+    private static TreeNode method(long seed, int size) {
+        Random random = new Random(seed);
+        int line = 100 + random.nextInt(1000);
+        TreeNode method = new TreeNode("MethodDeclaration");
+        method.line = line;
+        TreeNode name = new TreeNode("SimpleName");
+        name.value = "m" + seed;
+        name.line = line;
+        method.addChild(name);
+        TreeNode parent = method;
+        for (int i = 2; i < size; i++) {
+            TreeNode node = new TreeNode(BODY[random.nextInt(BODY.length)]);
+            node.line = line + i;
+            parent.addChild(node);
+            if (random.nextInt(3) == 0) parent = node;
+        }
+        return method;
+    }
+}
@@ -0,0 +1,161 @@
+package Codify.similarity.core;
+
+import Codify.similarity.fixture.SyntheticAstGenerator;
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeNodeBuilder;
+import Codify.similarity.model.TreeSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// TreeMatcher 골든 출력: 최적 경로 매칭 + 추가 후보 조인(mergeAllMatches) 순서, 겹침 제거 후 세그먼트
+// 매칭은 (A 전위 인덱스:B 전위 인덱스) 나열의 CRC32로 고정 (로직을 바꿨으면 의도한 변화인지 확인 후 갱신)
+class TreeMatcherTest {
+
+    @Test
+    void loopJoinAddsMatchOutsideOptimalPath() {
+        // a: for 두 개 + if, b: 두 번째 for + if (줄 이동)
+        TreeNode a = unit(method(1, loop(2, "i"), loop(4, "j"), condition(6)));
+        TreeNode b = unit(method(1, loop(3, "k"), condition(5)));
+        TreeAlignment alignment = TreeAlignment.of(TreeSnapshot.of(a), TreeSnapshot.of(b));
+
+        List<String> spans = alignment.matches().stream()
+                .map(m -> m.a().label + " " + m.a().minLine + "-" + m.a().maxLine
+                        + " " + m.b().minLine + "-" + m.b().maxLine)
+                .toList();
+        // 최적 경로(역추적 순서) 뒤에 같은 라벨 조인으로 첫 번째 for <-> b의 for가 추가됨
+        // 메서드는 연산자 수가 달라 매칭되지 않음 (isMethodContentSimilar)
+        assertEquals(List.of(
+                "Literal 7-7 6-6", "ReturnStmt 7-7 6-6", "BlockStmt 7-7 6-6",
+                "Operator 6-6 5-5", "VariableName 6-6 5-5", "BinaryExpr 6-6 5-5", "IfStmt 6-7 5-6",
+                "MethodCall 5-5 4-4", "ExpressionStmt 5-5 4-4",
+                "Literal 4-4 3-3", "Operator 4-4 3-3", "VariableName 4-4 3-3", "BinaryExpr 4-4 3-3",
+                "ForStmt 4-5 3-4", "BlockStmt 1-7 1-6",
+                "ParameterList 1-1 1-1", "FunctionName 1-1 1-1", "Type 1-1 1-1",
+                "ForStmt 2-3 3-4"), spans);
+        // 2줄 이상 구간은 모두 본문 블록(1-7)에 포함 -> 하나만 남음
+        assertEquals(List.of(new TreeMatcher.Seg(1, 7, 1, 6)), alignment.segments(2));
+    }
+
+    @Test
+    void mutatedPairsKeepGoldenOutput() {
+        assertGolden(11L, 400, 0.1, 1684, 0xe3c1897cL, List.of(
+                new TreeMatcher.Seg(1, 3, 1, 3), new TreeMatcher.Seg(1, 3, 1, 3),
+                new TreeMatcher.Seg(4, 112, 4, 112), new TreeMatcher.Seg(4, 112, 4, 112)));
+        assertGolden(12L, 1500, 0.2, 10473, 0x83178c77L, List.of(
+                new TreeMatcher.Seg(1, 10, 1, 2), new TreeMatcher.Seg(11, 69, 3, 59),
+                new TreeMatcher.Seg(70, 71, 60, 61), new TreeMatcher.Seg(72, 111, 62, 100),
+                new TreeMatcher.Seg(112, 145, 101, 134), new TreeMatcher.Seg(146, 148, 135, 137),
+                new TreeMatcher.Seg(149, 204, 138, 191), new TreeMatcher.Seg(205, 210, 192, 196),
+                new TreeMatcher.Seg(211, 212, 197, 198), new TreeMatcher.Seg(213, 318, 199, 278)));
+    }
+
+    @Test
+    void sameSnapshotKeepsGoldenOutput() {
+        // 같은 스냅샷끼리는 후보 색인을 공유
+        assertGolden(13L, 800, 0.0, 4119, 0xdf0573ecL, List.of(
+                new TreeMatcher.Seg(1, 34, 1, 34), new TreeMatcher.Seg(1, 34, 1, 34),
+                new TreeMatcher.Seg(35, 78, 35, 78), new TreeMatcher.Seg(35, 78, 35, 78),
+                new TreeMatcher.Seg(79, 80, 79, 80), new TreeMatcher.Seg(79, 80, 79, 80),
+                new TreeMatcher.Seg(81, 176, 81, 176), new TreeMatcher.Seg(81, 176, 81, 176),
+                new TreeMatcher.Seg(81, 176, 81, 176), new TreeMatcher.Seg(81, 176, 81, 176),
+                new TreeMatcher.Seg(81, 176, 81, 176), new TreeMatcher.Seg(177, 180, 177, 180),
+                new TreeMatcher.Seg(177, 180, 177, 180)));
+    }
+
+    @Test
+    void deepExpressionDoesNotOverflowStack() {
+        // 깊이 1만 중첩 이항식: 최적 경로가 트리 깊이만큼 내려감 (재귀면 StackOverflowError)
+        var generator = new SyntheticAstGenerator(42L);
+        JsonNode json = generator.deepExpression(10_000);
+        TreeSnapshot a = TreeSnapshot.of(TreeNodeBuilder.fromJson(json));
+        TreeSnapshot b = TreeSnapshot.of(TreeNodeBuilder.fromJson(json));
+        TreeAlignment alignment = TreeAlignment.of(a, b);
+
+        assertEquals(0, alignment.distance());
+        // 루트를 뺀 모든 노드가 자기 자신과 매칭 (추가 후보 매칭은 같은 span이라 제외됨)
+        List<TreeMatcher.Match> matches = alignment.matches();
+        assertTrue(matches.size() >= a.nodeCount() - 1, "matches " + matches.size());
+        // 메서드(1-2줄)와 같은 span인 매칭이 둘 (메서드 + 본문 블록)
+        TreeMatcher.Seg method = new TreeMatcher.Seg(1, 2, 1, 2);
+        assertEquals(List.of(method, method), alignment.segments(2));
+    }
+
+    // mutationRate 0이면 원본 스냅샷끼리 비교
+    private static void assertGolden(long seed, int size, double mutationRate,
+                                     int matchCount, long matchCrc, List<TreeMatcher.Seg> segments) {
+        var generator = new SyntheticAstGenerator(seed);
+        JsonNode jsonA = generator.generate(new SyntheticAstGenerator.Spec(size, 12, 4, mutationRate));
+        TreeSnapshot a = TreeSnapshot.of(TreeNodeBuilder.fromJson(jsonA));
+        TreeSnapshot b = mutationRate == 0
+                ? a
+                : TreeSnapshot.of(TreeNodeBuilder.fromJson(generator.mutate(jsonA, mutationRate)));
+        TreeAlignment alignment = TreeAlignment.of(a, b);
+
+        List<TreeMatcher.Match> matches = alignment.matches();
+        String label = "seed " + seed;
+        assertEquals(matchCount, matches.size(), label);
+        assertEquals(matchCrc, crc(a, b, matches), label);
+        assertEquals(segments, alignment.segments(2), label);
+    }
+
+    private static long crc(TreeSnapshot a, TreeSnapshot b, List<TreeMatcher.Match> matches) {
+        Map<TreeNode, Integer> indexA = preorder(a);
+        Map<TreeNode, Integer> indexB = preorder(b);
+        StringBuilder sb = new StringBuilder();
+        for (TreeMatcher.Match match : matches) {
+            sb.append(indexA.get(match.a())).append(':').append(indexB.get(match.b())).append(',');
+        }
+        CRC32 crc = new CRC32();
+        crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static Map<TreeNode, Integer> preorder(TreeSnapshot snapshot) {
+        Map<TreeNode, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < snapshot.nodeCount(); i++) index.put(snapshot.node(i), i);
+        return index;
+    }
+
+    private static TreeNode unit(TreeNode method) {
+        return node("CompilationUnit", 0, method);
+    }
+
+    // 메서드 하나 (Type, FunctionName, ParameterList, 본문 블록)
+    private static TreeNode method(int line, TreeNode... statements) {
+        TreeNode name = node("FunctionName", line);
+        name.value = "run";
+        return node("MethodDeclaration", line, node("Type", line), name, node("ParameterList", line),
+                node("BlockStmt", line, statements));
+    }
+
+    // 두 줄짜리 for (조건 + 본문 호출)
+    private static TreeNode loop(int line, String variable) {
+        TreeNode name = node("VariableName", line);
+        name.value = variable;
+        return node("ForStmt", line,
+                node("BinaryExpr", line, name, node("Operator", line), node("Literal", line)),
+                node("ExpressionStmt", line + 1, node("MethodCall", line + 1)));
+    }
+
+    // 두 줄짜리 if (조건 + return)
+    private static TreeNode condition(int line) {
+        return node("IfStmt", line,
+                node("BinaryExpr", line, node("VariableName", line), node("Operator", line)),
+                node("BlockStmt", line + 1, node("ReturnStmt", line + 1, node("Literal", line + 1))));
+    }
+
+    private static TreeNode node(String label, int line, TreeNode... children) {
+        TreeNode node = new TreeNode(label);
+        node.line = line;
+        for (TreeNode child : children) node.addChild(child);
+        return node;
+    }
+}
@@ -0,0 +1,68 @@
+package Codify.similarity.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnionFindTest {
+
+    @Test
+    void unionMergesSetsOnce() {
+        UnionFind uf = new UnionFind(4);
+        for (int i = 0; i < 4; i++) uf.add();
+
+        assertTrue(uf.union(0, 1));
+        assertTrue(uf.union(2, 1));
+        // 이미 같은 집합
+        assertFalse(uf.union(0, 2));
+
+        assertEquals(uf.find(0), uf.find(2));
+        assertNotEquals(uf.find(0), uf.find(3));
+        assertEquals(3, uf.componentSize(2));
+        assertEquals(1, uf.componentSize(3));
+    }
+
+    @Test
+    void addGrowsBeyondInitialCapacity() {
+        UnionFind uf = new UnionFind(1);
+        for (int i = 0; i < 100; i++) assertEquals(i, uf.add());
+        assertEquals(100, uf.size());
+
+        for (int i = 1; i < 100; i++) uf.union(i - 1, i);
+        assertEquals(100, uf.componentSize(57));
+        // 추가 이후 원소는 단독 집합
+        int added = uf.add();
+        assertEquals(1, uf.componentSize(added));
+    }
+
+    @Test
+    void matchesNaiveLabelingOnRandomUnions() {
+        int n = 200;
+        Random random = new Random(7L);
+        UnionFind uf = new UnionFind(8);
+        int[] label = new int[n];
+        for (int i = 0; i < n; i++) {
+            uf.add();
+            label[i] = i;
+        }
+
+        for (int step = 0; step < 150; step++) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            int la = label[a], lb = label[b];
+            assertEquals(la != lb, uf.union(a, b));
+            // 기준 구현: 라벨 일괄 치환
+            for (int i = 0; i < n; i++) if (label[i] == lb) label[i] = la;
+        }
+
+        for (int i = 0; i < n; i++) {
+            int size = 0;
+            for (int j = 0; j < n; j++) {
+                assertEquals(label[i] == label[j], uf.find(i) == uf.find(j));
+                if (label[j] == label[i]) size++;
+            }
+            assertEquals(size, uf.componentSize(i));
+        }
+    }
+}
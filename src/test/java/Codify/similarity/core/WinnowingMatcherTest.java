@@ -0,0 +1,126 @@
+package Codify.similarity.core;
+
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// WinnowingMatcher: 작은 트리에서 세그먼트가 기대 구간인지
+class WinnowingMatcherTest {
+
+    private static final String[] DISTINCT = {"IfStmt", "ForStmt", "WhileStmt", "ReturnStmt", "ThrowStmt", "DoStmt"};
+
+    @Test
+    void renamedCopyYieldsFullRange() {
+        TreeSnapshot a = TreeSnapshot.of(unit(1, distinct("sum")));
+        TreeSnapshot b = TreeSnapshot.of(unit(1, distinct("total")));
+
+        // value(식별자)는 토큰이 아님 -> 전체가 한 구간
+        assertEquals(List.of(new TreeMatcher.Seg(1, 7, 1, 7)), WinnowingMatcher.segments(a, b, 2));
+    }
+
+    @Test
+    void inputShorterThanKYieldsNothing() {
+        // 문장 하나 = 토큰 3개 -> 루트 + 3문장 = 10개 (K), 루트 + 2문장 = 7개
+        TreeSnapshot enough = TreeSnapshot.of(unit(1, List.of(statement("IfStmt", 2, "x"),
+                statement("ForStmt", 3, "y"), statement("ReturnStmt", 4, "z"))));
+        TreeSnapshot shorter = TreeSnapshot.of(unit(1, List.of(statement("IfStmt", 2, "x"),
+                statement("ForStmt", 3, "y"))));
+
+        assertFalse(WinnowingMatcher.segments(enough, enough, 1).isEmpty());
+        assertTrue(WinnowingMatcher.segments(shorter, shorter, 1).isEmpty());
+        assertTrue(WinnowingMatcher.segments(shorter, enough, 1).isEmpty());
+        assertTrue(WinnowingMatcher.segments(enough, shorter, 1).isEmpty());
+    }
+
+    @Test
+    void hashCollisionIsNotHighlighted() {
+        // "Aa"/"BB", "AaAa"/"BBBB"는 String.hashCode가 같음 -> 롤링 해시도 같지만 라벨은 다름
+        TreeSnapshot a = TreeSnapshot.of(chain("Aa", "AaAa", 12));
+        TreeSnapshot b = TreeSnapshot.of(chain("BB", "BBBB", 12));
+
+        assertTrue(WinnowingMatcher.segments(a, b, 1).isEmpty());
+        assertFalse(WinnowingMatcher.segments(a, TreeSnapshot.of(chain("Aa", "AaAa", 12)), 1).isEmpty());
+    }
+
+    @Test
+    void boilerplateIsHandledTheSameOnBothSides() {
+        // a: 고유 코드 + 상용구, b: 상용구 반복 뒤에 a와 같은 코드 (상용구 지문은 b에서 자주 나옴)
+        List<TreeNode> statementsA = new ArrayList<>(distinct("x"));
+        statementsA.addAll(boilerplate(8, 4));
+        List<TreeNode> statementsB = new ArrayList<>(boilerplate(2, 40));
+        statementsB.addAll(shift(distinct("x"), 40));
+        statementsB.addAll(boilerplate(48, 4));
+        TreeSnapshot a = TreeSnapshot.of(unit(1, statementsA));
+        TreeSnapshot b = TreeSnapshot.of(unit(1, statementsB));
+
+        List<TreeMatcher.Seg> forward = WinnowingMatcher.segments(a, b, 2);
+        List<TreeMatcher.Seg> backward = WinnowingMatcher.segments(b, a, 2).stream()
+                .map(seg -> new TreeMatcher.Seg(seg.ts(), seg.te(), seg.fs(), seg.fe()))
+                .sorted(Comparator.comparingInt(TreeMatcher.Seg::fs).thenComparingInt(TreeMatcher.Seg::ts))
+                .toList();
+        assertEquals(forward, backward);
+        // 뒤쪽 복사본은 상용구까지 한 구간
+        assertTrue(forward.contains(new TreeMatcher.Seg(2, 11, 42, 51)), forward.toString());
+    }
+
+    // 루트(line) + 문장들
+    private static TreeNode unit(int line, List<TreeNode> statements) {
+        TreeNode unit = node("CompilationUnit", line);
+        for (TreeNode statement : statements) unit.addChild(statement);
+        return unit;
+    }
+
+    // 라벨이 모두 다른 문장 6개 (2~7줄)
+    private static List<TreeNode> distinct(String name) {
+        List<TreeNode> statements = new ArrayList<>();
+        for (int i = 0; i < DISTINCT.length; i++) statements.add(statement(DISTINCT[i], 2 + i, name));
+        return statements;
+    }
+
+    // 같은 문장 count개 (first줄부터)
+    private static List<TreeNode> boilerplate(int first, int count) {
+        List<TreeNode> statements = new ArrayList<>();
+        for (int i = 0; i < count; i++) statements.add(statement("ExpressionStmt", first + i, "log"));
+        return statements;
+    }
+
+    private static List<TreeNode> shift(List<TreeNode> statements, int lines) {
+        for (TreeNode statement : statements) {
+            statement.line += lines;
+            for (TreeNode child : statement.children) child.line += lines;
+        }
+        return statements;
+    }
+
+    // 한 줄 문장: label(MethodCallExpr, SimpleName=value) -> 토큰 3개
+    private static TreeNode statement(String label, int line, String value) {
+        TreeNode name = node("SimpleName", line);
+        name.value = value;
+        return node(label, line, node("MethodCallExpr", line), name);
+    }
+
+    // 한 줄에 하나씩 두 라벨을 번갈아 이어 붙인 사슬
+    private static TreeNode chain(String even, String odd, int size) {
+        TreeNode root = node(even, 1);
+        TreeNode parent = root;
+        for (int i = 1; i < size; i++) {
+            TreeNode child = node(i % 2 == 0 ? even : odd, 1 + i);
+            parent.addChild(child);
+            parent = child;
+        }
+        return root;
+    }
+
+    private static TreeNode node(String label, int line, TreeNode... children) {
+        TreeNode node = new TreeNode(label);
+        node.line = line;
+        for (TreeNode child : children) node.addChild(child);
+        return node;
+    }
+}
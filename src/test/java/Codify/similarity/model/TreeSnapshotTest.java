@@ -0,0 +1,62 @@
+package Codify.similarity.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeSnapshotTest {
+
+    @Test
+    void accessorsFollowPreorderAndSpan() {
+        TreeSnapshot tree = TreeSnapshot.of(sample());
+
+        assertEquals(4, tree.nodeCount());
+        assertEquals("MethodDeclaration", tree.label(0));
+        assertEquals("FunctionName", tree.label(1));
+        assertEquals("main", tree.value(1));
+        assertEquals("ReturnStmt", tree.label(2));
+        assertEquals(2, tree.childCount(0));
+        assertEquals(1, tree.childCount(2));
+        assertEquals(4, tree.subtreeSize(0));
+        assertEquals(2, tree.subtreeSize(2));
+        // 자식 라인으로 계산한 span
+        assertEquals(1, tree.minLine(0));
+        assertEquals(3, tree.maxLine(0));
+        assertEquals(-1, tree.line(0));
+    }
+
+    @Test
+    void laterNodeChangesDoNotLeakIntoSnapshot() {
+        TreeNode root = sample();
+        TreeSnapshot tree = TreeSnapshot.of(root);
+        long hash = tree.rootHash();
+
+        root.label = "ClassDeclaration";
+        tree.node(1).value = "other";
+        tree.node(2).line = 10;
+
+        assertEquals("MethodDeclaration", tree.label(0));
+        assertEquals("main", tree.value(1));
+        assertEquals(2, tree.line(2));
+        assertEquals(hash, tree.rootHash());
+        assertTrue(tree.sameShape(TreeSnapshot.of(sample())));
+        // 자식 목록은 고정
+        assertThrows(UnsupportedOperationException.class, () -> root.addChild(new TreeNode("Block")));
+    }
+
+    // MethodDeclaration(FunctionName@1, ReturnStmt@2(Literal@3))
+    private static TreeNode sample() {
+        TreeNode root = new TreeNode("MethodDeclaration");
+        TreeNode name = new TreeNode("FunctionName");
+        name.value = "main";
+        name.line = 1;
+        TreeNode ret = new TreeNode("ReturnStmt");
+        ret.line = 2;
+        TreeNode literal = new TreeNode("Literal");
+        literal.line = 3;
+        ret.addChild(literal);
+        root.addChild(name);
+        root.addChild(ret);
+        return root;
+    }
+}
@@ -0,0 +1,105 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.PairMatcher;
+import Codify.similarity.domain.AnalysisCheckpoint;
+import Codify.similarity.domain.AssignmentSetting.TedMode;
+import Codify.similarity.repository.AnalysisCheckpointRepository;
+import Codify.similarity.web.dto.MessageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// 체크포인트 재개/재실행: 미완료면 이어서, 완료됐거나 설정이 바뀌면 처음부터
+class AnalysisCheckpointServiceTest {
+
+    private static final List<Integer> SUBMISSIONS = List.of(11, 12, 13, 14);
+
+    private AnalysisCheckpointRepository repository;
+    // runKey -> 행
+    private Map<String, AnalysisCheckpoint> table;
+    private AnalysisCheckpointService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AnalysisCheckpointRepository.class);
+        table = new HashMap<>();
+        when(repository.findByRunKey(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(repository.save(any(AnalysisCheckpoint.class))).thenAnswer(invocation -> {
+            AnalysisCheckpoint checkpoint = invocation.getArgument(0);
+            table.put(checkpoint.getRunKey(), checkpoint);
+            return checkpoint;
+        });
+        service = new AnalysisCheckpointService(repository);
+    }
+
+    @Test
+    void incompleteRunResumesFromCommittedPairs() {
+        service.open(message("g1"), SUBMISSIONS, TedMode.FULL, PairMatcher.Engine.TED);
+        AnalysisCheckpoint checkpoint = only();
+        checkpoint.markPairs(bits(0, 2));
+
+        AnalysisCheckpointService.Opened opened =
+                service.open(message("g2"), SUBMISSIONS, TedMode.FULL, PairMatcher.Engine.TED);
+
+        assertTrue(opened.resumed());
+        assertEquals(bits(0, 2), opened.done());
+        assertEquals(2L, checkpoint.getResumedFromPairs());
+        assertEquals("g2", checkpoint.getGroupId());
+    }
+
+    @Test
+    void completedRunStartsOver() {
+        service.open(message("g1"), SUBMISSIONS, TedMode.FULL, PairMatcher.Engine.TED);
+        AnalysisCheckpoint checkpoint = only();
+        checkpoint.markPairs(bits(0, 1, 2, 3, 4, 5));
+        checkpoint.complete();
+
+        AnalysisCheckpointService.Opened opened =
+                service.open(message("g2"), SUBMISSIONS, TedMode.FULL, PairMatcher.Engine.TED);
+
+        assertFalse(opened.resumed());
+        assertEquals(6L, opened.pairTotal());
+        assertSame(checkpoint, only());
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(0L, checkpoint.getPairDone());
+        assertEquals(0L, checkpoint.getResumedFromPairs());
+    }
+
+    @Test
+    void changedSettingsOpenSeparateRun() {
+        service.open(message("g1"), SUBMISSIONS, TedMode.FULL, PairMatcher.Engine.TED);
+        only().markPairs(bits(0, 1));
+
+        // TED 모드나 매칭 구현이 다르면 이전 완료 비트맵을 쓰지 않음
+        assertFalse(service.open(message("g2"), SUBMISSIONS, TedMode.METHOD, PairMatcher.Engine.TED).resumed());
+        assertFalse(service.open(message("g3"), SUBMISSIONS, TedMode.FULL, PairMatcher.Engine.GREEDY).resumed());
+        assertEquals(3, table.size());
+        assertTrue(service.open(message("g4"), SUBMISSIONS, TedMode.FULL, PairMatcher.Engine.TED).resumed());
+    }
+
+    private AnalysisCheckpoint only() {
+        assertEquals(1, table.size());
+        return table.values().iterator().next();
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) bits.set(index);
+        return bits;
+    }
+
+    private static MessageDto message(String groupId) {
+        return new MessageDto("PARSING_COMPLETED", groupId, 3L, List.of(11L, 12L, 13L, 14L), 4,
+                LocalDateTime.now());
+    }
+}
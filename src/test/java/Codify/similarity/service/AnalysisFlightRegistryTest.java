@@ -0,0 +1,176 @@
+package Codify.similarity.service;
+
+import Codify.similarity.web.dto.MessageDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisFlightRegistryTest {
+
+    private static final Long ASSIGNMENT_ID = 7L;
+    private static final long WINDOW_MS = 100;
+
+    // runner 호출 기록 + 호출마다 직접 완료시키는 future
+    private final List<MessageDto> runs = Collections.synchronizedList(new ArrayList<>());
+    private final List<CompletableFuture<Void>> runFutures = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> completed = Collections.synchronizedList(new ArrayList<>());
+
+    private final Function<MessageDto, CompletableFuture<Void>> runner = merged -> {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        runs.add(merged);
+        runFutures.add(future);
+        return future;
+    };
+
+    @Test
+    void sameSubmissionSetJoinsRunningFlight() throws Exception {
+        AnalysisFlightRegistry registry = new AnalysisFlightRegistry(0);
+
+        CompletableFuture<Void> first = submit(registry, "g1", 1L, 2L, 3L);
+        awaitRuns(1);
+        CompletableFuture<Void> second = submit(registry, "g2", 3L, 2L, 1L);
+
+        assertSame(first, second);
+        runFutures.get(0).complete(null);
+        second.get(1, TimeUnit.SECONDS);
+        assertEquals(1, runs.size());
+        assertEquals(List.of("g1", "g2"), completed);
+    }
+
+    @Test
+    void overlappingRequestsInWindowRunOnceOnUnion() throws Exception {
+        AnalysisFlightRegistry registry = new AnalysisFlightRegistry(WINDOW_MS);
+
+        CompletableFuture<Void> first = submit(registry, "g1", 1L, 2L);
+        CompletableFuture<Void> second = submit(registry, "g2", 2L, 3L);
+        awaitRuns(1);
+        runFutures.get(0).complete(null);
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+
+        assertEquals(1, runs.size());
+        assertEquals(List.of(1L, 2L, 3L), runs.get(0).getSubmissionIds());
+        assertEquals(List.of("g1", "g2"), completed);
+    }
+
+    @Test
+    void disjointRequestsInWindowRunSeparately() throws Exception {
+        AnalysisFlightRegistry registry = new AnalysisFlightRegistry(WINDOW_MS);
+
+        CompletableFuture<Void> first = submit(registry, "g1", 1L, 2L);
+        CompletableFuture<Void> second = submit(registry, "g2", 3L, 4L);
+        assertNotSame(first, second);
+        awaitRuns(2);
+        runFutures.forEach(f -> f.complete(null));
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+
+        // 서로 다른 그룹 사이 페어를 계산하지 않도록 각자 자기 제출물만
+        List<List<Long>> sets = runs.stream()
+                .map(MessageDto::getSubmissionIds)
+                .sorted((a, b) -> Long.compare(a.get(0), b.get(0)))
+                .toList();
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L)), sets);
+    }
+
+    @Test
+    void failedFlightFailsEveryJoinedRequest() {
+        AnalysisFlightRegistry registry = new AnalysisFlightRegistry(WINDOW_MS);
+
+        CompletableFuture<Void> first = submit(registry, "g1", 1L, 2L);
+        CompletableFuture<Void> second = submit(registry, "g2", 2L, 3L);
+        awaitRuns(1);
+        runFutures.get(0).completeExceptionally(new IllegalStateException("boom"));
+
+        assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        assertTrue(completed.isEmpty());
+    }
+
+    @Test
+    void singleRunsAfterLaunchedGroupWithoutBlocking() throws Exception {
+        AnalysisFlightRegistry registry = new AnalysisFlightRegistry(0);
+        submit(registry, "g1", 1L, 2L);
+        awaitRuns(1);
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> single = registry.submitSingle(ASSIGNMENT_ID.intValue(), 1, 5,
+                ForkJoinPool.commonPool(), () -> order.add("single"));
+        assertNotNull(single);
+        // 같은 시작 제출물 중복 예약은 거절
+        assertNull(registry.submitSingle(ASSIGNMENT_ID.intValue(), 1, 5, Runnable::run, () -> order.add("dup")));
+
+        Thread.sleep(50);
+        assertTrue(order.isEmpty());
+        order.add("group");
+        runFutures.get(0).complete(null);
+        single.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("group", "single"), order);
+
+        // 끝난 뒤에는 다시 예약 가능
+        CompletableFuture<Void> again = registry.submitSingle(ASSIGNMENT_ID.intValue(), 1, 5, Runnable::run, () -> { });
+        assertNotNull(again);
+        again.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void singleFailsWithoutRunningWhenGroupWaitTimesOut() throws Exception {
+        AnalysisFlightRegistry registry = new AnalysisFlightRegistry(0);
+        submit(registry, "g1", 1L, 2L);
+        awaitRuns(1);
+
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> single = registry.submitSingle(ASSIGNMENT_ID.intValue(), 1, 1, Runnable::run,
+                () -> ran.add("single"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> single.get(3, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(ran.isEmpty());
+        // 실패 후에는 같은 시작 제출물 예약 해제
+        assertNotNull(registry.submitSingle(ASSIGNMENT_ID.intValue(), 2, 1, Runnable::run, () -> { }));
+    }
+
+    @Test
+    void groupLaunchedAfterSingleWaitsForIt() throws Exception {
+        AnalysisFlightRegistry registry = new AnalysisFlightRegistry(0);
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        CompletableFuture<Void> single = registry.submitSingle(ASSIGNMENT_ID.intValue(), 1, 5,
+                ForkJoinPool.commonPool(), gate::join);
+
+        submit(registry, "g1", 1L, 2L);
+        Thread.sleep(50);
+        assertTrue(runs.isEmpty());
+
+        gate.complete(null);
+        single.get(1, TimeUnit.SECONDS);
+        awaitRuns(1);
+    }
+
+    private CompletableFuture<Void> submit(AnalysisFlightRegistry registry, String groupId, Long... submissionIds) {
+        return registry.submit(message(groupId, submissionIds), runner, m -> completed.add(m.getGroupId()));
+    }
+
+    private void awaitRuns(int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (runs.size() < count) {
+            if (System.nanoTime() > deadline) fail("runner 호출 " + runs.size() + "/" + count);
+            Thread.onSpinWait();
+        }
+    }
+
+    private static MessageDto message(String groupId, Long... submissionIds) {
+        return new MessageDto("PARSING_COMPLETED", groupId, ASSIGNMENT_ID, List.of(submissionIds),
+                submissionIds.length, LocalDateTime.now());
+    }
+}
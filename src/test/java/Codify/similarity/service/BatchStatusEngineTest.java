@@ -0,0 +1,122 @@
+package Codify.similarity.service;
+
+import Codify.similarity.mongo.ResultDocReader;
+import Codify.similarity.mongo.SubmissionAstCount;
+import Codify.similarity.repository.ResultRepository;
+import Codify.similarity.repository.SubmissionDoneCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BatchStatusEngineTest {
+
+    private static final Integer ASSIGNMENT_ID = 7;
+
+    private ResultDocReader resultDocRepository;
+    private ResultRepository resultRepository;
+    private BatchStatusEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        resultDocRepository = mock(ResultDocReader.class);
+        resultRepository = mock(ResultRepository.class);
+        engine = new BatchStatusEngine(resultDocRepository, resultRepository);
+        ReflectionTestUtils.setField(engine, "cacheTtlMs", 60_000L);
+
+        // 10(AST), 20(AST), 30(AST 없음), 40(AST), 50(AST) -> $group 결과는 정렬되지 않은 순서로
+        when(resultDocRepository.aggregateAstCountsByAssignmentId(ASSIGNMENT_ID)).thenReturn(List.of(
+                new SubmissionAstCount(40, 4, 1, 0),
+                new SubmissionAstCount(10, 1, 1, 0),
+                new SubmissionAstCount(30, 3, 0, 1),
+                new SubmissionAstCount(50, 5, 1, 0),
+                new SubmissionAstCount(20, 2, 1, 0)));
+        when(resultRepository.countDoneGroupBySubmissionFromId(ASSIGNMENT_ID.longValue())).thenReturn(List.of(
+                done(10L, 3L),
+                done(20L, 1L)));
+    }
+
+    @Test
+    void totalAndSkippedCountSubmissionsAfterFrom() {
+        BatchStatusEngine.Snapshot snapshot = engine.snapshot(ASSIGNMENT_ID);
+
+        // 기존 countBy...GreaterThanAndAstIsNotNull / AstIsNull 과 같은 값
+        assertEquals(3, snapshot.total(10));
+        assertEquals(1, snapshot.skipped(10));
+        assertEquals(2, snapshot.total(20));
+        assertEquals(1, snapshot.skipped(20));
+        assertEquals(1, snapshot.total(40));
+        assertEquals(0, snapshot.skipped(40));
+        assertEquals(0, snapshot.total(50));
+        // 목록에 없는 submissionId도 구간 합으로 계산
+        assertEquals(4, snapshot.total(5));
+        assertEquals(2, snapshot.total(35));
+    }
+
+    @Test
+    void doneCountsComeFromGroupedQuery() {
+        BatchStatusEngine.Snapshot snapshot = engine.snapshot(ASSIGNMENT_ID);
+
+        assertEquals(3, snapshot.done(10));
+        assertEquals(1, snapshot.done(20));
+        assertEquals(0, snapshot.done(40));
+    }
+
+    @Test
+    void startSubmissionsSkipMissingAstAndLastSubmission() {
+        BatchStatusEngine.Snapshot snapshot = engine.snapshot(ASSIGNMENT_ID);
+
+        // determineStartSubmissions: AST 있는 submissionId >= from 중 마지막 제외
+        assertEquals(List.of(10, 20, 40), snapshot.startSubmissionsFrom(10));
+        assertEquals(List.of(20, 40), snapshot.startSubmissionsFrom(20));
+        assertEquals(List.of(40), snapshot.startSubmissionsFrom(30));
+        assertEquals(List.of(), snapshot.startSubmissionsFrom(50));
+    }
+
+    @Test
+    void studentLookupAndMembership() {
+        BatchStatusEngine.Snapshot snapshot = engine.snapshot(ASSIGNMENT_ID);
+
+        assertFalse(snapshot.isEmpty());
+        assertTrue(snapshot.contains(30));
+        assertFalse(snapshot.contains(35));
+        assertEquals(4, snapshot.studentIdOf(40).orElseThrow());
+        assertTrue(snapshot.studentIdOf(35).isEmpty());
+    }
+
+    @Test
+    void snapshotIsCachedUntilEvicted() {
+        BatchStatusEngine.Snapshot first = engine.snapshot(ASSIGNMENT_ID);
+        assertSame(first, engine.snapshot(ASSIGNMENT_ID));
+
+        engine.evict(ASSIGNMENT_ID);
+        assertNotSame(first, engine.snapshot(ASSIGNMENT_ID));
+    }
+
+    @Test
+    void emptyAssignmentHasNoSubmissions() {
+        BatchStatusEngine.Snapshot snapshot = engine.snapshot(99);
+
+        assertTrue(snapshot.isEmpty());
+        assertEquals(0, snapshot.total(1));
+        assertEquals(List.of(), snapshot.startSubmissionsFrom(1));
+    }
+
+    private static SubmissionDoneCount done(Long submissionFromId, Long doneCount) {
+        return new SubmissionDoneCount() {
+            @Override
+            public Long getSubmissionFromId() {
+                return submissionFromId;
+            }
+
+            @Override
+            public Long getDoneCount() {
+                return doneCount;
+            }
+        };
+    }
+}
@@ -0,0 +1,139 @@
+package Codify.similarity.service;
+
+import Codify.similarity.domain.Result;
+import Codify.similarity.repository.ResultEdge;
+import Codify.similarity.repository.ResultRepository;
+import Codify.similarity.web.dto.ClusterResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClusterServiceTest {
+
+    private static final Long ASSIGNMENT_ID = 7L;
+    private static final double FLOOR = 0.5;
+
+    private ResultRepository resultRepository;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        resultRepository = mock(ResultRepository.class);
+        loads = new AtomicInteger();
+        // 1-2-3 (0.8 이상), 4-5 (0.6)
+        when(resultRepository.findEdges(ASSIGNMENT_ID, FLOOR)).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            return List.of(edge(1L, 2L, 0.9), edge(2L, 3L, 0.85), edge(4L, 5L, 0.6));
+        });
+    }
+
+    @Test
+    void componentsFollowThreshold() {
+        ClusterService service = service(600_000L, 10);
+
+        List<ClusterResponseDto.Cluster> high = service.clusters(ASSIGNMENT_ID, 0.8).clusters();
+        assertEquals(1, high.size());
+        assertEquals(List.of(1L, 2L, 3L), high.get(0).studentIds());
+        assertEquals(0.9, high.get(0).maxScore(), 1e-6);
+
+        List<ClusterResponseDto.Cluster> low = service.clusters(ASSIGNMENT_ID, 0.5).clusters();
+        assertEquals(2, low.size());
+        assertEquals(List.of(4L, 5L), low.get(1).studentIds());
+        // 임계값만 바꾼 조회는 재적재하지 않음
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void persistedResultsApplyToLoadedAssignment() {
+        ClusterService service = service(600_000L, 10);
+        service.clusters(ASSIGNMENT_ID, 0.8);
+
+        service.onPersisted(List.of(result(3L, 4L, 0.95)));
+
+        List<ClusterResponseDto.Cluster> clusters = service.clusters(ASSIGNMENT_ID, 0.8).clusters();
+        assertEquals(List.of(1L, 2L, 3L, 4L), clusters.get(0).studentIds());
+        assertEquals(0.95, clusters.get(0).maxScore(), 1e-6);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void resultsCommittedDuringLoadAreNotLost() {
+        ClusterService service = service(600_000L, 10);
+        // 적재 쿼리가 도는 동안 다른 트랜잭션이 커밋한 결과
+        when(resultRepository.findEdges(ASSIGNMENT_ID, FLOOR)).thenAnswer(invocation -> {
+            service.onPersisted(List.of(result(5L, 6L, 0.99)));
+            return List.of(edge(1L, 2L, 0.9));
+        });
+
+        List<ClusterResponseDto.Cluster> clusters = service.clusters(ASSIGNMENT_ID, 0.8).clusters();
+
+        assertEquals(2, clusters.size());
+        assertTrue(clusters.stream().anyMatch(c -> c.studentIds().equals(List.of(5L, 6L))));
+    }
+
+    @Test
+    void evictAndTtlReload() throws InterruptedException {
+        ClusterService service = service(600_000L, 10);
+        service.clusters(ASSIGNMENT_ID, 0.8);
+        service.evict(ASSIGNMENT_ID);
+        service.clusters(ASSIGNMENT_ID, 0.8);
+        assertEquals(2, loads.get());
+
+        ClusterService expiring = service(1L, 10);
+        expiring.clusters(ASSIGNMENT_ID, 0.8);
+        Thread.sleep(5);
+        expiring.clusters(ASSIGNMENT_ID, 0.8);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void leastRecentlyQueriedAssignmentIsDropped() throws InterruptedException {
+        ClusterService service = service(600_000L, 2);
+        service.clusters(ASSIGNMENT_ID, 0.8);
+        Thread.sleep(2);
+        service.clusters(8L, 0.8);
+        Thread.sleep(2);
+        service.clusters(9L, 0.8);
+
+        // 7이 가장 오래 조회되지 않아 제거됨 -> 다시 적재
+        service.clusters(ASSIGNMENT_ID, 0.8);
+        assertEquals(2, loads.get());
+    }
+
+    private ClusterService service(long ttlMs, int maxAssignments) {
+        return new ClusterService(resultRepository, FLOOR, 0.8, ttlMs, maxAssignments);
+    }
+
+    private static Result result(Long from, Long to, double score) {
+        return Result.builder()
+                .assignmentId(ASSIGNMENT_ID)
+                .studentFromId(from)
+                .studentToId(to)
+                .accumulateResult(score)
+                .build();
+    }
+
+    private static ResultEdge edge(Long from, Long to, double score) {
+        return new ResultEdge() {
+            @Override
+            public Long getStudentFromId() {
+                return from;
+            }
+
+            @Override
+            public Long getStudentToId() {
+                return to;
+            }
+
+            @Override
+            public double getAccumulateResult() {
+                return score;
+            }
+        };
+    }
+}
@@ -0,0 +1,208 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.PairMatcher;
+import Codify.similarity.core.TreeMatcher;
+import Codify.similarity.domain.AssignmentSetting.TedMode;
+import Codify.similarity.domain.PairResultCache;
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
+import Codify.similarity.mongo.ResultDoc;
+import Codify.similarity.repository.PairResultCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PairResultCacheServiceTest {
+
+    private static final List<TreeMatcher.Seg> SEGMENTS = List.of(new TreeMatcher.Seg(1, 3, 2, 4));
+    private static final Map<String, Integer> VECTOR = Map.of("IfStmt", 2, "ReturnStmt", 1);
+
+    private PairResultCacheRepository repository;
+    private PairResultCacheService service;
+    private ResultDoc from;
+    private ResultDoc to;
+    private TreeSnapshot fromTree;
+    private TreeSnapshot toTree;
+    private AtomicInteger computed;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PairResultCacheRepository.class);
+        service = new PairResultCacheService(repository, mock(SimilarityMetrics.class));
+        ReflectionTestUtils.setField(service, "enabled", true);
+        from = doc(1);
+        to = doc(2);
+        fromTree = tree("IfStmt", "a");
+        toTree = tree("ReturnStmt", "b");
+        computed = new AtomicInteger();
+    }
+
+    @Test
+    void verifiedRowIsUsedWithoutComputing() {
+        stored(row(null, digest(fromTree), digest(toTree)));
+
+        PairOutcome outcome = session().row(from, List.of(to)).outcome(to, TedMode.FULL, this::compute);
+
+        assertEquals(0.9, outcome.similarity(), 1e-9);
+        assertEquals(SEGMENTS, outcome.segments());
+        assertEquals(0, computed.get());
+    }
+
+    @Test
+    void digestMismatchIsComputedButNotSaved() {
+        // 64비트 키는 같지만 내용이 다른 행 (해시 충돌)
+        stored(row(null, digest(fromTree), digest(tree("WhileStmt", "c"))));
+        PairResultCacheService.Session session = session();
+
+        PairOutcome outcome = session.row(from, List.of(to)).outcome(to, TedMode.FULL, this::compute);
+        session.save();
+
+        assertEquals(0.5, outcome.similarity(), 1e-9);
+        assertEquals(1, computed.get());
+        verify(repository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void rowWithoutDigestIsRecomputedIntoSameRow() {
+        stored(row(7L, null, null));
+        PairResultCacheService.Session session = session();
+
+        session.row(from, List.of(to)).outcome(to, TedMode.FULL, this::compute);
+        session.save();
+
+        PairResultCache saved = savedRows().get(0);
+        assertEquals(1, computed.get());
+        assertEquals(7L, saved.getPairResultCacheId());
+        assertArrayEquals(digest(fromTree), saved.getFromDigest());
+        assertArrayEquals(digest(toTree), saved.getToDigest());
+        assertEquals(0.5, saved.getSimilarity(), 1e-9);
+    }
+
+    @Test
+    void missIsSavedOnceAndDrained() {
+        PairResultCacheService.Session session = session();
+
+        session.row(from, List.of(to)).outcome(to, TedMode.FULL, this::compute);
+        session.save();
+        // 이미 저장한 결과는 다시 저장하지 않음
+        session.save();
+
+        List<PairResultCache> saved = savedRows();
+        assertEquals(1, saved.size());
+        assertNull(saved.get(0).getPairResultCacheId());
+        assertEquals(PairResultCacheService.contentHash(fromTree, VECTOR), saved.get(0).getFromHash());
+        assertEquals(TedMode.FULL, saved.get(0).getTedMode());
+    }
+
+    @Test
+    void otherMatcherRowIsKeptAndComputedUnderOwnKey() {
+        stored(row(7L, digest(fromTree), digest(toTree), PairMatcher.Engine.GREEDY));
+        PairResultCacheService.Session session = session(true);
+
+        session.row(from, List.of(to)).outcome(to, TedMode.FULL, this::compute);
+        session.save();
+
+        // GREEDY 세그먼트는 쓰지 않고, 그 행을 덮어쓰지 않고 TED 키로 새 행
+        PairResultCache saved = savedRows().get(0);
+        assertEquals(1, computed.get());
+        assertNull(saved.getPairResultCacheId());
+        assertEquals(PairMatcher.Engine.TED, saved.getMatcher());
+    }
+
+    @Test
+    void lazyRunUsesOtherMatcherScore() {
+        stored(row(7L, digest(fromTree), digest(toTree), PairMatcher.Engine.GREEDY));
+
+        PairOutcome outcome = session(false).row(from, List.of(to)).outcome(to, TedMode.FULL, this::compute);
+
+        assertEquals(0.9, outcome.similarity(), 1e-9);
+        assertNull(outcome.segments());
+        assertEquals(0, computed.get());
+    }
+
+    @Test
+    void digestIgnoresValuesButNotLabels() {
+        assertArrayEquals(digest(tree("IfStmt", "a")), digest(tree("IfStmt", "renamed")));
+        assertFalse(java.util.Arrays.equals(digest(tree("IfStmt", "a")), digest(tree("ForStmt", "a"))));
+        assertFalse(java.util.Arrays.equals(digest(tree("IfStmt", "a")),
+                PairResultCacheService.contentDigest(tree("IfStmt", "a"), Map.of("IfStmt", 3))));
+    }
+
+    private PairResultCacheService.Session session() {
+        return session(true);
+    }
+
+    // TED 매칭으로 실행 (segmentsRequired = false면 lazy 모드)
+    private PairResultCacheService.Session session(boolean segmentsRequired) {
+        return service.open(Map.of(1, VECTOR, 2, VECTOR),
+                doc -> doc.getSubmissionId() == 1 ? fromTree : toTree, segmentsRequired, PairMatcher.Engine.TED);
+    }
+
+    private PairOutcome compute() {
+        computed.incrementAndGet();
+        return new PairOutcome(0.5, List.of());
+    }
+
+    private void stored(PairResultCache row) {
+        when(repository.findAllByScoreVersionAndFromHashAndToHashIn(PairResultCacheService.SCORE_VERSION,
+                PairResultCacheService.contentHash(fromTree, VECTOR),
+                List.of(PairResultCacheService.contentHash(toTree, VECTOR)))).thenReturn(List.of(row));
+    }
+
+    private PairResultCache row(Long id, byte[] fromDigest, byte[] toDigest) {
+        return row(id, fromDigest, toDigest, PairMatcher.Engine.TED);
+    }
+
+    private PairResultCache row(Long id, byte[] fromDigest, byte[] toDigest, PairMatcher.Engine matcher) {
+        return PairResultCache.builder()
+                .pairResultCacheId(id)
+                .fromHash(PairResultCacheService.contentHash(fromTree, VECTOR))
+                .toHash(PairResultCacheService.contentHash(toTree, VECTOR))
+                .fromDigest(fromDigest)
+                .toDigest(toDigest)
+                .scoreVersion(PairResultCacheService.SCORE_VERSION)
+                .tedMode(TedMode.FULL)
+                .matcher(matcher)
+                .similarity(0.9)
+                .segments(PairResultCacheService.encode(SEGMENTS))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PairResultCache> savedRows() {
+        ArgumentCaptor<List<PairResultCache>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static byte[] digest(TreeSnapshot tree) {
+        return PairResultCacheService.contentDigest(tree, VECTOR);
+    }
+
+    private static ResultDoc doc(int submissionId) {
+        ResultDoc doc = mock(ResultDoc.class);
+        when(doc.getSubmissionId()).thenReturn(submissionId);
+        return doc;
+    }
+
+    // MethodDeclaration(FunctionName=value@1, label@2)
+    private static TreeSnapshot tree(String label, String value) {
+        TreeNode root = new TreeNode("MethodDeclaration");
+        TreeNode name = new TreeNode("FunctionName");
+        name.value = value;
+        name.line = 1;
+        TreeNode body = new TreeNode(label);
+        body.line = 2;
+        root.addChild(name);
+        root.addChild(body);
+        return TreeSnapshot.of(root);
+    }
+}
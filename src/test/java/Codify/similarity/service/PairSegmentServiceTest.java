@@ -0,0 +1,80 @@
+package Codify.similarity.service;
+
+import Codify.similarity.core.TreeMatcher;
+import Codify.similarity.domain.Result;
+import Codify.similarity.repository.CodelineRepository;
+import Codify.similarity.repository.ResultRepository;
+import Codify.similarity.web.dto.PairCodelinesResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// lazy 모드: 계산한 페어는 Result.segmentsComputed로 남김 -> 세그먼트가 없어도 LRU 밖/재시작 후 다시 계산하지 않음
+class PairSegmentServiceTest {
+
+    private static final Long RESULT_ID = 5L;
+
+    private ResultRepository resultRepository;
+    private CodelineRepository codelineRepository;
+    private CodelineService codelineService;
+    private SimilarityService similarityService;
+
+    @BeforeEach
+    void setUp() {
+        resultRepository = mock(ResultRepository.class);
+        codelineRepository = mock(CodelineRepository.class);
+        codelineService = mock(CodelineService.class);
+        similarityService = mock(SimilarityService.class);
+        when(codelineRepository.findAllByResultIdOrderByStartLineAsc(RESULT_ID)).thenReturn(List.of());
+    }
+
+    @Test
+    void emptySegmentsArePersistedAndNotRecomputed() {
+        Result result = result(false);
+        when(resultRepository.findById(RESULT_ID)).thenReturn(Optional.of(result));
+        when(similarityService.computeSegments(any(Result.class))).thenReturn(List.<TreeMatcher.Seg>of());
+
+        PairCodelinesResponseDto first = service().codelines(RESULT_ID);
+        assertTrue(first.fromLines().isEmpty());
+        assertTrue(result.isSegmentsComputed());
+        verify(resultRepository).save(any(Result.class));
+
+        // 새 인스턴스(재시작, 빈 LRU)에서도 다시 계산하지 않음
+        service().codelines(RESULT_ID);
+        verify(similarityService, times(1)).computeSegments(any(Result.class));
+    }
+
+    @Test
+    void eagerResultWithoutCodelinesIsNotComputed() {
+        // 분석 때 이미 계산했는데 라인이 없음 = 매칭 없음
+        when(resultRepository.findById(RESULT_ID)).thenReturn(Optional.of(result(true)));
+
+        service().codelines(RESULT_ID);
+        verify(similarityService, never()).computeSegments(any(Result.class));
+        verify(resultRepository, never()).save(any(Result.class));
+    }
+
+    // cache-entries 0: LRU 없이 항상 저장소 조회
+    private PairSegmentService service() {
+        return new PairSegmentService(resultRepository, codelineRepository, codelineService, similarityService,
+                null, true, 0, 0);
+    }
+
+    private static Result result(boolean segmentsComputed) {
+        return Result.builder()
+                .id(RESULT_ID)
+                .assignmentId(7L)
+                .submissionFromId(1L)
+                .submissionToId(2L)
+                .studentFromId(10L)
+                .studentToId(20L)
+                .accumulateResult(0.8)
+                .segmentsComputed(segmentsComputed)
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package Codify.similarity.service;
+
+import Codify.similarity.domain.Result;
+import Codify.similarity.repository.ResultRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// 겹치는 제출물 집합을 다시 분석해도 uk_result_assignment_from_to를 어기지 않는지
+class ResultWriterTest {
+
+    private static final Long ASSIGNMENT_ID = 7L;
+
+    private ResultRepository resultRepository;
+    // 저장소 흉내: "from-to" -> 행 (유니크 키 위반이면 실패)
+    private Map<String, Result> table;
+    private List<List<Result>> writes;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        resultRepository = mock(ResultRepository.class);
+        table = new LinkedHashMap<>();
+        writes = new ArrayList<>();
+        nextId = 1;
+        when(resultRepository.findAllByAssignmentIdAndSubmissionFromIdInAndSubmissionToIdIn(
+                eq(ASSIGNMENT_ID), anyCollection(), anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> from = invocation.getArgument(1);
+            Collection<Long> to = invocation.getArgument(2);
+            return table.values().stream()
+                    .filter(row -> from.contains(row.getSubmissionFromId()) && to.contains(row.getSubmissionToId()))
+                    .toList();
+        });
+        when(resultRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Result> rows = invocation.getArgument(0);
+            writes.add(rows);
+            List<Result> saved = new ArrayList<>();
+            for (Result row : rows) saved.add(store(row));
+            return saved;
+        });
+    }
+
+    @Test
+    void reanalyzingOverlappingSetUpdatesInsteadOfInserting() {
+        ResultWriter writer = new ResultWriter(resultRepository);
+        writer.upsert(pairs(0.5, 1L, 2L, 3L));
+        Long overlapId = table.get("2-3").getId();
+
+        // 2-3만 겹침
+        ResultWriter.Upsert second = writer.upsert(pairs(0.9, 2L, 3L, 4L));
+
+        assertEquals(5, table.size());
+        assertEquals(List.of(overlapId), second.updatedIds());
+        assertEquals(overlapId, table.get("2-3").getId());
+        assertEquals(0.9, table.get("2-3").getAccumulateResult(), 1e-9);
+        assertEquals(0.5, table.get("1-2").getAccumulateResult(), 1e-9);
+        // 저장된 행은 입력 순서대로 id를 가짐 (코드라인 매핑용)
+        assertEquals(List.of("2-3", "2-4", "3-4"), second.saved().stream()
+                .map(row -> row.getSubmissionFromId() + "-" + row.getSubmissionToId()).toList());
+        second.saved().forEach(row -> assertNotNull(row.getId()));
+    }
+
+    @Test
+    void rowsInQueriedRangeButNotInInputAreLeftAlone() {
+        ResultWriter writer = new ResultWriter(resultRepository);
+        writer.upsert(List.of(result(1L, 3L, 0.4)));
+
+        // from {1, 2} x to {3, 4} 조회에 1-3이 걸리지만 입력에는 없음
+        ResultWriter.Upsert upsert = writer.upsert(List.of(result(1L, 4L, 0.7), result(2L, 3L, 0.8)));
+
+        assertTrue(upsert.updatedIds().isEmpty());
+        assertEquals(2, writes.get(1).size());
+        assertEquals(0.4, table.get("1-3").getAccumulateResult(), 1e-9);
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void reanalysisResetsSegmentsComputed() {
+        ResultWriter writer = new ResultWriter(resultRepository);
+        writer.upsert(List.of(result(1L, 2L, 0.4, true)));
+
+        // lazy 모드 재분석: 이전 Codeline은 지워지므로 상세 조회 때 다시 계산해야 함
+        writer.upsert(List.of(result(1L, 2L, 0.6, false)));
+
+        assertFalse(table.get("1-2").isSegmentsComputed());
+        assertEquals(0.6, table.get("1-2").getAccumulateResult(), 1e-9);
+    }
+
+    @Test
+    void emptyInputWritesNothing() {
+        ResultWriter.Upsert upsert = new ResultWriter(resultRepository).upsert(List.of());
+
+        assertTrue(upsert.saved().isEmpty());
+        assertTrue(writes.isEmpty());
+    }
+
+    private Result store(Result row) {
+        String key = row.getSubmissionFromId() + "-" + row.getSubmissionToId();
+        if (row.getId() == null) {
+            assertFalse(table.containsKey(key), "uk_result_assignment_from_to 위반: " + key);
+            row = Result.builder()
+                    .id(nextId++)
+                    .assignmentId(row.getAssignmentId())
+                    .submissionFromId(row.getSubmissionFromId())
+                    .submissionToId(row.getSubmissionToId())
+                    .studentFromId(row.getStudentFromId())
+                    .studentToId(row.getStudentToId())
+                    .accumulateResult(row.getAccumulateResult())
+                    .segmentsComputed(row.isSegmentsComputed())
+                    .build();
+        }
+        table.put(key, row);
+        return row;
+    }
+
+    // 제출물 집합의 모든 페어 (from < to)
+    private static List<Result> pairs(double score, Long... submissionIds) {
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < submissionIds.length; i++) {
+            for (int j = i + 1; j < submissionIds.length; j++) {
+                results.add(result(submissionIds[i], submissionIds[j], score));
+            }
+        }
+        return results;
+    }
+
+    private static Result result(Long from, Long to, double score) {
+        return result(from, to, score, false);
+    }
+
+    private static Result result(Long from, Long to, double score, boolean segmentsComputed) {
+        return Result.builder()
+                .assignmentId(ASSIGNMENT_ID)
+                .submissionFromId(from)
+                .submissionToId(to)
+                .studentFromId(from * 10)
+                .studentToId(to * 10)
+                .accumulateResult(score)
+                .segmentsComputed(segmentsComputed)
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package Codify.similarity.service;
+
+import Codify.similarity.model.TreeNode;
+import Codify.similarity.model.TreeSnapshot;
+import Codify.similarity.mongo.ResultDoc;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// 클래스 쌍 결과 공유: 같은 쌍은 한 번만 계산, 계산은 맵 잠금 밖에서 (다른 쌍을 막지 않음)
+class SubmissionClassesTest {
+
+    private static final TreeSnapshot TREE = TreeSnapshot.of(new TreeNode("MethodDeclaration"));
+
+    // 1, 2: 같은 클래스 / 3: 혼자 / 4, 5: 같은 클래스
+    private static SubmissionClasses classes() {
+        List<ResultDoc> docs = List.of(doc(1), doc(2), doc(3), doc(4), doc(5));
+        Map<Integer, Map<String, Integer>> vectors = Map.of(
+                1, Map.of("A", 1), 2, Map.of("A", 1), 3, Map.of("B", 1), 4, Map.of("C", 1), 5, Map.of("C", 1));
+        return SubmissionClasses.group(docs, vectors, doc -> 7L, doc -> TREE);
+    }
+
+    @Test
+    void sameClassPairIsComputedOnceWhileOtherPairsProceed() throws Exception {
+        SubmissionClasses classes = classes();
+        assertEquals(3, classes.classes());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computed = new AtomicInteger();
+        PairOutcome slow = new PairOutcome(0.9, List.of());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<PairOutcome> first = pool.submit(() -> classes.outcome(1, 3, () -> {
+                computed.incrementAndGet();
+                started.countDown();
+                await(release);
+                return slow;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // 같은 클래스 쌍(2 -> 3)은 먼저 맡은 계산을 기다림
+            Future<PairOutcome> second = pool.submit(() -> classes.outcome(2, 3, () -> {
+                computed.incrementAndGet();
+                return new PairOutcome(0.1, List.of());
+            }));
+
+            // 다른 클래스 쌍은 첫 계산이 끝나기 전에 바로 계산됨
+            PairOutcome other = new PairOutcome(0.5, List.of());
+            assertSame(other, classes.outcome(1, 4, () -> other));
+            assertFalse(second.isDone());
+
+            release.countDown();
+            assertSame(slow, first.get(5, TimeUnit.SECONDS));
+            assertSame(slow, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, computed.get());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedComputationIsNotShared() {
+        SubmissionClasses classes = classes();
+        assertThrows(IllegalStateException.class, () -> classes.outcome(1, 4, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        // 실패는 남지 않음 -> 같은 클래스 쌍의 다음 페어가 다시 계산
+        PairOutcome retried = new PairOutcome(0.3, List.of());
+        assertSame(retried, classes.outcome(2, 5, () -> retried));
+        assertSame(retried, classes.outcome(1, 5, () -> {
+            throw new AssertionError("cached outcome expected");
+        }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ResultDoc doc(int submissionId) {
+        ResultDoc doc = mock(ResultDoc.class);
+        when(doc.getSubmissionId()).thenReturn(submissionId);
+        return doc;
+    }
+}
@@ -0,0 +1,187 @@
+package Codify.similarity.fixture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// 벤치마크/부하 테스트용 합성 AST 생성기
+// parsing service가 Mongo에 저장하는 형태(type/value/line/children)의 JSON 트리를 만든다
+public final class SyntheticAstGenerator {
+
+    // size: 목표 노드 수, depth: 최대 깊이, branching: 노드당 최대 자식 수, mutationRate: 변형 비율(0~1)
+    public record Spec(int size, int depth, int branching, double mutationRate) {}
+
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    private static final String[] STATEMENTS = {
+            "ForStmt", "WhileStmt", "IfStmt", "VariableDeclaration", "ReturnStmt", "ExpressionStmt", "BlockStmt"
+    };
+    private static final String[] EXPRESSIONS = {"BinaryExpr", "VariableName", "Literal", "MethodCall"};
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "<", ">", "=="};
+    private static final String[] TYPES = {"int", "long", "double", "String", "boolean"};
+
+    // 부모 라벨별로 올 수 있는 자식 라벨
+    private static final Map<String, String[]> CHILDREN = Map.ofEntries(
+            Map.entry("CompilationUnit", new String[]{"MethodDeclaration"}),
+            Map.entry("MethodDeclaration", new String[]{"Type", "FunctionName", "ParameterList", "BlockStmt"}),
+            Map.entry("ParameterList", new String[]{"Parameter"}),
+            Map.entry("Parameter", new String[]{"Type", "VariableName"}),
+            Map.entry("BlockStmt", STATEMENTS),
+            Map.entry("ForStmt", new String[]{"VariableDeclaration", "BinaryExpr", "ExpressionStmt", "BlockStmt"}),
+            Map.entry("WhileStmt", new String[]{"BinaryExpr", "BlockStmt"}),
+            Map.entry("IfStmt", new String[]{"BinaryExpr", "BlockStmt", "BlockStmt"}),
+            Map.entry("VariableDeclaration", new String[]{"Type", "VariableName", "BinaryExpr"}),
+            Map.entry("ReturnStmt", EXPRESSIONS),
+            Map.entry("ExpressionStmt", EXPRESSIONS),
+            Map.entry("BinaryExpr", new String[]{"VariableName", "Operator", "Literal", "MethodCall"}),
+            Map.entry("MethodCall", new String[]{"FunctionName", "VariableName", "Literal"})
+    );
+
+    // 자식 구성이 고정된 노드 (CHILDREN 순서 그대로 생성)
+    private static final Set<String> FIXED_CHILDREN = Set.of("MethodDeclaration", "Parameter");
+
+    // 새 라인을 차지하는 노드
+    private static final Set<String> LINE_NODES = Set.of(
+            "MethodDeclaration", "ForStmt", "WhileStmt", "IfStmt", "VariableDeclaration", "ReturnStmt", "ExpressionStmt"
+    );
+
+    private final Random random;
+
+    public SyntheticAstGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    // spec.size 노드 내외의 트리 생성 (frontier에서 임의 노드를 골라 확장)
+    public ObjectNode generate(Spec spec) {
+        ObjectNode root = leaf("CompilationUnit");
+        record Open(ObjectNode node, int depth) {}
+        List<Open> frontier = new ArrayList<>();
+        frontier.add(new Open(root, 0));
+        int count = 1;
+
+        while (count < spec.size() && !frontier.isEmpty()) {
+            Open open = frontier.remove(random.nextInt(frontier.size()));
+            String[] candidates = CHILDREN.get(open.node().get("type").asText());
+            if (candidates == null || open.depth() >= spec.depth()) continue;
+
+            // 루트는 크기에 비례한 수의 메서드를 갖도록 (실제 제출물과 비슷한 모양)
+            int fanOut = (open.depth() == 0)
+                    ? Math.max(1, spec.size() / 150)
+                    : 1 + random.nextInt(Math.max(1, spec.branching()));
+            boolean fixed = FIXED_CHILDREN.contains(open.node().get("type").asText());
+            if (fixed) fanOut = candidates.length;
+            ArrayNode children = open.node().withArray("children");
+            for (int k = 0; k < fanOut && count < spec.size(); k++) {
+                ObjectNode child = leaf(fixed ? candidates[k] : candidates[random.nextInt(candidates.length)]);
+                children.add(child);
+                frontier.add(new Open(child, open.depth() + 1));
+                count++;
+            }
+        }
+        assignLines(root);
+        return root;
+    }
+
+    // 깊이 depth의 중첩 이항식 한 줄짜리 메서드 (생성 코드/긴 수식처럼 깊은 AST)
+    // BinaryExpr -> [BinaryExpr, Operator, Literal] 형태로 반복
+    public ObjectNode deepExpression(int depth) {
+        ObjectNode root = leaf("CompilationUnit");
+        ObjectNode method = leaf("MethodDeclaration");
+        root.withArray("children").add(method);
+        for (String type : CHILDREN.get("MethodDeclaration")) {
+            if (!"BlockStmt".equals(type)) method.withArray("children").add(leaf(type));
+        }
+        ObjectNode block = leaf("BlockStmt");
+        method.withArray("children").add(block);
+        ObjectNode statement = leaf("ExpressionStmt");
+        block.withArray("children").add(statement);
+
+        ObjectNode expr = leaf("BinaryExpr");
+        statement.withArray("children").add(expr);
+        for (int d = 1; d < depth; d++) {
+            ObjectNode inner = leaf("BinaryExpr");
+            expr.withArray("children").add(inner).add(leaf("Operator")).add(leaf("Literal"));
+            expr = inner;
+        }
+        assignLines(root);
+        return root;
+    }
+
+    // 원본을 mutationRate 비율로 변형한 복사본 (이름 변경, 라벨 변경, 서브트리 삭제, 리프 삽입)
+    public ObjectNode mutate(JsonNode original, double mutationRate) {
+        ObjectNode copy = original.deepCopy();
+        ArrayDeque<ObjectNode> stack = new ArrayDeque<>();
+        stack.push(copy);
+        while (!stack.isEmpty()) {
+            ObjectNode node = stack.pop();
+            if (random.nextDouble() < mutationRate) applyMutation(node);
+            if (node.has("children")) {
+                for (JsonNode child : node.get("children")) stack.push((ObjectNode) child);
+            }
+        }
+        assignLines(copy);
+        return copy;
+    }
+
+    private void applyMutation(ObjectNode node) {
+        ArrayNode children = node.has("children") ? (ArrayNode) node.get("children") : null;
+        switch (random.nextInt(4)) {
+            case 0 -> {
+                if (node.has("value")) node.put("value", node.get("value").asText() + "_m");
+            }
+            case 1 -> {
+                if (LINE_NODES.contains(node.get("type").asText())) {
+                    node.put("type", STATEMENTS[random.nextInt(STATEMENTS.length)]);
+                }
+            }
+            case 2 -> {
+                if (children != null && !children.isEmpty()) children.remove(random.nextInt(children.size()));
+            }
+            default -> node.withArray("children").add(leaf(EXPRESSIONS[1 + random.nextInt(2)]));
+        }
+    }
+
+    private ObjectNode leaf(String type) {
+        ObjectNode node = JSON.objectNode();
+        node.put("type", type);
+        switch (type) {
+            case "VariableName" -> node.put("value", "v" + random.nextInt(20));
+            case "FunctionName" -> node.put("value", "f" + random.nextInt(10));
+            case "Literal" -> node.put("value", String.valueOf(random.nextInt(100)));
+            case "Operator" -> node.put("value", OPERATORS[random.nextInt(OPERATORS.length)]);
+            case "Type" -> node.put("value", TYPES[random.nextInt(TYPES.length)]);
+            default -> { }
+        }
+        return node;
+    }
+
+    // 전위 순회 순서로 라인 부여, 문장 노드는 새 라인, 나머지는 부모 라인 공유
+    private static void assignLines(ObjectNode root) {
+        record Visit(ObjectNode node, int parentLine) {}
+        ArrayDeque<Visit> stack = new ArrayDeque<>();
+        stack.push(new Visit(root, -1));
+        int line = 0;
+        while (!stack.isEmpty()) {
+            Visit visit = stack.pop();
+            ObjectNode node = visit.node();
+            int own = LINE_NODES.contains(node.get("type").asText()) ? ++line : visit.parentLine();
+            if (own >= 1) node.put("line", own);
+            else node.remove("line");
+
+            if (node.has("children")) {
+                ArrayNode children = (ArrayNode) node.get("children");
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(new Visit((ObjectNode) children.get(i), own));
+                }
+            }
+        }
+    }
+}